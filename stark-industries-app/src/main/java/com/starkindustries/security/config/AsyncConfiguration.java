@@ -1,27 +1,96 @@
 package com.starkindustries.security.config;
 
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 // Configura los ejecutores (pools de hilos) usados por @Async
+// Con stark.sensors.concurrent.virtual-threads.enabled=true los tres ejecutores pasan a usar
+// hilos virtuales (un hilo por tarea) limitados por concurrencia en lugar de por cola.
 @Configuration
 public class AsyncConfiguration implements AsyncConfigurer {
 
+    // Activa el modo de hilos virtuales para sensores, alertas, notificaciones y Tomcat
+    @Value("${stark.sensors.concurrent.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    // Límites de concurrencia en modo virtual (por defecto, máximo de hilos + capacidad de cola del modo clásico)
+    @Value("${stark.sensors.concurrent.virtual-threads.sensor-concurrency-limit:250}")
+    private int sensorConcurrencyLimit;
+
+    @Value("${stark.sensors.concurrent.virtual-threads.alert-concurrency-limit:120}")
+    private int alertConcurrencyLimit;
+
+    @Value("${stark.sensors.concurrent.virtual-threads.notification-concurrency-limit:65}")
+    private int notificationConcurrencyLimit;
+
+    @Value("${stark.sensors.concurrent.virtual-threads.broadcast-concurrency-limit:8}")
+    private int broadcastConcurrencyLimit;
+
+    @Value("${stark.sensors.concurrent.virtual-threads.authentication-concurrency-limit:58}")
+    private int authenticationConcurrencyLimit;
+
+    // Pools separados por tipo de sensor (ver `sensorBulkheads`)
+    @Value("${stark.sensors.concurrent.bulkheads.enabled:true}")
+    private boolean bulkheadsEnabled;
+
+    // Cola con prioridades en el pool de sensores (sólo en modo clásico: en modo virtual no hay cola)
+    @Value("${stark.sensors.priority.enabled:true}")
+    private boolean priorityQueue;
+
+    // Espera máxima en cola por clase de prioridad antes de adelantar a clases superiores (envejecimiento)
+    @Value("${stark.sensors.priority.max-wait-ms.critical:0}")
+    private long criticalMaxWaitMs;
+
+    @Value("${stark.sensors.priority.max-wait-ms.high:50}")
+    private long highMaxWaitMs;
+
+    @Value("${stark.sensors.priority.max-wait-ms.normal:250}")
+    private long normalMaxWaitMs;
+
+    @Value("${stark.sensors.priority.max-wait-ms.low:1000}")
+    private long lowMaxWaitMs;
+
     // Pool principal para procesar eventos de sensores
     @Bean(name = "sensorExecutor")
-    public ThreadPoolTaskExecutor sensorExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    public AsyncTaskExecutor sensorExecutor() {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("SensorProcessor-", sensorConcurrencyLimit, 60_000);
+        }
+        // 20 hilos siempre activos, hasta 50 bajo carga y 200 tareas en cola
+        return sensorPool("sensor", "SensorProcessor-", 20, 50, 200);
+    }
+
+    // Pool de procesamiento de sensores; la cola se ordena por prioridad si está activa
+    private ThreadPoolTaskExecutor sensorPool(String name, String threadNamePrefix,
+                                              int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = priorityQueue
+                ? new PriorityThreadPoolTaskExecutor(name, Map.of(
+                        TaskPriority.CRITICAL, criticalMaxWaitMs,
+                        TaskPriority.HIGH, highMaxWaitMs,
+                        TaskPriority.NORMAL, normalMaxWaitMs,
+                        TaskPriority.LOW, lowMaxWaitMs))
+                : new ThreadPoolTaskExecutor();
         // Número de hilos que se mantienen siempre activos
-        executor.setCorePoolSize(20);
+        executor.setCorePoolSize(corePoolSize);
         // Máximo de hilos que puede crecer el pool bajo carga
-        executor.setMaxPoolSize(50);
+        executor.setMaxPoolSize(maxPoolSize);
         // Cola de tareas pendientes cuando todos los hilos están ocupados
-        executor.setQueueCapacity(200);
-        executor.setThreadNamePrefix("SensorProcessor-");
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
         // Esperar a que terminen las tareas al apagar la aplicación
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
@@ -29,9 +98,43 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return executor;
     }
 
+    // Un compartimento (pool + cola + política de rechazo) por tipo de sensor, configurable en
+    // stark.sensors.concurrent.bulkheads.<tipo>.*; si están deshabilitados, todos comparten `sensorExecutor`
+    @Bean
+    public SensorBulkheads sensorBulkheads(MeterRegistry meterRegistry, Environment environment) {
+        Map<SensorType, SensorBulkheads.Bulkhead> bulkheads = new EnumMap<>(SensorType.class);
+        for (SensorType type : SensorType.values()) {
+            String prefix = "stark.sensors.concurrent.bulkheads." + type.name().toLowerCase() + ".";
+            boolean callerRuns = !"abort".equalsIgnoreCase(
+                    environment.getProperty(prefix + "rejection-policy", "caller-runs"));
+            AsyncTaskExecutor executor;
+            if (!bulkheadsEnabled) {
+                executor = sensorExecutor();
+            } else if (virtualThreads) {
+                executor = new VirtualThreadTaskExecutor(bulkheadThreadPrefix(type),
+                        environment.getProperty(prefix + "concurrency-limit", Integer.class, 100), 60_000);
+            } else {
+                executor = sensorPool("sensor-" + type.name().toLowerCase(), bulkheadThreadPrefix(type),
+                        environment.getProperty(prefix + "core-size", Integer.class, 6),
+                        environment.getProperty(prefix + "max-size", Integer.class, 12),
+                        environment.getProperty(prefix + "queue-capacity", Integer.class, 80));
+            }
+            bulkheads.put(type, new SensorBulkheads.Bulkhead(executor, callerRuns));
+        }
+        return new SensorBulkheads(bulkheads, bulkheadsEnabled, meterRegistry);
+    }
+
+    // Prefijo de hilos por tipo, p. ej. "SensorProcessor-ACCESS-"
+    private static String bulkheadThreadPrefix(SensorType type) {
+        return "SensorProcessor-" + type.name() + "-";
+    }
+
     // Pool específico para tareas de alertas (separado del de sensores)
     @Bean(name = "alertExecutor") // Registra este método como un bean de Spring con el nombre "alertExecutor" que podrá ser inyectado en otros componentes
-    public ThreadPoolTaskExecutor alertExecutor() {
+    public AsyncTaskExecutor alertExecutor() {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("AlertProcessor-", alertConcurrencyLimit, 30_000);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);
         executor.setMaxPoolSize(20);
@@ -43,9 +146,30 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return executor;
     }
 
+    // Pool de la etapa "broadcast" del pipeline de sensores (publicación por WebSocket). La etapa limita
+    // por sí misma cuántos workers usa, así que basta con unos pocos hilos.
+    @Bean(name = "broadcastExecutor")
+    public AsyncTaskExecutor broadcastExecutor() {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("Broadcast-", broadcastConcurrencyLimit, 10_000);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("Broadcast-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
     // Pool para tareas de notificaciones (emails, WebSocket, etc.)
     @Bean(name = "notificationExecutor") // Registra este método como un bean de Spring con el nombre "notificationExecutor" que podrá ser inyectado en otros componentes
-    public ThreadPoolTaskExecutor notificationExecutor() {
+    public AsyncTaskExecutor notificationExecutor() {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("Notification-", notificationConcurrencyLimit, 0);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(15);
@@ -55,6 +179,32 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return executor;
     }
 
+    // Pool donde se termina el login tras verificar la contraseña (JWT, intentos fallidos, log de acceso):
+    // trabajo de BD que no debe ocupar los hilos del pool de BCrypt
+    @Bean(name = "authenticationExecutor")
+    public AsyncTaskExecutor authenticationExecutor() {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("Login-", authenticationConcurrencyLimit, 5_000);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("Login-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        executor.initialize();
+        return executor;
+    }
+
+    // En modo virtual, Tomcat atiende cada petición HTTP en su propio hilo virtual
+    @Bean
+    @ConditionalOnProperty(name = "stark.sensors.concurrent.virtual-threads.enabled", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+
     // Executor por defecto que usará @Async cuando no se especifique un bean concreto
     @Override
     public Executor getAsyncExecutor() {
@@ -0,0 +1,84 @@
+package com.starkindustries.security.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom de cadenas, sin bloqueos: responde "seguro que no está" o "puede que esté".
+// - Tamaño calculado para `expectedInsertions` elementos con una tasa de falsos positivos `fpp`:
+//   m = -n·ln(p) / ln(2)² bits y k = m/n·ln(2) funciones hash.
+// - Las k posiciones salen de dos hashes de 64 bits (h1 + i·h2, Kirsch-Mitzenmacher), así que cada
+//   consulta recorre la cadena una vez y no reserva memoria.
+// - Los bits viven en un AtomicLongArray: las consultas son lecturas volátiles y las inserciones, un OR
+//   atómico por palabra; admite lectores y escritores concurrentes.
+// - No admite borrados: para quitar elementos se construye uno nuevo.
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(int expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+        long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) bitCount / n * Math.log(2))));
+    }
+
+    // Añade el elemento
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            long current = words.get(index);
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(index, current, current | mask)) {
+                current = words.get(index);
+            }
+        }
+    }
+
+    // false si el elemento seguro que no se ha añadido; true si puede que sí
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres, con mezcla final para repartir los bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // Finalizador de MurmurHash3 (fmix64); nunca devuelve 0 (con h2 = 0 las k posiciones serían la misma)
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53ae25bL;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+}
@@ -0,0 +1,48 @@
+package com.starkindustries.security.config;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// Lectura homogénea del estado de un executor, sea un pool clásico o de hilos virtuales
+public final class ExecutorStats {
+
+    private ExecutorStats() {
+    }
+
+    // Número de tareas ejecutándose ahora mismo en el executor
+    public static int activeCount(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            return pool.getActiveCount();
+        }
+        if (executor instanceof VirtualThreadTaskExecutor virtual) {
+            return virtual.getActiveCount();
+        }
+        return 0;
+    }
+
+    // Mapa con las mismas claves que ya consume el dashboard (active, poolSize, corePoolSize, maxPoolSize)
+    public static Map<String, Object> describe(Executor executor) {
+        Map<String, Object> threadPool = new HashMap<>();
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            threadPool.put("mode", "platform");
+            threadPool.put("active", pool.getActiveCount());
+            threadPool.put("poolSize", pool.getPoolSize());
+            threadPool.put("corePoolSize", pool.getCorePoolSize());
+            threadPool.put("maxPoolSize", pool.getMaxPoolSize());
+            threadPool.put("queueSize", pool.getQueueSize());
+        } else if (executor instanceof VirtualThreadTaskExecutor virtual) {
+            // Con hilos virtuales no hay pool: el "tamaño" es el número de tareas vivas
+            // y el máximo es el límite de concurrencia configurado
+            threadPool.put("mode", "virtual");
+            threadPool.put("active", virtual.getActiveCount());
+            threadPool.put("poolSize", virtual.getActiveCount());
+            threadPool.put("corePoolSize", 0);
+            threadPool.put("maxPoolSize", virtual.getConcurrencyLimit());
+            threadPool.put("queueSize", 0);
+        }
+        return threadPool;
+    }
+}
@@ -0,0 +1,45 @@
+package com.starkindustries.security.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+// Tiempo máximo de las exportaciones en streaming. El de las peticiones asíncronas en general
+// (spring.mvc.async.request-timeout) es corto, para que un login o un evento colgados no retengan la
+// conexión; las exportaciones, que pueden durar minutos, lo amplían sólo para su propia petición.
+@Configuration
+public class ExportTimeoutConfiguration implements WebMvcConfigurer {
+
+    private static final String EXPORT_REQUEST = ExportTimeoutConfiguration.class.getName() + ".EXPORT";
+
+    @Value("${stark.export.request-timeout-ms:1800000}")
+    private long exportTimeoutMs;
+
+    // Marca la petición en curso como exportación; llamarlo desde el endpoint antes de devolver el cuerpo
+    public static void markExportRequest() {
+        RequestContextHolder.currentRequestAttributes()
+                .setAttribute(EXPORT_REQUEST, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Se aplica justo antes de iniciar el modo asíncrono, cuando aún se puede cambiar el timeout
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest asyncRequest
+                        && Boolean.TRUE.equals(request.getAttribute(EXPORT_REQUEST, RequestAttributes.SCOPE_REQUEST))) {
+                    asyncRequest.setTimeout(exportTimeoutMs);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,177 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Ejecutor "por clave": las tareas con la misma clave se ejecutan de una en una y en orden de llegada
+// (un carril serie por clave), mientras que claves distintas se reparten en paralelo por el executor
+// delegado. No hay ningún bloqueo global: cada carril se crea y se elimina de forma atómica con
+// `ConcurrentHashMap.compute`, que sólo bloquea la entrada de esa clave.
+public class KeyedSerialExecutor {
+
+    private final Executor delegate;
+    // Qué hacer si el delegado rechaza el carril: ejecutarlo en el hilo llamante o hacer fallar la tarea
+    private final boolean callerRunsOnReject;
+    private final Map<Object, Lane> lanes = new ConcurrentHashMap<>();
+    // Tareas encoladas o en ejecución entre todos los carriles
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final DistributionSummary laneDepth;
+    private final Counter callerRuns;
+    private final Counter rejected;
+
+    public KeyedSerialExecutor(String name, Executor delegate, MeterRegistry meterRegistry) {
+        this(name, delegate, true, meterRegistry);
+    }
+
+    public KeyedSerialExecutor(String name, Executor delegate, boolean callerRunsOnReject, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.callerRunsOnReject = callerRunsOnReject;
+        this.laneDepth = DistributionSummary.builder("executor.lane.depth")
+                .description("Profundidad del carril al encolar una tarea (incluida la que está en ejecución)")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.callerRuns = Counter.builder("executor.lane.caller.runs")
+                .description("Tareas ejecutadas en el hilo llamante por rechazo del executor delegado")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("executor.lane.rejected")
+                .description("Tareas descartadas por rechazo del executor delegado")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("executor.lane.active", lanes, Map::size)
+                .description("Carriles con tareas pendientes")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("executor.lane.pending", pending, AtomicInteger::get)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    // Encola la tarea con prioridad normal
+    public <T> CompletableFuture<T> submit(Object key, Supplier<T> task) {
+        return submit(key, TaskPriority.NORMAL, task);
+    }
+
+    // Encola la tarea en el carril de `key`; si el carril estaba vacío, lo pone en marcha en el delegado.
+    // La prioridad se aplica al entregar el carril al delegado (cuenta la de la tarea en cabeza).
+    public <T> CompletableFuture<T> submit(Object key, TaskPriority priority, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable work = () -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        int[] depth = new int[1];
+        lanes.compute(key, (k, lane) -> {
+            if (lane == null) {
+                lane = new Lane();
+            }
+            lane.tasks.add(new LaneTask(priority, work, future));
+            depth[0] = ++lane.size;
+            return lane;
+        });
+        pending.incrementAndGet();
+        laneDepth.record(depth[0]);
+
+        // Sólo quien encuentra el carril vacío lo arranca; el resto de tareas las encadena el propio carril
+        if (depth[0] == 1) {
+            dispatch(key);
+        }
+        return future;
+    }
+
+    // Profundidad actual de cada carril (diagnóstico)
+    public Map<String, Integer> getLaneDepths() {
+        Map<String, Integer> depths = new HashMap<>();
+        lanes.forEach((key, lane) -> depths.put(String.valueOf(key), lane.size));
+        return depths;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    // Entrega el carril al delegado. Si lo rechaza (pool saturado), la siguiente tarea se ejecuta en el
+    // hilo llamante, que así frena al productor, o se hace fallar según la política; después se vuelve
+    // a intentar la entrega con la siguiente.
+    private void dispatch(Object key) {
+        while (true) {
+            try {
+                delegate.execute(new TaskPriority.Task(headPriority(key), () -> runAndContinue(key)));
+                return;
+            } catch (RejectedExecutionException e) {
+                if (callerRunsOnReject) {
+                    callerRuns.increment();
+                } else {
+                    rejected.increment();
+                }
+                if (!runNext(key, callerRunsOnReject ? null : e)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private TaskPriority headPriority(Object key) {
+        return lanes.get(key).tasks.peek().priority();
+    }
+
+    private void runAndContinue(Object key) {
+        if (runNext(key, null)) {
+            dispatch(key);
+        }
+    }
+
+    // Ejecuta la tarea en cabeza del carril (o la hace fallar con `rejection`) y la retira después;
+    // devuelve si quedan más. La cabeza se retira al terminar (no al empezar) para que el carril no se
+    // elimine mientras se ejecuta.
+    private boolean runNext(Object key, RejectedExecutionException rejection) {
+        LaneTask head = lanes.get(key).tasks.peek();
+        try {
+            if (rejection == null) {
+                head.work().run();
+            } else {
+                head.future().completeExceptionally(rejection);
+            }
+        } finally {
+            pending.decrementAndGet();
+        }
+        boolean[] more = new boolean[1];
+        lanes.computeIfPresent(key, (k, l) -> {
+            l.tasks.poll();
+            if (--l.size == 0) {
+                // Carril vacío: se elimina para no acumular claves sin uso
+                return null;
+            }
+            more[0] = true;
+            return l;
+        });
+        return more[0];
+    }
+
+    // Carril de una clave. `size` sólo se modifica dentro de compute (bloqueo de la entrada del mapa);
+    // es volatile para poder leerlo sin bloqueo en el diagnóstico.
+    private static final class Lane {
+        private final Queue<LaneTask> tasks = new ConcurrentLinkedQueue<>();
+        private volatile int size;
+    }
+
+    private record LaneTask(TaskPriority priority, Runnable work, CompletableFuture<?> future) {}
+}
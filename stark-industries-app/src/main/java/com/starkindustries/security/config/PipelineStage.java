@@ -0,0 +1,199 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Etapa de un pipeline por etapas (SEDA): cola acotada propia (`RingBuffer`, sin bloqueos) + un máximo
+// de `workers` tareas que la vacían en lotes de hasta `batchSize` elementos sobre el executor indicado.
+// Las tareas sólo existen mientras hay trabajo: la primera llegada arranca un worker, que espera hasta `lingerMs` a completar
+// el lote y, al quedarse la cola vacía, termina. Así cada etapa se dimensiona por separado y una
+// etapa lenta sólo llena su propia cola.
+@Slf4j
+public class PipelineStage<T> {
+
+    private final String name;
+    private final Executor executor;
+    private final int workers;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Consumer<List<T>> handler;
+    private final RingBuffer<T> queue;
+
+    // Workers en marcha (como mucho `workers`)
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean stopped;
+
+    private final Timer latency;
+    private final Counter items;
+    private final Counter inline;
+    private final Counter errors;
+    private final DistributionSummary batchSizes;
+
+    public PipelineStage(String name, Executor executor, int workers, int batchSize, long lingerMs,
+                         int capacity, WaitStrategy waitStrategy, Consumer<List<T>> handler,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.executor = executor;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMs));
+        this.handler = handler;
+        this.queue = new RingBuffer<>(capacity, waitStrategy);
+
+        this.latency = Timer.builder("sensor.pipeline.latency")
+                .description("Tiempo desde que un elemento entra en la etapa hasta que termina de procesarse")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.items = Counter.builder("sensor.pipeline.items")
+                .description("Elementos procesados por la etapa")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.inline = Counter.builder("sensor.pipeline.inline")
+                .description("Elementos procesados en el hilo productor por tener la cola llena")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.errors = Counter.builder("sensor.pipeline.errors")
+                .description("Lotes cuyo procesamiento ha fallado")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("sensor.pipeline.batch.size")
+                .description("Tamaño de los lotes procesados por la etapa")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("sensor.pipeline.queue", queue, RingBuffer::size)
+                .description("Elementos esperando en la cola de la etapa")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("sensor.pipeline.workers", active, AtomicInteger::get)
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    // Encola el elemento esperando como mucho `offerTimeoutMs` a que haya hueco. Si la cola sigue llena
+    // (o la etapa está parada) se procesa en el hilo llamante, que así frena al productor (back-pressure)
+    // sin perder nada. Devuelve si se encoló.
+    public boolean submit(T item, long offerTimeoutMs) {
+        long now = System.nanoTime();
+        if (!stopped && queue.publish(item, now, TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs))) {
+            startWorker();
+            return true;
+        }
+        inline.increment();
+        handle(List.of(item), new long[] {now});
+        return false;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    // Estado de la etapa para el diagnóstico
+    public Map<String, Object> describe() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", queue.capacity());
+        stats.put("activeWorkers", active.get());
+        stats.put("maxWorkers", workers);
+        stats.put("batchSize", batchSize);
+        stats.put("processed", (long) items.count());
+        return stats;
+    }
+
+    // Deja de aceptar elementos (los nuevos se procesan en el llamante), espera a los workers y procesa
+    // aquí lo que quede en la cola
+    public void stop(long timeoutMs) throws InterruptedException {
+        stopped = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (active.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        List<T> rest = new ArrayList<>(batchSize);
+        long[] enqueuedAt = new long[batchSize];
+        while (queue.drainTo(rest, enqueuedAt, batchSize) > 0) {
+            handle(rest, enqueuedAt);
+            rest.clear();
+        }
+        log.debug("Etapa {} detenida", name);
+    }
+
+    // Arranca un worker si no se ha llegado al máximo. Si el executor lo rechaza, el worker se ejecuta en
+    // el hilo llamante para que la cola no se quede sin nadie que la vacíe.
+    private void startWorker() {
+        int current;
+        while ((current = active.get()) < workers) {
+            if (active.compareAndSet(current, current + 1)) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException e) {
+                    work();
+                }
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        List<T> batch = new ArrayList<>(batchSize);
+        long[] enqueuedAt = new long[batchSize];
+        try {
+            while (queue.drainTo(batch, enqueuedAt, batchSize) > 0) {
+                linger(batch, enqueuedAt);
+                handle(batch, enqueuedAt);
+                batch.clear();
+            }
+        } finally {
+            active.decrementAndGet();
+            // Un elemento encolado justo cuando este worker salía podría quedarse sin worker
+            if (!queue.isEmpty() && !stopped) {
+                startWorker();
+            }
+        }
+    }
+
+    // Espera hasta `lingerNanos` (desde el primer elemento) a que el lote se complete
+    private void linger(List<T> batch, long[] enqueuedAt) {
+        if (lingerNanos == 0) {
+            return;
+        }
+        long deadline = enqueuedAt[0] + lingerNanos;
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || queue.poll(batch, enqueuedAt, batchSize - batch.size(), remaining) == 0) {
+                return;
+            }
+        }
+    }
+
+    // Procesa un lote; un fallo se registra y no detiene la etapa
+    private void handle(List<T> batch, long[] enqueuedAt) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            handler.accept(batch);
+        } catch (Exception e) {
+            errors.increment();
+            log.error("Error en la etapa {} procesando un lote de {} elementos: {}", name, batch.size(), e.getMessage());
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            latency.record(now - enqueuedAt[i], TimeUnit.NANOSECONDS);
+        }
+        items.increment(batch.size());
+        batchSizes.record(batch.size());
+    }
+}
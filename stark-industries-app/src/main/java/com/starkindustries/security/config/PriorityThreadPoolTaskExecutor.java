@@ -0,0 +1,107 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool de hilos cuya cola ordena las tareas por prioridad en lugar de por orden de llegada.
+// Cada tarea recibe al encolarse un plazo = instante de llegada + espera máxima de su clase
+// (`TaskPriority`) y se ejecuta primero la de plazo más cercano ("earliest deadline first").
+// Una tarea de clase baja que lleva mucho esperando acaba adelantando a las urgentes recién llegadas.
+public class PriorityThreadPoolTaskExecutor extends ThreadPoolTaskExecutor implements MeterBinder {
+
+    // Nombre del pool en las métricas (etiqueta "executor")
+    private final String name;
+    private final Map<TaskPriority, Long> maxWaitNanos = new EnumMap<>(TaskPriority.class);
+    // Tiempo en cola por clase de prioridad (se crean al enlazar el registro de métricas)
+    private final Map<TaskPriority, Timer> queueWaitTimers = new EnumMap<>(TaskPriority.class);
+    private volatile boolean metricsBound;
+
+    // Orden de llegada para desempatar tareas con el mismo plazo (FIFO dentro del plazo)
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PriorityThreadPoolTaskExecutor(String name, Map<TaskPriority, Long> maxWaitMs) {
+        this.name = name;
+        for (TaskPriority priority : TaskPriority.values()) {
+            maxWaitNanos.put(priority, TimeUnit.MILLISECONDS.toNanos(maxWaitMs.getOrDefault(priority, 0L)));
+        }
+    }
+
+    // La capacidad configurada se mantiene como límite "blando": al alcanzarla la cola rechaza la
+    // tarea y el pool crece hasta el máximo de hilos, igual que con la cola FIFO original
+    @Override
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        return new PriorityTaskQueue(queueCapacity);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (TaskPriority priority : TaskPriority.values()) {
+            queueWaitTimers.put(priority, Timer.builder("sensor.queue.wait")
+                    .description("Tiempo de espera en la cola del pool de sensores")
+                    .tag("executor", name)
+                    .tag("priority", priority.name())
+                    .register(registry));
+        }
+        metricsBound = true;
+    }
+
+    // Tarea en cola con su plazo; al ejecutarse registra cuánto ha esperado
+    private final class QueuedTask implements Runnable {
+        private final Runnable task;
+        private final TaskPriority priority;
+        private final long enqueuedAt = System.nanoTime();
+        private final long deadline;
+        private final long seq = sequence.getAndIncrement();
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+            this.priority = TaskPriority.of(task);
+            this.deadline = enqueuedAt + maxWaitNanos.get(priority);
+        }
+
+        @Override
+        public void run() {
+            if (metricsBound) {
+                queueWaitTimers.get(priority).record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+            task.run();
+        }
+    }
+
+    private static final Comparator<Runnable> EARLIEST_DEADLINE_FIRST = Comparator
+            .comparingLong((Runnable r) -> ((QueuedTask) r).deadline)
+            .thenComparingLong(r -> ((QueuedTask) r).seq);
+
+    // Cola de prioridad acotada de forma aproximada (la comprobación de tamaño no es atómica con la inserción)
+    private final class PriorityTaskQueue extends PriorityBlockingQueue<Runnable> {
+        private final int softCapacity;
+
+        PriorityTaskQueue(int softCapacity) {
+            super(Math.max(1, Math.min(softCapacity, 1024)), EARLIEST_DEADLINE_FIRST);
+            this.softCapacity = softCapacity;
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            if (size() >= softCapacity) {
+                return false;
+            }
+            return super.offer(task instanceof QueuedTask ? task : new QueuedTask(task));
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, softCapacity - size());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.starkindustries.security.config;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Buffer circular acotado sin bloqueos, al estilo del Disruptor, para pasar elementos entre hilos:
+// - Las casillas se crean al arrancar y se reutilizan (portadores mutables de elemento + instante de
+//   llegada): publicar o consumir no reserva memoria ni toma ningún lock, a diferencia de una
+//   `ArrayBlockingQueue`/`LinkedBlockingQueue`.
+// - Varios productores y varios consumidores: cada uno reclama su posición con un CAS sobre el cursor
+//   correspondiente y la secuencia de cada casilla indica si está libre (= posición) o publicada
+//   (= posición + 1). Es el esquema de cola acotada MPMC de D. Vyukov.
+// - Mientras no hay hueco o no hay elementos, el hilo aplica la `WaitStrategy` configurada.
+public class RingBuffer<T> {
+
+    // Portador reutilizable; sus campos se publican con la escritura volátil de la secuencia de la casilla
+    private static final class Slot<T> {
+        private T item;
+        private long enqueuedAt;
+    }
+
+    private final Slot<T>[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    // Siguiente posición a publicar y siguiente a consumir
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+        // La capacidad se redondea a potencia de dos para calcular la casilla con una máscara
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new Slot[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot<>();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    // Publica el elemento si hay hueco; no espera
+    public boolean tryPublish(T item, long enqueuedAt) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Slot<T> slot = slots[index];
+                    slot.item = item;
+                    slot.enqueuedAt = enqueuedAt;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // La casilla aún guarda un elemento de la vuelta anterior: buffer lleno
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // Publica el elemento esperando como mucho `timeoutNanos` a que haya hueco
+    public boolean publish(T item, long enqueuedAt, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (int attempt = 0; !tryPublish(item, enqueuedAt); attempt++) {
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            waitStrategy.idle(attempt);
+        }
+        return true;
+    }
+
+    // Consume hasta `max` elementos, añadiéndolos a `items` y sus instantes de llegada a `enqueuedAt`
+    // (a partir de la posición `items.size()`). Devuelve cuántos ha consumido; no espera.
+    public int drainTo(List<T> items, long[] enqueuedAt, int max) {
+        int drained = 0;
+        long position = head.get();
+        while (drained < max) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    Slot<T> slot = slots[index];
+                    enqueuedAt[items.size()] = slot.enqueuedAt;
+                    items.add(slot.item);
+                    slot.item = null;
+                    // Libera la casilla para la siguiente vuelta
+                    sequences.set(index, position + mask + 1);
+                    drained++;
+                }
+                position = head.get();
+            } else if (diff < 0) {
+                // Casilla aún sin publicar: buffer vacío (o publicación en curso)
+                return drained;
+            } else {
+                position = head.get();
+            }
+        }
+        return drained;
+    }
+
+    // Espera como mucho `timeoutNanos` a que haya algún elemento y consume hasta `max`
+    public int poll(List<T> items, long[] enqueuedAt, int max, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        int attempt = 0;
+        int drained;
+        while ((drained = drainTo(items, enqueuedAt, max)) == 0) {
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                return 0;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return drained;
+    }
+
+    // Número aproximado de elementos (los cursores se leen por separado)
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -1,6 +1,9 @@
 package com.starkindustries.security.config;
 
 import com.starkindustries.security.security.JwtAuthenticationFilter;
+import com.starkindustries.security.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -35,6 +38,7 @@ public class SecurityConfiguration {
     public SecurityFilterChain securityFilterChain(
             HttpSecurity http,
             JwtAuthenticationFilter jwtAuthFilter,
+            RateLimitFilter rateLimitFilter,
             AuthenticationProvider authenticationProvider
     ) throws Exception {
         http
@@ -44,6 +48,10 @@ public class SecurityConfiguration {
                 .cors(cors -> {})
                 // Reglas de autorización por ruta y método
                 .authorizeHttpRequests(auth -> auth
+                        // Los dispatch ASYNC (entrega de un DeferredResult/CompletableFuture) y ERROR (página de
+                        // error de un ResponseStatusException) pertenecen a una petición ya autorizada; el contexto
+                        // JWT no se guarda entre dispatches (stateless)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         // Recursos estáticos públicos
                         .requestMatchers("/", "/index.html", "/favicon.ico",
                                 "/static/**", "/assets/**", "/css/**", "/js/**", "/images/**", "/webjars/**").permitAll()
@@ -67,6 +75,8 @@ public class SecurityConfiguration {
                 .authenticationProvider(authenticationProvider)
                 // Inserta el filtro JWT antes del filtro estándar de username/password
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Y antes aún, el limitador de peticiones: un 429 no toca BD ni BCrypt
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
                 // Permite frames de la misma origen (necesario para H2 console)
                 .headers(headers -> headers
                         .frameOptions(frame -> frame.sameOrigin())
@@ -85,16 +95,17 @@ public class SecurityConfiguration {
         return authProvider;
     }
 
-    // Expone el AuthenticationManager configurado por Spring (para AuthenticationService)
+    // Expone el AuthenticationManager configurado por Spring
     @Bean // Registra este método como un bean de Spring que será gestionado por el contenedor
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
 
-    // BCrypt para cifrar contraseñas de usuarios
+    // BCrypt para cifrar contraseñas de usuarios. El coste (log2 de las rondas) sólo afecta a los hashes
+    // nuevos: cada hash guarda el suyo, así que los existentes se siguen verificando con su coste original
     @Bean // Registra este método como un bean de Spring que será gestionado por el contenedor
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password-hashing.bcrypt-cost:10}") int bcryptCost) {
+        return new BCryptPasswordEncoder(bcryptCost);
     }
 
     // Configuración CORS permisiva para permitir llamadas desde el dashboard o herramientas externas
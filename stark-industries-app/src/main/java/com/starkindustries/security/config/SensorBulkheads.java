@@ -0,0 +1,104 @@
+package com.starkindustries.security.config;
+
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compartimentos estancos ("bulkheads") por tipo de sensor: cada tipo tiene su propio pool, cola,
+// política de rechazo y métricas, de modo que un atasco en un tipo (p. ej. verificaciones de acceso
+// lentas) no consume los hilos de los demás. Sobre cada pool van los carriles serie por sensor.
+@Slf4j
+public class SensorBulkheads implements DisposableBean {
+
+    // Pool y política de rechazo de un tipo de sensor
+    public record Bulkhead(AsyncTaskExecutor executor, boolean callerRunsOnReject) {}
+
+    private final Map<SensorType, Bulkhead> bulkheads;
+    private final Map<SensorType, KeyedSerialExecutor> lanes = new EnumMap<>(SensorType.class);
+    // Si los pools son propios (hay que apagarlos) o es el `sensorExecutor` compartido
+    private final boolean ownsExecutors;
+
+    public SensorBulkheads(Map<SensorType, Bulkhead> bulkheads, boolean ownsExecutors, MeterRegistry meterRegistry) {
+        this.bulkheads = new EnumMap<>(bulkheads);
+        this.ownsExecutors = ownsExecutors;
+        for (SensorType type : SensorType.values()) {
+            Bulkhead bulkhead = this.bulkheads.get(type);
+            String name = "sensor-" + type.name().toLowerCase();
+            lanes.put(type, new KeyedSerialExecutor(name, bulkhead.executor(), bulkhead.callerRunsOnReject(), meterRegistry));
+            if (ownsExecutors) {
+                bindMetrics(type, bulkhead.executor(), meterRegistry);
+            }
+        }
+    }
+
+    // Carriles serie del tipo de sensor indicado
+    public KeyedSerialExecutor lanes(SensorType type) {
+        return lanes.get(type);
+    }
+
+    // Estado de cada compartimento (mismas claves que `ExecutorStats.describe`)
+    public Map<String, Map<String, Object>> describe() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        bulkheads.forEach((type, bulkhead) -> {
+            Map<String, Object> pool = ExecutorStats.describe(bulkhead.executor());
+            pool.put("lanePending", lanes.get(type).getPendingCount());
+            stats.put(type.name(), pool);
+        });
+        return stats;
+    }
+
+    // Tareas en ejecución sumando todos los compartimentos
+    public int activeCount() {
+        if (!ownsExecutors) {
+            return ExecutorStats.activeCount(bulkheads.get(SensorType.values()[0]).executor());
+        }
+        return bulkheads.values().stream().mapToInt(b -> ExecutorStats.activeCount(b.executor())).sum();
+    }
+
+    public boolean isEnabled() {
+        return ownsExecutors;
+    }
+
+    private void bindMetrics(SensorType type, AsyncTaskExecutor executor, MeterRegistry registry) {
+        Tags tags = Tags.of("type", type.name());
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            // executor.active, executor.queued, executor.pool.size, executor.completed... con name=sensor.bulkhead
+            new ExecutorServiceMetrics(pool.getThreadPoolExecutor(), "sensor.bulkhead", tags).bindTo(registry);
+        } else {
+            Gauge.builder("executor.active", executor, ExecutorStats::activeCount)
+                    .tags(tags.and("name", "sensor.bulkhead"))
+                    .register(registry);
+        }
+        if (executor instanceof MeterBinder binder) {
+            binder.bindTo(registry);
+        }
+    }
+
+    // Los pools propios no son beans de Spring: se apagan aquí, esperando a las tareas en curso
+    @Override
+    public void destroy() throws Exception {
+        if (!ownsExecutors) {
+            return;
+        }
+        for (Map.Entry<SensorType, Bulkhead> entry : bulkheads.entrySet()) {
+            AsyncTaskExecutor executor = entry.getValue().executor();
+            if (executor instanceof DisposableBean disposable) {
+                disposable.destroy();
+            } else if (executor instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+            log.debug("Bulkhead de {} apagado", entry.getKey());
+        }
+    }
+}
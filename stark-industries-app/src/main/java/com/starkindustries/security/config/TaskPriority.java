@@ -0,0 +1,24 @@
+package com.starkindustries.security.config;
+
+// Clases de prioridad para las tareas del pool de sensores (de mayor a menor urgencia).
+// Cada clase tiene una espera máxima configurable: pasado ese tiempo la tarea adelanta a las de clases
+// superiores que lleguen después (envejecimiento), así ninguna clase se queda sin ejecutar.
+public enum TaskPriority {
+    CRITICAL,
+    HIGH,
+    NORMAL,
+    LOW;
+
+    // Tarea etiquetada con su prioridad, tal y como se entrega al executor
+    public record Task(TaskPriority priority, Runnable delegate) implements Runnable {
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    // Prioridad de una tarea cualquiera (las que no van etiquetadas se consideran NORMAL)
+    public static TaskPriority of(Runnable task) {
+        return task instanceof Task prioritized ? prioritized.priority() : NORMAL;
+    }
+}
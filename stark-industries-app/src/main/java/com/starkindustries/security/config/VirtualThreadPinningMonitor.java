@@ -0,0 +1,79 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+// Detecta hilos virtuales "anclados" (pinned) a su carrier, típicamente por bloquear dentro de un
+// bloque synchronized. Escucha el evento JFR jdk.VirtualThreadPinned y lo registra en log y métricas.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = {"stark.sensors.concurrent.virtual-threads.enabled",
+        "stark.sensors.concurrent.virtual-threads.pinning-detection"}, havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private final Counter pinnedCounter;
+
+    // Duración mínima de un anclaje para que se notifique
+    @Value("${stark.sensors.concurrent.virtual-threads.pinning-threshold-ms:20}")
+    private long thresholdMs;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        this.pinnedCounter = Counter.builder("executor.virtual.pinned")
+                .description("Hilos virtuales anclados a su carrier por encima del umbral")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinnedCounter.increment();
+            log.warn("Hilo virtual anclado {} ms en {}:\n{}",
+                    event.getDuration().toMillis(),
+                    event.getThread() != null ? event.getThread().getJavaName() : "?",
+                    formatStackTrace(event.getStackTrace()));
+        });
+        stream.startAsync();
+        log.info("Detección de pinning de hilos virtuales activa (umbral {} ms)", thresholdMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    // Sólo las primeras tramas: suficiente para localizar el synchronized responsable
+    private static String formatStackTrace(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "    (sin stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(12)
+                .map(VirtualThreadPinningMonitor::formatFrame)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String formatFrame(RecordedFrame frame) {
+        return "    at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + " (línea " + frame.getLineNumber() + ")";
+    }
+}
@@ -0,0 +1,33 @@
+package com.starkindustries.security.config;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executor basado en hilos virtuales: un hilo nuevo por tarea, sin cola ni pool.
+// El límite de concurrencia sustituye a la capacidad de cola de los ThreadPoolTaskExecutor:
+// al alcanzarlo, quien envía la tarea espera en lugar de recibir un TaskRejectedException.
+public class VirtualThreadTaskExecutor extends SimpleAsyncTaskExecutor {
+
+    // Tareas en ejecución en este momento (equivalente a getActiveCount() de un pool)
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    public VirtualThreadTaskExecutor(String threadNamePrefix, int concurrencyLimit, long terminationTimeoutMs) {
+        super(threadNamePrefix);
+        setVirtualThreads(true);
+        setConcurrencyLimit(concurrencyLimit);
+        setTaskTerminationTimeout(terminationTimeoutMs);
+        setTaskDecorator(task -> () -> {
+            activeCount.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeCount.decrementAndGet();
+            }
+        });
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+}
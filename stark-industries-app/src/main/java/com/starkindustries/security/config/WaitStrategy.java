@@ -0,0 +1,47 @@
+package com.starkindustries.security.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Qué hace un hilo mientras espera en `RingBuffer` (hueco para publicar o elemento que consumir).
+// No hay bloqueos ni señales: el hilo reintenta y, entre intento e intento, aplica la estrategia.
+// - BUSY_SPIN: no suelta la CPU; la menor latencia, a costa de un núcleo por hilo en espera.
+// - YIELDING: gira un poco y después cede la CPU a otros hilos.
+// - PARKING: gira, cede y acaba durmiendo unos microsegundos; la opción por defecto, casi sin consumo en reposo.
+public enum WaitStrategy {
+    BUSY_SPIN,
+    YIELDING,
+    PARKING;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // Espera tras el intento fallido número `attempt` (empieza en 0)
+    public void idle(int attempt) {
+        switch (this) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELDING -> {
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            case PARKING -> {
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    // Lee el valor de configuración ("busy-spin", "yielding", "parking")
+    public static WaitStrategy from(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -1,14 +1,21 @@
 package com.starkindustries.security.controller;
 
+import com.starkindustries.security.model.AccessLog;
 import com.starkindustries.security.service.AccessLogService;
+import com.starkindustries.security.service.DataExportService;
+import com.starkindustries.security.service.RetentionService;
 import com.starkindustries.security.service.SensorSimulationService;
 import com.starkindustries.security.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +28,8 @@ public class AdminController {
 
     private final UserService userService;
     private final AccessLogService accessLogService;
+    private final DataExportService dataExportService;
+    private final RetentionService retentionService;
     private final SensorSimulationService simulationService;
     private final PasswordEncoder passwordEncoder;
 
@@ -51,12 +60,49 @@ public class AdminController {
         return ResponseEntity.ok(accessLogService.getFailedAttempts());
     }
 
+    // Exportación para auditoría de los logs de acceso en CSV (por defecto) o NDJSON, opcionalmente con gzip.
+    // Se escribe en streaming fila a fila, así que sirve para días enteros de logs sin cargarlos en memoria.
+    @GetMapping("/access-logs/export")
+    public ResponseEntity<StreamingResponseBody> exportAccessLogs(
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip,
+            @RequestParam(name = "type", required = false) AccessLog.AccessType type,
+            @RequestParam(name = "location", required = false) String location,
+            @RequestParam(name = "successful", required = false) Boolean successful,
+            @RequestParam(name = "start", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(name = "end", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        DataExportService.Format exportFormat;
+        try {
+            exportFormat = DataExportService.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        DataExportService.AccessLogFilter filter = new DataExportService.AccessLogFilter(type, location, successful, start, end);
+        StreamingResponseBody body = out -> dataExportService.exportAccessLogs(filter, exportFormat, gzip, out);
+        return DataExportService.downloadResponse("access_logs", exportFormat, gzip, body);
+    }
+
     // Devuelve IPs sospechosas (con muchos fallos) según un umbral configurable
     @GetMapping("/security/suspicious-ips")
     public ResponseEntity<?> getSuspiciousIps(@RequestParam(defaultValue = "5") int threshold) {
         return ResponseEntity.ok(accessLogService.getSuspiciousIpAddresses(threshold));
     }
 
+    // Configuración de retención y resultado de la última purga de cada tabla
+    @GetMapping("/retention")
+    public ResponseEntity<Map<String, Object>> getRetentionStatus() {
+        return ResponseEntity.ok(retentionService.describe());
+    }
+
+    // Lanza una purga por retención en segundo plano (409 si ya hay una en curso)
+    @PostMapping("/retention/purge")
+    public ResponseEntity<Map<String, Object>> purgeExpiredData() {
+        if (!retentionService.purgeAsync()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(retentionService.describe());
+        }
+        return ResponseEntity.accepted().body(retentionService.describe());
+    }
+
     // Activa la simulación automática de eventos de sensores
     @PostMapping("/simulation/enable")
     public ResponseEntity<String> enableSimulation() {
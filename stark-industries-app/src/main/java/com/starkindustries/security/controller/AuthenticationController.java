@@ -1,11 +1,19 @@
 package com.starkindustries.security.controller;
 
+import com.starkindustries.security.security.PasswordHashingOverloadException;
 import com.starkindustries.security.service.AuthenticationService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 // Controlador REST para login/logout y comprobación de estado del sistema de autenticación
 @RestController
@@ -15,24 +23,47 @@ public class AuthenticationController {
 
     private final AuthenticationService authenticationService;
 
-    // Endpoint de login: recibe credenciales y devuelve un JWT si son válidas
+    // Endpoint de login: recibe credenciales y devuelve un JWT si son válidas.
+    // La verificación (BCrypt) se hace en el pool de hashing y el hilo de Tomcat queda libre; si el pool
+    // está saturado se responde 503 con Retry-After.
     @PostMapping("/login")
-    public ResponseEntity<AuthenticationService.AuthenticationResponse> login(
+    public CompletableFuture<ResponseEntity<?>> login(
             @RequestBody AuthenticationService.AuthenticationRequest request,
             HttpServletRequest httpRequest
     ) {
         String ipAddress = httpRequest.getRemoteAddr();
-        AuthenticationService.AuthenticationResponse response =
-                authenticationService.authenticate(request, ipAddress);
-        return ResponseEntity.ok(response);
+        return authenticationService.authenticateAsync(request, ipAddress)
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return ResponseEntity.ok(response);
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof PasswordHashingOverloadException overload) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(overload.getRetryAfterSeconds()))
+                                .body(Map.of(
+                                        "error", "Servicio de autenticación saturado, reintentar más tarde",
+                                        "retryAfterSeconds", overload.getRetryAfterSeconds()
+                                ));
+                    }
+                    if (cause instanceof ResponseStatusException e) {
+                        return ResponseEntity.status(e.getStatusCode())
+                                .body(Map.of("error", String.valueOf(e.getReason())));
+                    }
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(Map.of("error", "Error interno del servidor"));
+                });
     }
 
-    // Endpoint de logout: solo registra el evento de cierre de sesión en los logs de acceso
+    // Endpoint de logout: registra el cierre de sesión y revoca el token de la cabecera Authorization
     @PostMapping("/logout") // Define que este método maneja peticiones HTTP POST en la ruta "/api/auth/logout"
     public ResponseEntity<Void> logout(Authentication authentication, HttpServletRequest httpRequest) {
         String ipAddress = httpRequest.getRemoteAddr();
         String username = authentication != null ? authentication.getName() : "anonymous";
-        authenticationService.logout(username, ipAddress);
+        String authHeader = httpRequest.getHeader("Authorization");
+        String token = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authenticationService.logout(username, ipAddress, token);
         return ResponseEntity.ok().build();
     }
 
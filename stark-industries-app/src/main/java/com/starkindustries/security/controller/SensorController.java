@@ -1,22 +1,46 @@
 package com.starkindustries.security.controller;
 
+import com.starkindustries.security.config.ExportTimeoutConfiguration;
+import com.starkindustries.security.model.SensorRollup;
 import com.starkindustries.security.repository.SensorEventRepository;
+import com.starkindustries.security.service.DataExportService;
+import com.starkindustries.security.service.EventTrackingService;
+import com.starkindustries.security.service.SensorEventCounters;
+import com.starkindustries.security.service.SensorEventPipeline;
+import com.starkindustries.security.service.SensorEventQueryService;
+import com.starkindustries.security.service.SensorIngestionService;
+import com.starkindustries.security.service.SensorOverloadException;
 import com.starkindustries.security.service.SensorProcessingService;
+import com.starkindustries.security.service.SensorRollupService;
+import com.starkindustries.security.service.SensorTimeSeries;
+import com.starkindustries.security.service.StatsBroadcastService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 // API REST relacionada con sensores: envío de eventos y consulta de estadísticas
 @RestController
@@ -24,90 +48,275 @@ import java.util.stream.Collectors;
 public class SensorController {
 
     private final SensorProcessingService sensorProcessingService;
+    private final SensorIngestionService sensorIngestionService;
+    private final EventTrackingService eventTrackingService;
     private final SensorEventRepository sensorEventRepository;
-    private final ThreadPoolTaskExecutor sensorExecutor;
+    private final StatsBroadcastService statsBroadcastService;
+    private final SensorEventPipeline sensorEventPipeline;
+    private final SensorTimeSeries sensorTimeSeries;
+    private final SensorEventQueryService sensorEventQueryService;
+    private final DataExportService dataExportService;
+    private final SensorRollupService sensorRollupService;
+
+    // Plazo por defecto para responder con el evento procesado antes de pasar a modo seguimiento
+    @Value("${stark.sensors.http.deadline-ms:5000}")
+    private long defaultDeadlineMs;
+
+    // Plazo máximo que un cliente puede pedir con el parámetro timeoutMs
+    @Value("${stark.sensors.http.max-deadline-ms:30000}")
+    private long maxDeadlineMs;
 
     @Autowired
     public SensorController(SensorProcessingService sensorProcessingService,
+                            SensorIngestionService sensorIngestionService,
+                            EventTrackingService eventTrackingService,
                             SensorEventRepository sensorEventRepository,
-                            @Qualifier("sensorExecutor") ThreadPoolTaskExecutor sensorExecutor) {
+                            StatsBroadcastService statsBroadcastService,
+                            SensorEventPipeline sensorEventPipeline,
+                            SensorTimeSeries sensorTimeSeries,
+                            SensorEventQueryService sensorEventQueryService,
+                            DataExportService dataExportService,
+                            SensorRollupService sensorRollupService) {
         this.sensorProcessingService = sensorProcessingService;
+        this.sensorIngestionService = sensorIngestionService;
+        this.eventTrackingService = eventTrackingService;
         this.sensorEventRepository = sensorEventRepository;
-        this.sensorExecutor = sensorExecutor;
+        this.statsBroadcastService = statsBroadcastService;
+        this.sensorEventPipeline = sensorEventPipeline;
+        this.sensorTimeSeries = sensorTimeSeries;
+        this.sensorEventQueryService = sensorEventQueryService;
+        this.dataExportService = dataExportService;
+        this.sensorRollupService = sensorRollupService;
     }
 
-    // Procesa un único evento de sensor (ejecución asíncrona en el backend)
+    // Procesa un único evento de sensor sin retener el hilo de Tomcat mientras se procesa.
+    // - Por defecto responde 200 con el evento procesado si termina antes del plazo (timeoutMs).
+    // - Con track=true responde 202 al instante con un id de seguimiento ("fire and track").
+    // - Si vence el plazo, responde 202 con el id de seguimiento: el procesamiento continúa y su
+    //   resultado se puede consultar en /events/status/{trackingId}, no queda trabajo huérfano.
     @PostMapping("/events")
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
-    public ResponseEntity<com.starkindustries.security.model.SensorEvent> processEvent(
-            @RequestBody com.starkindustries.security.model.SensorEvent event) {
+    public DeferredResult<ResponseEntity<?>> processEvent(
+            @RequestBody com.starkindustries.security.model.SensorEvent event,
+            @RequestParam(name = "track", defaultValue = "false") boolean track,
+            @RequestParam(name = "timeoutMs", required = false) Long timeoutMs) {
+        long deadline = Math.min(Math.max(1, timeoutMs != null ? timeoutMs : defaultDeadlineMs), maxDeadlineMs);
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(deadline);
+
+        // Mismas comprobaciones que la ingesta masiva (campos obligatorios, timestamp por defecto): con la
+        // persistencia diferida un evento incompleto sólo fallaría al volcar el lote, ya sin cliente al que avisar
+        String invalidReason = sensorIngestionService.validate(event);
+        if (invalidReason != null) {
+            result.setResult(ResponseEntity.badRequest().body(Map.of("error", "Evento inválido: " + invalidReason)));
+            return result;
+        }
+
         CompletableFuture<com.starkindustries.security.model.SensorEvent> future =
                 sensorProcessingService.processEventAsync(event);
-        com.starkindustries.security.model.SensorEvent processed = future.join();
-        return ResponseEntity.ok(processed);
+        // Descartado por el control de admisión: 429 con Retry-After, sin seguimiento
+        if (future.isCompletedExceptionally() && future.exceptionNow() instanceof RejectedExecutionException rejected) {
+            result.setResult(overloadedResponse(rejected));
+            return result;
+        }
+        String trackingId = eventTrackingService.track(event, future);
+
+        if (track) {
+            result.setResult(acceptedResponse(trackingId));
+            return result;
+        }
+
+        result.onTimeout(() -> result.setResult(acceptedResponse(trackingId)));
+        future.whenComplete((processed, error) -> {
+            Throwable cause = error != null && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException rejected) {
+                // Rechazado por el compartimento de su tipo (política "abort")
+                result.setResult(overloadedResponse(rejected));
+            } else if (cause != null) {
+                result.setErrorResult(cause);
+            } else {
+                result.setResult(ResponseEntity.ok(processed));
+            }
+        });
+        return result;
+    }
+
+    // Estado de un evento enviado previamente (PENDING, COMPLETED o FAILED)
+    @GetMapping("/events/status/{trackingId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
+    public ResponseEntity<EventTrackingService.EventStatus> getEventStatus(@PathVariable String trackingId) {
+        return eventTrackingService.getStatus(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Respuesta 202 con el id de seguimiento y la URL donde consultar el estado
+    private ResponseEntity<?> acceptedResponse(String trackingId) {
+        String statusUrl = "/api/sensors/events/status/" + trackingId;
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", statusUrl)
+                .body(Map.of(
+                        "trackingId", trackingId,
+                        "status", EventTrackingService.Status.PENDING,
+                        "statusUrl", statusUrl
+                ));
+    }
+
+    // Respuesta 429 con la cabecera Retry-After para que el cliente reintente más tarde
+    private ResponseEntity<?> overloadedResponse(RejectedExecutionException rejected) {
+        long retryAfter = rejected instanceof SensorOverloadException overload ? overload.getRetryAfterSeconds() : 1;
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of(
+                        "error", "Sistema saturado, reintentar más tarde",
+                        "retryAfterSeconds", retryAfter
+                ));
     }
 
-    // Devuelve todos los eventos registrados en la base de datos
+    // Ingesta masiva: NDJSON (un evento por línea) o array JSON, leído en streaming desde el cuerpo
+    @PostMapping(value = "/events/batch", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
+    public ResponseEntity<SensorIngestionService.IngestionSummary> processEventBatch(HttpServletRequest request)
+            throws IOException {
+        return ResponseEntity.ok(sensorIngestionService.ingest(request.getInputStream()));
+    }
+
+    // Devuelve los eventos registrados en la base de datos, paginados por cursor (parámetros `cursor` y
+    // `size`; la respuesta incluye `nextCursor` para pedir la siguiente). Igual en los listados siguientes.
     @GetMapping("/events") // Define que este método maneja peticiones HTTP GET en la ruta "/api/sensors/events"
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')") // Define que solo usuarios con roles ADMIN o AUTHORIZED_USER pueden acceder a este endpoint
-    public ResponseEntity<List<com.starkindustries.security.model.SensorEvent>> getAllEvents() {
-        return ResponseEntity.ok(sensorEventRepository.findAll());
+    public ResponseEntity<SensorEventQueryService.EventPage> getAllEvents(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        return listEvents(SensorEventQueryService.EventFilter.all(), cursor, size);
     }
 
     // Devuelve los eventos filtrados por tipo de sensor
     @GetMapping("/events/type/{type}") // Define que este método maneja peticiones HTTP GET en la ruta "/api/sensors/events/type/{type}"
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')") // Define que solo usuarios con roles ADMIN o AUTHORIZED_USER pueden acceder a este endpoint
-    public ResponseEntity<List<com.starkindustries.security.model.SensorEvent>> getEventsByType(
-            @PathVariable com.starkindustries.security.model.SensorType type) { // @PathVariable extrae el valor del parámetro de la ruta URL (por ejemplo: /events/type/MOTION)
-        return ResponseEntity.ok(sensorEventRepository.findBySensorType(type));
+    public ResponseEntity<SensorEventQueryService.EventPage> getEventsByType(
+            @PathVariable com.starkindustries.security.model.SensorType type, // @PathVariable extrae el valor del parámetro de la ruta URL (por ejemplo: /events/type/MOTION)
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        return listEvents(new SensorEventQueryService.EventFilter(type, null, null, null, null), cursor, size);
     }
 
     // Devuelve solo los eventos marcados como críticos
     @GetMapping("/events/critical") // Define que este método maneja peticiones HTTP GET en la ruta "/api/sensors/events/critical"
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')") // Define que solo usuarios con roles ADMIN o AUTHORIZED_USER pueden acceder a este endpoint
-    public ResponseEntity<List<com.starkindustries.security.model.SensorEvent>> getCriticalEvents() {
-        return ResponseEntity.ok(sensorEventRepository.findByCriticalTrue());
+    public ResponseEntity<SensorEventQueryService.EventPage> getCriticalEvents(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        return listEvents(new SensorEventQueryService.EventFilter(null, null, true, null, null), cursor, size);
     }
 
     // Devuelve eventos dentro de un rango de fechas
     @GetMapping("/events/range")
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
-    public ResponseEntity<List<com.starkindustries.security.model.SensorEvent>> getEventsByDateRange(
+    public ResponseEntity<SensorEventQueryService.EventPage> getEventsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size
     ) {
-        return ResponseEntity.ok(sensorEventRepository.findByTimestampBetween(start, end));
+        return listEvents(new SensorEventQueryService.EventFilter(null, null, null, start, end), cursor, size);
+    }
+
+    // Todos los eventos que cumplen los filtros (opcionales) en streaming como NDJSON, escritos fila a fila
+    // en un hilo de MVC asíncrono sin retener el de la petición ni cargar el resultado en memoria
+    @GetMapping("/events/stream")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
+    public ResponseEntity<StreamingResponseBody> streamEvents(
+            @RequestParam(name = "type", required = false) com.starkindustries.security.model.SensorType type,
+            @RequestParam(name = "location", required = false) String location,
+            @RequestParam(name = "critical", required = false) Boolean critical,
+            @RequestParam(name = "start", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(name = "end", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        SensorEventQueryService.EventFilter filter = new SensorEventQueryService.EventFilter(type, location, critical, start, end);
+        StreamingResponseBody body = out -> dataExportService.exportSensorEvents(filter, DataExportService.Format.NDJSON, false, out);
+        ExportTimeoutConfiguration.markExportRequest();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(DataExportService.Format.NDJSON.contentType()))
+                .body(body);
+    }
+
+    // Exportación para auditoría: los mismos filtros que /events/stream, como fichero CSV (por defecto) o
+    // NDJSON y opcionalmente comprimido con gzip
+    @GetMapping("/events/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip,
+            @RequestParam(name = "type", required = false) com.starkindustries.security.model.SensorType type,
+            @RequestParam(name = "location", required = false) String location,
+            @RequestParam(name = "critical", required = false) Boolean critical,
+            @RequestParam(name = "start", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(name = "end", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        DataExportService.Format exportFormat;
+        try {
+            exportFormat = DataExportService.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        SensorEventQueryService.EventFilter filter = new SensorEventQueryService.EventFilter(type, location, critical, start, end);
+        StreamingResponseBody body = out -> dataExportService.exportSensorEvents(filter, exportFormat, gzip, out);
+        return DataExportService.downloadResponse("sensor_events", exportFormat, gzip, body);
+    }
+
+    // Página de eventos por cursor; un cursor no válido lanza ResponseStatusException (400)
+    private ResponseEntity<SensorEventQueryService.EventPage> listEvents(SensorEventQueryService.EventFilter filter,
+                                                                         String cursor, Integer size) {
+        return ResponseEntity.ok(sensorEventQueryService.page(filter, cursor, size));
     }
 
     // Estadísticas agregadas: totales, críticos, conteo por tipo y estado del pool de hilos
     @GetMapping("/statistics")
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
     public ResponseEntity<Map<String, Object>> getStatistics() {
-        Map<String, Long> total = new HashMap<>();
-        sensorProcessingService.getEventStatistics().forEach((k, v) -> total.put(k.name(), v));
-        Map<String, Long> critical = new HashMap<>();
-        sensorProcessingService.getCriticalEventStatistics().forEach((k, v) -> critical.put(k.name(), v));
+        // Contadores en memoria y estado del pool: se reutiliza el snapshot cacheado del publicador
+        StatsBroadcastService.StatsSnapshot snapshot = statsBroadcastService.currentSnapshot();
 
-        List<Object[]> rows = sensorEventRepository.countEventsBySensorType();
+        // Conteo por tipo desde los agregados (no recorre sensor_events)
         Map<String, Long> fromDb = new HashMap<>();
-        for (Object[] row : rows) {
-            fromDb.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
-        }
-
-        Map<String, Object> threadPool = new HashMap<>();
-        try {
-            threadPool.put("active", sensorExecutor.getActiveCount());
-            threadPool.put("poolSize", sensorExecutor.getPoolSize());
-            threadPool.put("corePoolSize", sensorExecutor.getCorePoolSize());
-            threadPool.put("maxPoolSize", sensorExecutor.getMaxPoolSize());
-        } catch (Exception ignored) {}
+        sensorRollupService.totalsByType().forEach((type, totals) -> {
+            if (totals.events() > 0) {
+                fromDb.put(type.name(), totals.events());
+            }
+        });
 
         return ResponseEntity.ok(Map.of(
-                "totalEvents", total,
-                "criticalEvents", critical,
+                "totalEvents", snapshot.totalEvents(),
+                "criticalEvents", snapshot.criticalEvents(),
                 "eventsByType", fromDb,
-                "activeThreads", sensorExecutor.getActiveCount(),
-                "threadPool", threadPool
+                "activeThreads", snapshot.activeThreads(),
+                "threadPool", snapshot.threadPool(),
+                "bulkheads", snapshot.bulkheads()
+        ));
+    }
+
+    // Desglose de los contadores en memoria por ubicación y tipo de sensor (totales y críticos).
+    // Opcionalmente filtrado por tipo; se calcula con una sola foto de los contadores.
+    @GetMapping("/statistics/by-location")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
+    public ResponseEntity<Map<String, Object>> getStatisticsByLocation(
+            @RequestParam(name = "type", required = false) com.starkindustries.security.model.SensorType type) {
+        SensorEventCounters.Snapshot counters = sensorProcessingService.getEventCounters();
+        Map<String, Map<String, SensorEventCounters.Counts>> byLocation = new LinkedHashMap<>();
+        counters.byLocation().forEach((location, counts) -> {
+            Map<String, SensorEventCounters.Counts> row = new LinkedHashMap<>();
+            counts.forEach((sensorType, c) -> {
+                if (type == null || type == sensorType) {
+                    row.put(sensorType.name(), c);
+                }
+            });
+            if (!row.isEmpty()) {
+                byLocation.put(location, row);
+            }
+        });
+        return ResponseEntity.ok(Map.of(
+                "locations", byLocation,
+                "totalLocations", byLocation.size(),
+                "totalEvents", counters.total(),
+                "criticalEvents", counters.critical()
         ));
     }
 
@@ -116,8 +325,22 @@ public class SensorController {
     @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
     public ResponseEntity<Double> getAverageProcessingTime(
             @PathVariable com.starkindustries.security.model.SensorType type) {
-        Double avgTime = sensorEventRepository.getAverageProcessingTime(type);
-        return ResponseEntity.ok(avgTime != null ? avgTime : 0.0);
+        return ResponseEntity.ok(sensorRollupService.totalsByType().get(type).averageProcessingTimeMs());
+    }
+
+    // Serie de agregados (eventos, críticos, mín., máx., media, desviación típica y tiempo medio de
+    // procesamiento) por intervalo, tipo y ubicación. Por defecto, la última hora por minutos.
+    @GetMapping("/statistics/rollups")
+    @PreAuthorize("hasAnyRole('ADMIN', 'AUTHORIZED_USER')")
+    public ResponseEntity<List<SensorRollupService.Bucket>> getRollups(
+            @RequestParam(name = "granularity", defaultValue = "MINUTE") SensorRollup.Granularity granularity,
+            @RequestParam(name = "type", required = false) com.starkindustries.security.model.SensorType type,
+            @RequestParam(name = "location", required = false) String location,
+            @RequestParam(name = "start", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(name = "end", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        LocalDateTime to = end != null ? end : LocalDateTime.now().plusMinutes(1);
+        LocalDateTime from = start != null ? start : to.minusHours(1);
+        return ResponseEntity.ok(sensorRollupService.buckets(granularity, from, to, type, location));
     }
 
     // Diagnóstico de consistencia entre estadísticas en memoria y datos en BD
@@ -127,16 +350,26 @@ public class SensorController {
         Map<String, Object> diagnostics = new HashMap<>();
         long totalEventsInDb = sensorEventRepository.count();
         diagnostics.put("totalEventsInDatabase", totalEventsInDb);
-        long criticalEventsInDb = sensorEventRepository.findByCriticalTrue().size();
-        diagnostics.put("criticalEventsInDatabase", criticalEventsInDb);
-        diagnostics.put("inMemoryStats", sensorProcessingService.getEventStatistics());
-        diagnostics.put("inMemoryCritical", sensorProcessingService.getCriticalEventStatistics());
-        List<Object[]> eventsByType = sensorEventRepository.countEventsBySensorType();
+        // Conteos directos en BD (COUNT, sin cargar filas): son la referencia con la que comparar el resto
+        diagnostics.put("criticalEventsInDatabase", sensorEventRepository.countByCriticalTrue());
+        SensorEventCounters.Snapshot counters = sensorProcessingService.getEventCounters();
+        diagnostics.put("inMemoryStats", counters.total());
+        diagnostics.put("inMemoryCritical", counters.critical());
+        diagnostics.put("laneDepths", sensorProcessingService.getLaneDepths());
+        diagnostics.put("pipeline", sensorEventPipeline.describe());
         Map<String, Long> eventsByTypeMap = new HashMap<>();
-        for (Object[] row : eventsByType) {
+        for (Object[] row : sensorEventRepository.countEventsBySensorType()) {
             eventsByTypeMap.put(row[0].toString(), ((Number) row[1]).longValue());
         }
         diagnostics.put("eventsByTypeFromDB", eventsByTypeMap);
+        // Lo mismo según los agregados (tabla + lo pendiente de volcar), para detectar desvíos
+        Map<String, Long> eventsByTypeFromRollups = new HashMap<>();
+        sensorRollupService.totalsByType().forEach((type, t) -> {
+            if (t.events() > 0) {
+                eventsByTypeFromRollups.put(type.name(), t.events());
+            }
+        });
+        diagnostics.put("eventsByTypeFromRollups", eventsByTypeFromRollups);
         return ResponseEntity.ok(diagnostics);
     }
 
@@ -148,26 +381,8 @@ public class SensorController {
             @RequestParam(name = "limit", defaultValue = "50") int limit,
             @RequestParam(name = "criticalOnly", defaultValue = "true") boolean criticalOnly
     ) {
-        LocalDateTime since = LocalDateTime.now().minusMinutes(Math.max(1, minutes));
-        List<com.starkindustries.security.model.SensorEvent> events = sensorEventRepository
-                .findRecentBySensorType(com.starkindustries.security.model.SensorType.TEMPERATURE, since);
-        if (criticalOnly) {
-            events = events.stream().filter(e -> Boolean.TRUE.equals(e.getCritical())).collect(Collectors.toList());
-        }
-        events.sort(Comparator.comparing(com.starkindustries.security.model.SensorEvent::getTimestamp));
-        if (events.size() > limit) {
-            events = events.subList(events.size() - limit, events.size());
-        }
-        List<Map<String, Object>> payload = events.stream().map(e -> {
-            Map<String, Object> m = new HashMap<>();
-            m.put("timestamp", e.getTimestamp());
-            m.put("value", e.getValue());
-            m.put("unit", e.getUnit());
-            m.put("location", e.getLocation());
-            m.put("critical", e.getCritical());
-            return m;
-        }).toList();
-        return ResponseEntity.ok(payload);
+        return ResponseEntity.ok(recentEvents(com.starkindustries.security.model.SensorType.TEMPERATURE,
+                minutes, limit, criticalOnly, true));
     }
 
     // Devuelve eventos recientes de movimiento
@@ -178,25 +393,8 @@ public class SensorController {
             @RequestParam(name = "limit", defaultValue = "50") int limit,
             @RequestParam(name = "criticalOnly", defaultValue = "false") boolean criticalOnly
     ) {
-        LocalDateTime since = LocalDateTime.now().minusMinutes(Math.max(1, minutes));
-        List<com.starkindustries.security.model.SensorEvent> events = sensorEventRepository
-                .findRecentBySensorType(com.starkindustries.security.model.SensorType.MOTION, since);
-        if (criticalOnly) {
-            events = events.stream().filter(e -> Boolean.TRUE.equals(e.getCritical())).collect(Collectors.toList());
-        }
-        events.sort(Comparator.comparing(com.starkindustries.security.model.SensorEvent::getTimestamp));
-        if (events.size() > limit) {
-            events = events.subList(events.size() - limit, events.size());
-        }
-        List<Map<String, Object>> payload = events.stream().map(e -> {
-            Map<String, Object> m = new HashMap<>();
-            m.put("timestamp", e.getTimestamp());
-            m.put("value", e.getValue());
-            m.put("location", e.getLocation());
-            m.put("critical", e.getCritical());
-            return m;
-        }).toList();
-        return ResponseEntity.ok(payload);
+        return ResponseEntity.ok(recentEvents(com.starkindustries.security.model.SensorType.MOTION,
+                minutes, limit, criticalOnly, false));
     }
 
     // Devuelve eventos recientes de accesos
@@ -207,24 +405,49 @@ public class SensorController {
             @RequestParam(name = "limit", defaultValue = "50") int limit,
             @RequestParam(name = "criticalOnly", defaultValue = "false") boolean criticalOnly
     ) {
+        return ResponseEntity.ok(recentEvents(com.starkindustries.security.model.SensorType.ACCESS,
+                minutes, limit, criticalOnly, false));
+    }
+
+    // Últimos `limit` eventos del tipo en la ventana, en orden cronológico. Se responden desde la serie
+    // temporal en memoria; sólo si la ventana es más antigua de lo que guarda se consulta la BD.
+    private List<Map<String, Object>> recentEvents(com.starkindustries.security.model.SensorType type,
+                                                   int minutes, int limit, boolean criticalOnly, boolean withUnit) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(Math.max(1, minutes));
-        List<com.starkindustries.security.model.SensorEvent> events = sensorEventRepository
-                .findRecentBySensorType(com.starkindustries.security.model.SensorType.ACCESS, since);
-        if (criticalOnly) {
-            events = events.stream().filter(e -> Boolean.TRUE.equals(e.getCritical())).collect(Collectors.toList());
+        int max = Math.max(0, limit);
+        long sinceMillis = since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Optional<List<SensorTimeSeries.Point>> points = sensorTimeSeries.recent(type, sinceMillis, max, criticalOnly);
+        if (points.isPresent()) {
+            return points.get().stream().map(p -> {
+                Map<String, Object> m = new HashMap<>();
+                m.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(p.epochMillis()), ZoneId.systemDefault()));
+                m.put("value", p.value());
+                if (withUnit) {
+                    m.put("unit", p.unit());
+                }
+                m.put("location", p.location());
+                m.put("critical", p.critical());
+                return m;
+            }).toList();
         }
-        events.sort(Comparator.comparing(com.starkindustries.security.model.SensorEvent::getTimestamp));
-        if (events.size() > limit) {
-            events = events.subList(events.size() - limit, events.size());
+
+        if (max == 0) {
+            return List.of();
         }
-        List<Map<String, Object>> payload = events.stream().map(e -> {
+        // Los `max` más recientes (LIMIT en BD) y después en orden cronológico, como la serie en memoria
+        List<com.starkindustries.security.model.SensorEvent> events = new ArrayList<>(
+                sensorEventRepository.findLatestBySensorType(type, since, criticalOnly, PageRequest.of(0, max)));
+        Collections.reverse(events);
+        return events.stream().map(e -> {
             Map<String, Object> m = new HashMap<>();
             m.put("timestamp", e.getTimestamp());
             m.put("value", e.getValue());
+            if (withUnit) {
+                m.put("unit", e.getUnit());
+            }
             m.put("location", e.getLocation());
             m.put("critical", e.getCritical());
             return m;
         }).toList();
-        return ResponseEntity.ok(payload);
     }
 }
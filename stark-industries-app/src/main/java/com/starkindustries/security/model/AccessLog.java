@@ -5,8 +5,18 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 // Registro de accesos (login, logout, llamadas a API, etc.)
+// Índices según las consultas de AccessLogRepository:
+// - (username, successful, timestamp): countFailedAttemptsSince y findByUsername
+// - (successful, ip_address): findSuspiciousIpAddresses (agrupa los fallos por IP) y findBySuccessfulFalse
+// - (ip_address): findByIpAddress
+// - (timestamp): findByTimestampAfter, exportación y retención
 @Entity
-@Table(name = "access_logs")
+@Table(name = "access_logs", indexes = {
+        @Index(name = "idx_access_logs_username_successful_timestamp", columnList = "username, successful, timestamp"),
+        @Index(name = "idx_access_logs_successful_ip", columnList = "successful, ip_address"),
+        @Index(name = "idx_access_logs_ip", columnList = "ip_address"),
+        @Index(name = "idx_access_logs_timestamp", columnList = "timestamp")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
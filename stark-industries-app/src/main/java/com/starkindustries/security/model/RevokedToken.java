@@ -0,0 +1,36 @@
+package com.starkindustries.security.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// JWT revocado antes de su expiración (logout), identificado por su claim `jti`.
+// Sólo hace falta guardarlo hasta que el token expira: a partir de ahí el propio JWT deja de ser válido y
+// TokenRevocationService borra la fila (índice por expires_at).
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Identificador del token (claim `jti`)
+    @Column(nullable = false, unique = true, length = 64)
+    private String jti;
+
+    // Usuario al que pertenecía el token
+    private String username;
+
+    // Expiración del token (claim `exp`)
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Momento de la revocación
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+}
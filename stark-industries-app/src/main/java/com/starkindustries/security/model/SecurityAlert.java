@@ -5,8 +5,17 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 // Alerta de seguridad generada a partir de un evento crítico de sensor
+// Índices según las consultas de SecurityAlertRepository:
+// - (resolved, level, created_at): findActiveAlertsPrioritized (filtra y ordena sin ordenar aparte),
+//   countUnresolvedByLevel y findByResolvedFalse
+// - (level): findByLevel
+// - (created_at): findByCreatedAtAfter y retención
 @Entity
-@Table(name = "security_alerts")
+@Table(name = "security_alerts", indexes = {
+        @Index(name = "idx_security_alerts_resolved_level_created", columnList = "resolved, level, created_at"),
+        @Index(name = "idx_security_alerts_level", columnList = "level"),
+        @Index(name = "idx_security_alerts_created_at", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -5,16 +5,31 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 // Evento de sensor: representa una lectura capturada y procesada por el sistema
+// Índices según las consultas de SensorEventRepository (todas ordenan o filtran por timestamp):
+// - (sensor_type, timestamp): findBySensorType, findRecentBySensorType y listados por tipo
+// - (timestamp, id): rangos de fechas, paginación por cursor y exportación en orden (timestamp, id)
+// - (critical, timestamp): findByCriticalTrue y listados de críticos
+// - (location, timestamp): exportación filtrada por ubicación
+// - (sensor_id): findBySensorId
 @Entity
-@Table(name = "sensor_events")
+@Table(name = "sensor_events", indexes = {
+        @Index(name = "idx_sensor_events_type_timestamp", columnList = "sensor_type, timestamp"),
+        @Index(name = "idx_sensor_events_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_sensor_events_critical_timestamp", columnList = "critical, timestamp"),
+        @Index(name = "idx_sensor_events_location_timestamp", columnList = "location, timestamp"),
+        @Index(name = "idx_sensor_events_sensor_id", columnList = "sensor_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class SensorEvent {
 
+    // Secuencia con asignación por bloques (pooled): a diferencia de IDENTITY, Hibernate conoce el id
+    // antes del INSERT y puede agrupar las inserciones en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_event_seq")
+    @SequenceGenerator(name = "sensor_event_seq", sequenceName = "sensor_events_seq", allocationSize = 50)
     private Long id;
 
     // Tipo de sensor que generó el evento (TEMPERATURE, MOTION, ACCESS,...)
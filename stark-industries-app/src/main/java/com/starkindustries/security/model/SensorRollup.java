@@ -0,0 +1,82 @@
+package com.starkindustries.security.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// Agregado de eventos de sensores por intervalo (minuto, hora o día), tipo y ubicación.
+// Guarda sumas y extremos en lugar de medias para poder combinar intervalos sin perder precisión:
+// media = valueSum / events, varianza = valueSquares / events - media².
+@Entity
+@Table(name = "sensor_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sensor_rollups_bucket",
+                columnNames = {"granularity", "bucket_start", "sensor_type", "location"}),
+        indexes = @Index(name = "idx_sensor_rollups_granularity_bucket", columnList = "granularity, bucket_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SensorRollup {
+
+    // Secuencia por bloques (como en SensorEvent) para que los volcados se inserten en lotes JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_rollup_seq")
+    @SequenceGenerator(name = "sensor_rollup_seq", sequenceName = "sensor_rollups_seq", allocationSize = 50)
+    private Long id;
+
+    // Tamaño del intervalo
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    // Inicio del intervalo (truncado al minuto, hora o día)
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SensorType sensorType;
+
+    @Column(nullable = false)
+    private String location;
+
+    // Eventos y eventos críticos del intervalo
+    @Column(nullable = false)
+    private Long events;
+
+    @Column(nullable = false)
+    private Long criticalEvents;
+
+    // Extremos, suma y suma de cuadrados de los valores medidos
+    @Column(nullable = false)
+    private Double minValue;
+
+    @Column(nullable = false)
+    private Double maxValue;
+
+    @Column(nullable = false)
+    private Double valueSum;
+
+    @Column(nullable = false)
+    private Double valueSquares;
+
+    // Suma de los tiempos de procesamiento (ms)
+    @Column(nullable = false)
+    private Long processingTimeSum;
+
+    // Suma a este agregado los datos de otro del mismo tipo y ubicación
+    public void merge(SensorRollup other) {
+        events += other.events;
+        criticalEvents += other.criticalEvents;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+        valueSum += other.valueSum;
+        valueSquares += other.valueSquares;
+        processingTimeSum += other.processingTimeSum;
+    }
+
+    // Granularidades de los agregados, de menor a mayor
+    public enum Granularity {
+        MINUTE, HOUR, DAY
+    }
+}
@@ -0,0 +1,16 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.AccessLog;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Consultas de AccessLogRepository con filtros opcionales (los nulos no se aplican), construidas con sólo
+// los filtros presentes (ver `JpqlFilter`)
+public interface AccessLogFilterQueries {
+
+    // Logs filtrados en orden (timestamp, id), leídos como Stream con un fetch size acotado para exportarlos
+    // sin cargarlos enteros. Debe consumirse dentro de una transacción.
+    Stream<AccessLog> streamFiltered(AccessLog.AccessType accessType, String location, Boolean successful,
+                                     LocalDateTime start, LocalDateTime end);
+}
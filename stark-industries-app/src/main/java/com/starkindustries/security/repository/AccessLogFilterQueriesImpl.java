@@ -0,0 +1,33 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.AccessLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Implementación de `AccessLogFilterQueries` (Spring Data la combina con AccessLogRepository)
+class AccessLogFilterQueriesImpl implements AccessLogFilterQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<AccessLog> streamFiltered(AccessLog.AccessType accessType, String location, Boolean successful,
+                                            LocalDateTime start, LocalDateTime end) {
+        JpqlFilter filter = new JpqlFilter()
+                .equal("al.accessType", "accessType", accessType)
+                .equal("al.location", "location", location)
+                .equal("al.successful", "successful", successful)
+                .condition("al.timestamp >= :start AND al.timestamp <= :end")
+                .param("start", start)
+                .param("end", end);
+        return filter.bind(entityManager.createQuery(
+                        "SELECT al FROM AccessLog al" + filter.where() + " ORDER BY al.timestamp, al.id", AccessLog.class))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
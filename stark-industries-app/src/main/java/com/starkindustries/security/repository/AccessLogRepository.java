@@ -1,16 +1,19 @@
 package com.starkindustries.security.repository;
 
 import com.starkindustries.security.model.AccessLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 // Repositorio de logs de acceso
 @Repository // Marca esta interfaz como un repositorio de Spring Data JPA, permitiendo que Spring genere automáticamente la implementación de acceso a datos
-public interface AccessLogRepository extends JpaRepository<AccessLog, Long> {
+public interface AccessLogRepository extends JpaRepository<AccessLog, Long>, AccessLogFilterQueries {
 
     // Todos los logs de un usuario concreto
     List<AccessLog> findByUsername(String username);
@@ -31,4 +34,13 @@ public interface AccessLogRepository extends JpaRepository<AccessLog, Long> {
     // IPs con más fallos que el umbral indicado (para detectar IPs sospechosas)
     @Query("SELECT al.ipAddress, COUNT(al) FROM AccessLog al WHERE al.successful = false GROUP BY al.ipAddress HAVING COUNT(al) > :threshold")
     List<Object[]> findSuspiciousIpAddresses(int threshold);
+
+    // Purga por retención: el siguiente trozo de ids anteriores a `cutoff` (los más bajos) y su borrado.
+    @Query("SELECT al.id FROM AccessLog al WHERE al.timestamp < :cutoff ORDER BY al.id")
+    List<Long> findIdsBefore(LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AccessLog al WHERE al.id IN :ids AND al.timestamp < :cutoff")
+    int deleteIdsBefore(List<Long> ids, LocalDateTime cutoff);
 }
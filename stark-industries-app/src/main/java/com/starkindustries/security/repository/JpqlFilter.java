@@ -0,0 +1,47 @@
+package com.starkindustries.security.repository;
+
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Cláusula WHERE de JPQL que sólo incluye los filtros presentes. Un `(:x IS NULL OR col = :x)` fijo obliga
+// al optimizador a preparar un plan válido para ambos casos y no puede usar el índice de `col`; escribiendo
+// sólo los filtros no nulos, cada combinación tiene su propia consulta y su propio plan.
+final class JpqlFilter {
+
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> params = new LinkedHashMap<>();
+
+    // `path = :name`, sólo si el valor no es nulo
+    JpqlFilter equal(String path, String name, Object value) {
+        if (value != null) {
+            conditions.add(path + " = :" + name);
+            params.put(name, value);
+        }
+        return this;
+    }
+
+    // Condición que se aplica siempre; sus parámetros se dan con `param`
+    JpqlFilter condition(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    JpqlFilter param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    // " WHERE a AND b ..." (vacío si no hay condiciones)
+    String where() {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    <T> TypedQuery<T> bind(TypedQuery<T> query) {
+        params.forEach(query::setParameter);
+        return query;
+    }
+}
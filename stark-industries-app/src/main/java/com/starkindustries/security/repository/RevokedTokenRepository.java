@@ -0,0 +1,28 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Repositorio de tokens JWT revocados
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // Revocaciones de tokens que aún no han expirado (se cargan en memoria al arrancar)
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    // Comprueba si un token ya estaba revocado
+    boolean existsByJti(String jti);
+
+    // Borra las revocaciones de tokens ya expirados
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -1,9 +1,12 @@
 package com.starkindustries.security.repository;
 
 import com.starkindustries.security.model.SecurityAlert;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,4 +31,14 @@ public interface SecurityAlertRepository extends JpaRepository<SecurityAlert, Lo
     // Alertas activas ordenadas por criticidad y fecha (para priorizar la atención)
     @Query("SELECT sa FROM SecurityAlert sa WHERE sa.resolved = false ORDER BY sa.level DESC, sa.createdAt DESC")
     List<SecurityAlert> findActiveAlertsPrioritized();
+
+    // Purga por retención: el siguiente trozo de ids anteriores a `cutoff` (los más bajos) y su borrado.
+    // Las alertas sin resolver no se purgan nunca.
+    @Query("SELECT sa.id FROM SecurityAlert sa WHERE sa.resolved = true AND sa.createdAt < :cutoff ORDER BY sa.id")
+    List<Long> findIdsBefore(LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SecurityAlert sa WHERE sa.id IN :ids AND sa.resolved = true AND sa.createdAt < :cutoff")
+    int deleteIdsBefore(List<Long> ids, LocalDateTime cutoff);
 }
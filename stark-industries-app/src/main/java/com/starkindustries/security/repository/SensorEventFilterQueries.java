@@ -0,0 +1,24 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Consultas de SensorEventRepository con filtros opcionales (los nulos no se aplican). Se construyen con
+// sólo los filtros presentes (ver `JpqlFilter`) para que cada combinación use su índice.
+public interface SensorEventFilterQueries {
+
+    // Página de eventos por "keyset": los siguientes a la posición (afterTs, afterId) en orden (timestamp, id).
+    // A diferencia de OFFSET, el coste no crece con el número de página.
+    List<SensorEvent> findPageAfter(SensorType type, String location, Boolean critical, LocalDateTime start, LocalDateTime end,
+                                    LocalDateTime afterTs, Long afterId, Pageable pageable);
+
+    // Mismos filtros y orden, leídos como Stream (cursor JDBC de sólo avance) con un fetch size acotado: el
+    // driver trae las filas por bloques en lugar de cargar el resultado entero. Debe consumirse dentro de una
+    // transacción.
+    Stream<SensorEvent> streamFiltered(SensorType type, String location, Boolean critical, LocalDateTime start, LocalDateTime end);
+}
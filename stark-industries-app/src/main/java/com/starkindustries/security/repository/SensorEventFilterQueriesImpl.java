@@ -0,0 +1,55 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Implementación de `SensorEventFilterQueries` (Spring Data la combina con SensorEventRepository)
+class SensorEventFilterQueriesImpl implements SensorEventFilterQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SensorEvent> findPageAfter(SensorType type, String location, Boolean critical, LocalDateTime start,
+                                           LocalDateTime end, LocalDateTime afterTs, Long afterId, Pageable pageable) {
+        JpqlFilter filter = filter(type, location, critical, start, end)
+                .condition("(se.timestamp > :afterTs OR (se.timestamp = :afterTs AND se.id > :afterId))")
+                .param("afterTs", afterTs)
+                .param("afterId", afterId);
+        return filter.bind(entityManager.createQuery(
+                        "SELECT se FROM SensorEvent se" + filter.where() + " ORDER BY se.timestamp, se.id", SensorEvent.class))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public Stream<SensorEvent> streamFiltered(SensorType type, String location, Boolean critical, LocalDateTime start,
+                                              LocalDateTime end) {
+        JpqlFilter filter = filter(type, location, critical, start, end);
+        return filter.bind(entityManager.createQuery(
+                        "SELECT se FROM SensorEvent se" + filter.where() + " ORDER BY se.timestamp, se.id", SensorEvent.class))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private static JpqlFilter filter(SensorType type, String location, Boolean critical, LocalDateTime start,
+                                     LocalDateTime end) {
+        return new JpqlFilter()
+                .equal("se.sensorType", "type", type)
+                .equal("se.location", "location", location)
+                .equal("se.critical", "critical", critical)
+                .condition("se.timestamp >= :start AND se.timestamp <= :end")
+                .param("start", start)
+                .param("end", end);
+    }
+}
@@ -2,16 +2,19 @@ package com.starkindustries.security.repository;
 
 import com.starkindustries.security.model.SensorEvent;
 import com.starkindustries.security.model.SensorType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 // Repositorio de eventos de sensores: permite consultar por tipo, rango temporal y estadísticas
 @Repository // Marca esta interfaz como un repositorio de Spring Data JPA, permitiendo que Spring genere automáticamente la implementación de acceso a datos
-public interface SensorEventRepository extends JpaRepository<SensorEvent, Long> {
+public interface SensorEventRepository extends JpaRepository<SensorEvent, Long>, SensorEventFilterQueries {
 
     // Todos los eventos de un tipo de sensor concreto
     List<SensorEvent> findBySensorType(SensorType sensorType);
@@ -22,6 +25,9 @@ public interface SensorEventRepository extends JpaRepository<SensorEvent, Long>
     // Solo eventos marcados como críticos
     List<SensorEvent> findByCriticalTrue();
 
+    // Número de eventos críticos (COUNT en BD, sin cargarlos)
+    long countByCriticalTrue();
+
     // Eventos dentro de un intervalo de tiempo
     List<SensorEvent> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
 
@@ -29,6 +35,13 @@ public interface SensorEventRepository extends JpaRepository<SensorEvent, Long>
     @Query("SELECT se FROM SensorEvent se WHERE se.sensorType = :type AND se.timestamp >= :since")
     List<SensorEvent> findRecentBySensorType(SensorType type, LocalDateTime since);
 
+    // Los más recientes de un tipo desde `since` (sólo críticos si `criticalOnly`), del más nuevo al más
+    // antiguo y como mucho `page.getPageSize()`: la BD recorre el índice (sensor_type, timestamp) hacia
+    // atrás y se detiene en el LIMIT, sin cargar la ventana entera
+    @Query("SELECT se FROM SensorEvent se WHERE se.sensorType = :type AND se.timestamp >= :since"
+            + " AND (:criticalOnly = false OR se.critical = true) ORDER BY se.timestamp DESC")
+    List<SensorEvent> findLatestBySensorType(SensorType type, LocalDateTime since, boolean criticalOnly, Pageable page);
+
     // Devuelve por cada tipo de sensor cuántos eventos hay almacenados
     @Query("SELECT se.sensorType, COUNT(se) FROM SensorEvent se GROUP BY se.sensorType")
     List<Object[]> countEventsBySensorType();
@@ -36,4 +49,13 @@ public interface SensorEventRepository extends JpaRepository<SensorEvent, Long>
     // Tiempo medio de procesamiento (ms) para un tipo de sensor
     @Query("SELECT AVG(se.processingTimeMs) FROM SensorEvent se WHERE se.sensorType = :type")
     Double getAverageProcessingTime(SensorType type);
+
+    // Purga por retención: el siguiente trozo de ids anteriores a `cutoff` (los más bajos) y su borrado.
+    @Query("SELECT se.id FROM SensorEvent se WHERE se.timestamp < :cutoff ORDER BY se.id")
+    List<Long> findIdsBefore(LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SensorEvent se WHERE se.id IN :ids AND se.timestamp < :cutoff")
+    int deleteIdsBefore(List<Long> ids, LocalDateTime cutoff);
 }
@@ -0,0 +1,39 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.SensorRollup;
+import com.starkindustries.security.model.SensorType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Repositorio de agregados de eventos de sensores (minuto, hora y día)
+@Repository
+public interface SensorRollupRepository extends JpaRepository<SensorRollup, Long> {
+
+    // Agregados existentes de una granularidad en los intervalos indicados (para sumarles un volcado)
+    List<SensorRollup> findByGranularityAndBucketStartIn(SensorRollup.Granularity granularity,
+                                                         Collection<LocalDateTime> bucketStarts);
+
+    // Agregados de una granularidad anteriores a `before`, los más antiguos primero (compactación por lotes)
+    List<SensorRollup> findByGranularityAndBucketStartBeforeOrderByBucketStart(SensorRollup.Granularity granularity,
+                                                                               LocalDateTime before, Pageable pageable);
+
+    // Agregados de una granularidad en un rango, con filtros opcionales de tipo y ubicación
+    @Query("SELECT r FROM SensorRollup r WHERE r.granularity = :granularity "
+            + "AND r.bucketStart >= :start AND r.bucketStart < :end "
+            + "AND (:type IS NULL OR r.sensorType = :type) "
+            + "AND (:location IS NULL OR r.location = :location) "
+            + "ORDER BY r.bucketStart")
+    List<SensorRollup> findRange(SensorRollup.Granularity granularity, LocalDateTime start, LocalDateTime end,
+                                 SensorType type, String location);
+
+    // Totales por tipo sumando todas las granularidades: [tipo, eventos, críticos, suma de tiempos de procesamiento]
+    @Query("SELECT r.sensorType, SUM(r.events), SUM(r.criticalEvents), SUM(r.processingTimeSum) "
+            + "FROM SensorRollup r GROUP BY r.sensorType")
+    List<Object[]> totalsBySensorType();
+}
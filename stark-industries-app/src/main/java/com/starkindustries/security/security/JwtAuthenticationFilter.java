@@ -1,5 +1,6 @@
 package com.starkindustries.security.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,11 +24,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     // Se usa ObjectProvider para obtener el UserDetailsService perezosamente
     private final ObjectProvider<UserDetailsService> userDetailsServiceProvider;
+    // Usuarios ya cargados: evita ir a BD en cada petición autenticada
+    private final PrincipalCache principalCache;
 
     public JwtAuthenticationFilter(JwtService jwtService,
-                                   ObjectProvider<UserDetailsService> userDetailsServiceProvider) {
+                                   ObjectProvider<UserDetailsService> userDetailsServiceProvider,
+                                   PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userDetailsServiceProvider = userDetailsServiceProvider;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -38,6 +43,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final Claims claims;
         final String username;
 
         // Si no hay cabecera Authorization o no es Bearer, se sigue la cadena sin autenticar
@@ -48,16 +54,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // Extrae el token quitando el prefijo "Bearer "
         jwt = authHeader.substring(7);
-        // Obtiene el username (subject) del token
-        username = jwtService.extractUsername(jwt);
+        // Verifica el token una sola vez y obtiene el username (subject) de sus claims
+        claims = jwtService.verify(jwt);
+        username = claims.getSubject();
 
         // Sólo continúa si no hay autenticación previa en el contexto
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetailsService userDetailsService = userDetailsServiceProvider.getObject();
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = principalCache.get(username, userDetailsService::loadUserByUsername);
 
             // Si el token es válido, se crea un Authentication y se guarda en el SecurityContext
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -1,8 +1,13 @@
 package com.starkindustries.security.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,9 +17,13 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 // Servicio responsable de construir y validar tokens JWT
@@ -29,24 +38,77 @@ public class JwtService {
     @Value("${security.jwt.expiration:86400000}") // Inyecta el valor de la propiedad de configuración, con valor por defecto "86400000" (24 horas) si no está definida
     private long jwtExpiration;
 
+    // Máximo de tokens verificados que se recuerdan
+    @Value("${security.jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
     // Clave simétrica derivada del secreto
     private SecretKey secretKey;
+    // Parser (con la clave de verificación) construido una sola vez; es inmutable y thread-safe
+    private JwtParser parser;
+
+    // Claims ya verificadas por digest SHA-256 del token: una petición con un token ya visto no vuelve a
+    // comprobar la firma ni a parsear el JSON. Cada entrada vale hasta el `exp` del propio token.
+    private final Map<String, Claims> verifiedClaims = new ConcurrentHashMap<>();
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    // Tokens revocados antes de expirar (logout)
+    private final TokenRevocationService tokenRevocationService;
+
+    public JwtService(TokenRevocationService tokenRevocationService, MeterRegistry meterRegistry) {
+        this.tokenRevocationService = tokenRevocationService;
+        this.cacheHits = Counter.builder("security.jwt.claims.cache")
+                .description("Verificaciones de JWT resueltas con la caché de claims")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("security.jwt.claims.cache")
+                .description("Verificaciones de JWT resueltas con la caché de claims")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("security.jwt.claims.cache.size", verifiedClaims, Map::size).register(meterRegistry);
+    }
 
-    // Inicializa la clave una vez cargadas las propiedades de Spring
+    // Inicializa la clave y el parser una vez cargadas las propiedades de Spring
     @PostConstruct // Indica que este método se ejecutará automáticamente después de que Spring inyecte todas las dependencias y propiedades
     void init() {
         this.secretKey = buildSecretKey(secretKeyProperty);
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+    }
+
+    // Verifica el token (firma y expiración) y devuelve sus claims. Es el único punto que parsea: el resto
+    // de métodos trabajan sobre las claims ya verificadas. Lanza JwtException si el token no es válido.
+    public Claims verify(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedClaims.get(digest);
+        if (claims != null) {
+            if (!isExpired(claims)) {
+                cacheHits.increment();
+                return claims;
+            }
+            verifiedClaims.remove(digest);
+        }
+        cacheMisses.increment();
+        // Si ha expirado, el propio parser lanza ExpiredJwtException
+        claims = parser.parseSignedClaims(token).getPayload();
+        if (verifiedClaims.size() >= claimsCacheMaxSize) {
+            evictClaims();
+        }
+        verifiedClaims.put(digest, claims);
+        return claims;
     }
 
     // Extrae el username (subject) de un JWT
     public String extractUsername(String token) {
-        return extractClaim(token, claims -> claims.getSubject());
+        return verify(token).getSubject();
     }
 
     // Método genérico para extraer una claim concreta
-    public <T> T extractClaim(String token, Function<io.jsonwebtoken.Claims, T> claimsResolver) {
-        final io.jsonwebtoken.Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(verify(token));
     }
 
     // Genera un token simple para un usuario sin claims extra
@@ -59,7 +121,7 @@ public class JwtService {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
 
-    // Construye el JWT con subject, fechas y firma HMAC-SHA256
+    // Construye el JWT con subject, identificador único (jti, para poder revocarlo), fechas y firma HMAC-SHA256
     private String buildToken(
             Map<String, Object> extraClaims,
             UserDetails userDetails,
@@ -69,31 +131,65 @@ public class JwtService {
         return Jwts.builder()
                 .claims(extraClaims)
                 .subject(userDetails.getUsername())
+                .id(UUID.randomUUID().toString())
                 .issuedAt(now)
                 .expiration(new Date(now.getTime() + expiration))
                 .signWith(secretKey, Jwts.SIG.HS256)
                 .compact();
     }
 
-    // Comprueba que el token pertenece al usuario y que no está expirado
+    // Comprueba que el token pertenece al usuario y que no está expirado ni revocado
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username != null && username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
+    }
+
+    // Igual, sobre claims ya verificadas (sin volver a parsear el token)
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username != null && username.equals(userDetails.getUsername())) && !isExpired(claims)
+                && !tokenRevocationService.isRevoked(claims.getId());
+    }
+
+    // Revoca el token hasta su expiración (ver TokenRevocationService)
+    public void revoke(String token) {
+        Claims claims = verify(token);
+        tokenRevocationService.revoke(claims.getId(), claims.getSubject(), claims.getExpiration());
     }
 
     // Revisa la fecha de expiración
-    private boolean isTokenExpired(String token) {
-        Date exp = extractClaim(token, io.jsonwebtoken.Claims::getExpiration);
-        return exp.before(new Date());
+    private static boolean isExpired(Claims claims) {
+        Date exp = claims.getExpiration();
+        return exp != null && exp.before(new Date());
     }
 
-    // Parsea todas las claims del token verificando la firma
-    private io.jsonwebtoken.Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    // Al llenarse la caché se descartan las entradas caducadas y, si no basta, la cuarta parte que antes
+    // caduca (como PrincipalCache): vaciarla entera obligaría a volver a verificar todos los tokens vivos
+    private void evictClaims() {
+        verifiedClaims.values().removeIf(JwtService::isExpired);
+        if (verifiedClaims.size() >= claimsCacheMaxSize) {
+            verifiedClaims.entrySet().stream()
+                    .sorted(Comparator.comparing(e -> expirationMillis(e.getValue())))
+                    .limit(Math.max(1, claimsCacheMaxSize / 4))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(verifiedClaims::remove);
+        }
+    }
+
+    // Sin `exp` el token no caduca: se ordena el último
+    private static long expirationMillis(Claims claims) {
+        Date exp = claims.getExpiration();
+        return exp != null ? exp.getTime() : Long.MAX_VALUE;
+    }
+
+    // Clave de la caché: SHA-256 del token (no se guardan tokens completos en memoria)
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
     // Construye una SecretKey robusta a partir del secreto configurado
@@ -0,0 +1,112 @@
+package com.starkindustries.security.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Pool aislado y acotado para el trabajo con BCrypt (verificación de contraseñas en el login).
+// BCrypt gasta CPU a propósito: si se hace en los hilos de Tomcat, una avalancha de logins (p. ej. fuerza
+// bruta) ocupa todos los hilos del conector y frena también la ingesta de sensores. Aquí:
+// - Hay un número fijo de hilos (por defecto, la mitad de los núcleos) y una cola de tamaño fijo; con la
+//   cola llena la petición se rechaza al instante.
+// - Una tarea que ha esperado en cola más de `max-queue-time-ms` se descarta sin calcular el hash: el
+//   cliente probablemente ya ha desistido y el trabajo sólo alargaría la cola.
+// Ambos rechazos llegan como PasswordHashingOverloadException (el controlador responde 503 + Retry-After).
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long maxQueueTimeNanos;
+
+    private final Timer queueTime;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedQueueTimeout;
+
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads:0}") int threads,
+                                   @Value("${security.password-hashing.queue-capacity:50}") int queueCapacity,
+                                   @Value("${security.password-hashing.max-queue-time-ms:2000}") long maxQueueTimeMs,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "PasswordHasher-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxQueueTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueTimeMs);
+
+        // executor.active, executor.queued, executor.pool.size... con name=password.hashing
+        new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(meterRegistry);
+        this.queueTime = Timer.builder("password.hashing.queue.time")
+                .description("Tiempo en cola de las tareas de hashing de contraseñas")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("password.hashing.rejected")
+                .description("Tareas de hashing rechazadas por sobrecarga")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.rejectedQueueTimeout = Counter.builder("password.hashing.rejected")
+                .description("Tareas de hashing rechazadas por sobrecarga")
+                .tag("reason", "queue-timeout")
+                .register(meterRegistry);
+        log.info("Pool de hashing de contraseñas: {} hilos, cola de {}, espera máxima {} ms",
+                poolSize, queueCapacity, maxQueueTimeMs);
+    }
+
+    // Ejecuta la tarea en el pool; el resultado (o el rechazo) llega por el CompletableFuture
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                queueTime.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueTimeNanos) {
+                    rejectedQueueTimeout.increment();
+                    future.completeExceptionally(new PasswordHashingOverloadException(
+                            "Verificación descartada tras " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms en cola",
+                            retryAfterSeconds()));
+                    return;
+                }
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            future.completeExceptionally(new PasswordHashingOverloadException(
+                    "Cola de verificación de contraseñas llena", retryAfterSeconds()));
+        }
+        return future;
+    }
+
+    // Reintento sugerido: lo que tardaría en vaciarse la espera máxima permitida (mínimo 1 s)
+    private long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(maxQueueTimeNanos));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
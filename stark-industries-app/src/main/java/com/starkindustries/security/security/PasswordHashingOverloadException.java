@@ -0,0 +1,18 @@
+package com.starkindustries.security.security;
+
+import lombok.Getter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// El pool de hashing de contraseñas no ha podido atender una verificación (cola llena o demasiado tiempo
+// en cola); indica cuándo conviene reintentar
+@Getter
+public class PasswordHashingOverloadException extends RejectedExecutionException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingOverloadException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,113 @@
+package com.starkindustries.security.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Caché de los UserDetails que usa JwtAuthenticationFilter en cada petición autenticada, para no repetir
+// findByUsername + la carga de roles en cada llamada del dashboard.
+// - Cada entrada caduca a los `ttl-ms` (cambios hechos fuera de UserService acaban viéndose igualmente).
+// - Tamaño acotado: al llenarse se descartan las caducadas y, si no basta, las más antiguas.
+// - UserService la invalida al cambiar el estado de un usuario (intentos fallidos, bloqueo, desbloqueo,
+//   alta), así que un bloqueo surte efecto en la siguiente petición.
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    @Value("${security.principal-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.principal-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${security.principal-cache.max-size:1000}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Cambia con cada invalidación: una carga que empezó antes no guarda su resultado (podría ser el
+    // estado anterior al cambio)
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public PrincipalCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("security.principal.cache")
+                .description("Búsquedas en la caché de usuarios autenticados")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("security.principal.cache")
+                .description("Búsquedas en la caché de usuarios autenticados")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("security.principal.cache.evictions")
+                .description("Entradas descartadas por tamaño o caducidad")
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.size", entries, Map::size).register(meterRegistry);
+        Gauge.builder("security.principal.cache.hit.ratio", this, PrincipalCache::hitRatio).register(meterRegistry);
+    }
+
+    // Devuelve el usuario cacheado o lo carga con `loader` (las excepciones del loader no se cachean)
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        if (!enabled) {
+            return loader.apply(username);
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && now - entry.expiresAt() < 0) {
+            hits.increment();
+            return entry.user();
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        UserDetails user = loader.apply(username);
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        if (generation.get() == loadedAt) {
+            entries.put(username, new Entry(user, now + TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        }
+        return user;
+    }
+
+    // Olvida al usuario (la siguiente petición lo vuelve a cargar de BD)
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        if (username != null && entries.remove(username) != null) {
+            log.debug("Usuario {} invalidado en la caché de autenticación", username);
+        }
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    // Quita las caducadas y, si sigue llena, la cuarta parte más antigua
+    private void evict(long now) {
+        int before = entries.size();
+        entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+        if (entries.size() >= maxSize) {
+            entries.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(a.getValue().expiresAt(), b.getValue().expiresAt()))
+                    .limit(Math.max(1, maxSize / 4))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entries::remove);
+        }
+        evictions.increment(Math.max(0, before - entries.size()));
+    }
+
+    private record Entry(UserDetails user, long expiresAt) {}
+}
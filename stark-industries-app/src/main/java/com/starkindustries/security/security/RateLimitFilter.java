@@ -0,0 +1,333 @@
+package com.starkindustries.security.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Limitación de peticiones en memoria, antes de cualquier acceso a BD o cálculo de BCrypt: va delante de
+// JwtAuthenticationFilter en la cadena de seguridad.
+// - Grupos de rutas con su propio límite (security.rate-limit.<grupo>.capacity / refill-per-second):
+//   `login` (POST /api/auth/login) y las lecturas (GET) de `sensors` (/api/sensors/**) y `alerts`
+//   (/api/alerts/**). La ingesta de eventos ya tiene su control de admisión y no pasa por aquí.
+// - Cada grupo tiene un TokenBucket por IP y otro por usuario (el del cuerpo del login, o el subject del
+//   JWT en el resto); la petición pasa si quedan tokens en los dos. Así se frena tanto una IP que prueba
+//   muchas cuentas como muchas IPs contra la misma cuenta, sin las escrituras en BD del bloqueo de cuentas.
+// - Los cubos viven en un ConcurrentHashMap por grupo (bloqueo por segmentos sólo al crear uno; consumir
+//   es un CAS) y los que llevan `idle-timeout-ms` sin uso se descartan periódicamente.
+// Si se supera el límite se responde 429 con Retry-After.
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Tamaño máximo del cuerpo del login que se lee para sacar el username
+    private static final int MAX_LOGIN_BODY_BYTES = 4096;
+
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+
+    private final Group login;
+    private final Group sensors;
+    private final Group alerts;
+
+    @Value("${security.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.rate-limit.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    public RateLimitFilter(JwtService jwtService, ObjectMapper objectMapper, Environment environment,
+                           MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.login = group("login", 10, 0.2, environment, meterRegistry);
+        this.sensors = group("sensors", 200, 100, environment, meterRegistry);
+        this.alerts = group("alerts", 100, 50, environment, meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Group group = enabled ? groupFor(request) : null;
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long now = System.nanoTime();
+        long wait = group.bucket("ip:" + request.getRemoteAddr(), now).tryAcquire(now);
+        if (wait > 0) {
+            group.limitedByIp().increment();
+            tooManyRequests(response, wait);
+            return;
+        }
+
+        String username;
+        if (group == login) {
+            CachedBodyRequest cached = new CachedBodyRequest(request);
+            request = cached;
+            username = cached.username(objectMapper);
+        } else {
+            username = bearerSubject(request);
+        }
+        if (username != null) {
+            wait = group.bucket("user:" + username, now).tryAcquire(now);
+            if (wait > 0) {
+                group.limitedByUser().increment();
+                tooManyRequests(response, wait);
+                return;
+            }
+        }
+        group.allowed().increment();
+        filterChain.doFilter(request, response);
+    }
+
+    // Descarta los cubos sin uso (llenos desde hace idle-timeout-ms): volverían a crearse llenos igualmente
+    @Scheduled(fixedDelayString = "${security.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        for (Group group : new Group[]{login, sensors, alerts}) {
+            int before = group.buckets().size();
+            group.buckets().values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+            if (before != group.buckets().size()) {
+                log.debug("Rate limit {}: {} cubos inactivos descartados", group.name(), before - group.buckets().size());
+            }
+        }
+    }
+
+    // Grupo de la petición, o null si la ruta no está limitada
+    private Group groupFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if ("POST".equals(method) && path.equals("/api/auth/login")) {
+            return login;
+        }
+        if ("GET".equals(method)) {
+            if (path.startsWith("/api/sensors/")) {
+                return sensors;
+            }
+            if (path.startsWith("/api/alerts")) {
+                return alerts;
+            }
+        }
+        return null;
+    }
+
+    // Subject del JWT (claims cacheadas por JwtService, sin BD); null si no hay token o no es válido
+    private String bearerSubject(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtService.verify(authHeader.substring(7)).getSubject();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void tooManyRequests(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "error", "Demasiadas peticiones, reintentar más tarde",
+                "retryAfterSeconds", retryAfter
+        ));
+    }
+
+    // Límite de un grupo de rutas, sus cubos y sus métricas
+    private record Group(String name, long capacity, double refillPerSecond, Map<String, TokenBucket> buckets,
+                         Counter allowed, Counter limitedByIp, Counter limitedByUser) {
+
+        TokenBucket bucket(String key, long now) {
+            TokenBucket bucket = buckets.get(key);
+            return bucket != null ? bucket
+                    : buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond, now));
+        }
+    }
+
+    private static Group group(String name, long defaultCapacity, double defaultRefill,
+                               Environment environment, MeterRegistry registry) {
+        String prefix = "security.rate-limit." + name + ".";
+        Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        Gauge.builder("security.rate.limit.buckets", buckets, Map::size).tag("group", name).register(registry);
+        return new Group(name,
+                environment.getProperty(prefix + "capacity", Long.class, defaultCapacity),
+                environment.getProperty(prefix + "refill-per-second", Double.class, defaultRefill),
+                buckets,
+                counter(registry, name, "allowed", "none"),
+                counter(registry, name, "limited", "ip"),
+                counter(registry, name, "limited", "user"));
+    }
+
+    private static Counter counter(MeterRegistry registry, String group, String result, String key) {
+        return Counter.builder("security.rate.limit")
+                .description("Peticiones que pasan por el limitador, por grupo de rutas y resultado")
+                .tag("group", group)
+                .tag("result", result)
+                .tag("key", key)
+                .register(registry);
+    }
+
+    // Petición cuyo cuerpo (hasta MAX_LOGIN_BODY_BYTES) se ha leído para sacar el username; el resto de la
+    // cadena lo vuelve a leer completo: primero los bytes ya leídos y después, si los hay, los que quedan en
+    // el stream original
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] head;
+        private final ServletInputStream stream;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            ServletInputStream original = request.getInputStream();
+            this.head = original.readNBytes(MAX_LOGIN_BODY_BYTES + 1);
+            // Si readNBytes se quedó corto, el original ya llegó al final y todo el cuerpo está en memoria
+            this.stream = new BodyStream(original, head.length <= MAX_LOGIN_BODY_BYTES);
+        }
+
+        // Username del JSON del login; null si el cuerpo no es válido o supera el tamaño leído
+        String username(ObjectMapper objectMapper) {
+            if (head.length > MAX_LOGIN_BODY_BYTES) {
+                return null;
+            }
+            try {
+                String username = objectMapper.readTree(head).path("username").asText(null);
+                return username == null || username.isBlank() ? null : username.trim().toLowerCase();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(stream,
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        private final class BodyStream extends ServletInputStream {
+
+            private final ServletInputStream original;
+            // true si `head` es el cuerpo entero
+            private final boolean buffered;
+            private int position;
+
+            BodyStream(ServletInputStream original, boolean buffered) {
+                this.original = original;
+                this.buffered = buffered;
+            }
+
+            @Override
+            public int read() throws IOException {
+                if (position < head.length) {
+                    return head[position++] & 0xff;
+                }
+                return buffered ? -1 : original.read();
+            }
+
+            @Override
+            public int read(@NonNull byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (position < head.length) {
+                    int n = Math.min(len, head.length - position);
+                    System.arraycopy(head, position, b, off, n);
+                    position += n;
+                    return n;
+                }
+                return buffered ? -1 : original.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return position >= head.length && (buffered || original.isFinished());
+            }
+
+            @Override
+            public boolean isReady() {
+                return position < head.length || buffered || original.isReady();
+            }
+
+            // Lectura no bloqueante. Con el cuerpo en memoria siempre hay datos listos: se avisa al listener
+            // en el acto y, cuando lo ha consumido, se le notifica el final. Si queda cuerpo en el original,
+            // el contenedor avisa como siempre; los bytes ya leídos se entregan en el primer aviso y, si el
+            // original termina sin datos nuevos, antes de notificar el final.
+            @Override
+            public void setReadListener(ReadListener listener) {
+                Objects.requireNonNull(listener, "listener");
+                if (!buffered) {
+                    original.setReadListener(new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            listener.onDataAvailable();
+                        }
+
+                        @Override
+                        public void onAllDataRead() throws IOException {
+                            if (position < head.length) {
+                                listener.onDataAvailable();
+                            }
+                            listener.onAllDataRead();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            listener.onError(t);
+                        }
+                    });
+                    return;
+                }
+                try {
+                    if (!isFinished()) {
+                        listener.onDataAvailable();
+                    }
+                    if (isFinished()) {
+                        listener.onAllDataRead();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    listener.onError(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.starkindustries.security.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cubo de tokens sin bloqueos: `capacity` tokens de ráfaga que se reponen a `refillPerSecond`.
+// Se implementa como GCRA (el algoritmo equivalente que usa un único instante en lugar de contador +
+// última reposición): se guarda el "instante teórico" en que el cubo volvería a estar lleno y cada
+// petición lo adelanta un intervalo con un CAS. Una petición pasa si, tras adelantarlo, el cubo no queda
+// más de `capacity` intervalos por detrás. Sin locks ni reservas de memoria por petición.
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    // Instante teórico (System.nanoTime) en que el cubo estará lleno de nuevo
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, double refillPerSecond, long now) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, capacity);
+        this.fullAt = new AtomicLong(now);
+    }
+
+    // Consume un token; devuelve 0 si había, o los nanosegundos hasta que vuelva a haber uno
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // true si el cubo lleva lleno (sin uso) al menos `idleNanos`: se puede descartar sin cambiar el límite
+    public boolean isIdle(long now, long idleNanos) {
+        return now - fullAt.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,159 @@
+package com.starkindustries.security.security;
+
+import com.starkindustries.security.config.BloomFilter;
+import com.starkindustries.security.model.RevokedToken;
+import com.starkindustries.security.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revocación de JWT (logout) por su claim `jti`, sin consultar la BD en cada petición:
+// - Las revocaciones se persisten en `revoked_tokens` y se cargan en memoria al arrancar.
+// - Cada comprobación pasa primero por un filtro de Bloom: para casi todos los tokens (no revocados)
+//   responde "no" sin más que unas lecturas de memoria. Sólo si dice "puede" se consulta el conjunto
+//   exacto (jti -> expiración), que descarta los falsos positivos.
+// - Una revocación sólo importa hasta que expira el token; la limpieza periódica las borra de la BD y del
+//   conjunto y reconstruye el filtro (un filtro de Bloom no admite borrados).
+// El estado en memoria es de esta instancia: con varias réplicas, cada una sólo ve al arrancar las
+// revocaciones hechas en las demás.
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${security.jwt.revocation.enabled:true}")
+    private boolean enabled;
+
+    // Dimensionado del filtro de Bloom: revocaciones vigentes esperadas y tasa de falsos positivos
+    @Value("${security.jwt.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    @Value("${security.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Revocaciones vigentes: jti -> expiración del token (epoch ms)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    // Se sustituye entero al reconstruirlo; las consultas leen la referencia sin bloqueos
+    private volatile BloomFilter filter;
+    // Revocar y reconstruir se serializan para que ninguna revocación se pierda al cambiar de filtro
+    private final Object writeLock = new Object();
+
+    private final Counter bloomNegatives;
+    private final Counter falsePositives;
+    private final Counter revokedHits;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.bloomNegatives = Counter.builder("security.jwt.revocation.checks")
+                .description("Comprobaciones de revocación de JWT")
+                .tag("result", "bloom-negative")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("security.jwt.revocation.checks")
+                .description("Comprobaciones de revocación de JWT")
+                .tag("result", "false-positive")
+                .register(meterRegistry);
+        this.revokedHits = Counter.builder("security.jwt.revocation.checks")
+                .description("Comprobaciones de revocación de JWT")
+                .tag("result", "revoked")
+                .register(meterRegistry);
+        Gauge.builder("security.jwt.revocation.size", revoked, Map::size).register(meterRegistry);
+    }
+
+    // Carga en memoria las revocaciones de tokens que aún no han expirado
+    @PostConstruct
+    void init() {
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            revoked.put(token.getJti(), toEpochMillis(token.getExpiresAt()));
+        }
+        synchronized (writeLock) {
+            rebuildFilter();
+        }
+        log.info("Revocación de JWT: {} tokens revocados cargados (filtro de {} bits, {} hashes)",
+                revoked.size(), filter.bitCount(), filter.hashCount());
+    }
+
+    // true si el token con ese jti fue revocado (los tokens sin jti no se pueden revocar)
+    public boolean isRevoked(String jti) {
+        if (!enabled || jti == null) {
+            return false;
+        }
+        if (!filter.mightContain(jti)) {
+            bloomNegatives.increment();
+            return false;
+        }
+        if (revoked.containsKey(jti)) {
+            revokedHits.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    // Revoca el token hasta su expiración: se persiste y surte efecto en la siguiente petición
+    public void revoke(String jti, String username, Date expiration) {
+        if (jti == null) {
+            return;
+        }
+        long expiresAt = expiration != null ? expiration.getTime() : System.currentTimeMillis();
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (revoked.containsKey(jti)) {
+                return;
+            }
+            if (!revokedTokenRepository.existsByJti(jti)) {
+                revokedTokenRepository.save(RevokedToken.builder()
+                        .jti(jti)
+                        .username(username)
+                        .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()))
+                        .revokedAt(LocalDateTime.now())
+                        .build());
+            }
+            // Primero el conjunto exacto y después el filtro: cuando el filtro dice "puede", el jti ya está
+            revoked.put(jti, expiresAt);
+            filter.put(jti);
+        }
+        log.info("Token {} de {} revocado", jti, username);
+    }
+
+    // Olvida las revocaciones de tokens ya expirados y reconstruye el filtro sin ellas
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.prune-interval-ms:600000}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        synchronized (writeLock) {
+            int before = revoked.size();
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            if (revoked.size() != before) {
+                rebuildFilter();
+                log.info("Revocación de JWT: {} revocaciones caducadas eliminadas ({} en BD)",
+                        before - revoked.size(), deleted);
+            }
+        }
+    }
+
+    // Construye un filtro nuevo con las revocaciones vigentes; llamar con writeLock
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -4,11 +4,14 @@ import com.starkindustries.security.model.SensorEvent;
 import com.starkindustries.security.model.SensorType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 // Sensor de movimiento que simula actividad en distintas zonas
 @Component("motionSensor")
@@ -36,8 +39,19 @@ public class MotionSensor implements Sensor {
     private double spikeTarget = 0;
     private double spikeStep = 0;
 
-    // Contador de lecturas consecutivas por encima del umbral "threshold"
-    private int consecutiveHigh = 0;
+    // Lecturas consecutivas por encima del umbral "threshold", por ubicación.
+    // Los eventos de una misma ubicación llegan en serie (carril de `SensorProcessingService`), pero
+    // ubicaciones distintas se procesan en paralelo: cada una lleva su propio contador.
+    // Las ubicaciones las envía el cliente, así que el mapa está acotado: sólo guarda rachas abiertas
+    // (al volver a 0 la entrada se borra), caducan tras `streak-ttl-ms` sin lecturas y, con el máximo
+    // alcanzado, una ubicación nueva sólo se evalúa por el umbral alto.
+    private final Map<String, Streak> consecutiveHighByLocation = new ConcurrentHashMap<>();
+
+    @Value("${security.sensor.motion.streak-ttl-ms:600000}")
+    private long streakTtlMs;
+
+    @Value("${security.sensor.motion.max-tracked-locations:1000}")
+    private int maxTrackedLocations;
 
     @Override
     public SensorEvent processEvent(SensorEvent event) {
@@ -57,7 +71,7 @@ public class MotionSensor implements Sensor {
         event.setProcessedBy(Thread.currentThread().getName());
         event.setProcessingTimeMs(System.currentTimeMillis() - startTime);
         // Marca el evento como crítico si la lógica de negocio lo decide
-        event.setCritical(requiresAlert(event.getValue()));
+        event.setCritical(requiresAlert(event.getLocation(), event.getValue()));
 
         log.info("Evento procesado - Movimiento detectado: {} unidades en {}",
                  event.getValue(), event.getLocation());
@@ -69,14 +83,43 @@ public class MotionSensor implements Sensor {
     // o si ha habido varios valores consecutivos por encima del umbral medio
     @Override
     public boolean requiresAlert(Double value) {
-        if (value >= threshold) {
-            consecutiveHigh++;
-        } else if (consecutiveHigh > 0) {
-            consecutiveHigh--;
+        return requiresAlert("", value);
+    }
+
+    private boolean requiresAlert(String location, Double value) {
+        if (value >= highThreshold) {
+            updateStreak(location, value >= threshold);
+            return true;
+        }
+        return updateStreak(location, value >= threshold) >= 3;
+    }
+
+    // `compute` actualiza la racha de la ubicación de forma atómica; devolver null borra la entrada
+    private int updateStreak(String location, boolean high) {
+        String key = location == null ? "" : location;
+        if (high && consecutiveHighByLocation.size() >= maxTrackedLocations
+                && !consecutiveHighByLocation.containsKey(key)) {
+            return 0;
         }
-        return value >= highThreshold || consecutiveHigh >= 3;
+        long now = System.currentTimeMillis();
+        Streak streak = consecutiveHighByLocation.compute(key, (k, current) -> {
+            int count = current == null ? 0 : current.count();
+            int next = high ? count + 1 : Math.max(0, count - 1);
+            return next == 0 ? null : new Streak(next, now);
+        });
+        return streak == null ? 0 : streak.count();
     }
 
+    // Descarta las rachas de ubicaciones que llevan `streak-ttl-ms` sin lecturas
+    @Scheduled(fixedDelayString = "${security.sensor.motion.streak-sweep-ms:60000}")
+    public void evictStaleStreaks() {
+        long limit = System.currentTimeMillis() - streakTtlMs;
+        consecutiveHighByLocation.values().removeIf(streak -> streak.lastSeenAt() < limit);
+    }
+
+    // Racha de lecturas altas de una ubicación y la última vez que se actualizó
+    private record Streak(int count, long lastSeenAt) {}
+
     @Override
     public String getSensorType() {
         return SensorType.MOTION.name();
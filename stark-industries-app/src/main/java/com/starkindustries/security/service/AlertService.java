@@ -6,13 +6,11 @@ import com.starkindustries.security.repository.SecurityAlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 // Servicio encargado de crear y gestionar alertas de seguridad a partir de eventos críticos
@@ -30,16 +28,17 @@ public class AlertService {
     @Value("${security.alerts.cooldown-ms:120000}") // Inyecta el valor de la propiedad de configuración, con valor por defecto "120000" (2 minutos) si no está definida
     private long alertsCooldownMs;
 
-    // Crea una alerta asíncrona a partir de un evento de sensor crítico
-    @Async("alertExecutor") // Indica que este método se ejecutará de forma asíncrona en un hilo separado usando el executor especificado ("alertExecutor")
-    public CompletableFuture<SecurityAlert> createAlertFromEvent(SensorEvent event) {
+    // Crea una alerta a partir de un evento de sensor crítico. Se invoca desde la etapa "alert" del
+    // pipeline de sensores, cuyos workers ya se ejecutan en el pool "alertExecutor".
+    // Devuelve la alerta creada, o null si se omite por el enfriamiento de su sensor.
+    public SecurityAlert createAlertFromEvent(SensorEvent event) {
         String key = event.getSensorType().name() + "@" + String.valueOf(event.getLocation());
         long now = System.currentTimeMillis();
         Long last = lastAlertByKey.get(key);
         // Si la última alerta para esa clave es reciente, se omite para evitar spam
         if (last != null && (now - last) < alertsCooldownMs) {
             log.info("Rate limit: omitiendo alerta repetida para {} ({} ms restantes)", key, alertsCooldownMs - (now - last));
-            return CompletableFuture.completedFuture(null);
+            return null;
         }
         lastAlertByKey.put(key, now);
 
@@ -68,7 +67,7 @@ public class AlertService {
 
         log.info("Alerta creada: ID={}, Nivel={}", alert.getId(), alert.getLevel());
 
-        return CompletableFuture.completedFuture(alert);
+        return alert;
     }
 
     // Devuelve las alertas aún no resueltas
@@ -3,55 +3,115 @@ package com.starkindustries.security.service;
 import com.starkindustries.security.model.AccessLog;
 import com.starkindustries.security.model.User;
 import com.starkindustries.security.security.JwtService;
-import lombok.RequiredArgsConstructor;
+import com.starkindustries.security.security.PasswordHashingExecutor;
+import com.starkindustries.security.security.PasswordHashingOverloadException;
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.CompletableFuture;
+
 // Servicio de autenticación: valida credenciales, genera JWT y registra accesos
 @Service // Marca esta clase como un componente de servicio de Spring para que sea detectado automáticamente y registrado en el contexto de Spring
 @Slf4j // Anotación de Lombok que genera automáticamente un logger (log) para esta clase
-@RequiredArgsConstructor // Anotación de Lombok que genera un constructor con todos los campos final, permitiendo inyección de dependencias por constructor
 public class AuthenticationService {
 
-    // Delegado de Spring Security que ejecuta el proceso de autenticación
-    private final AuthenticationManager authenticationManager;
-    // Servicio de dominio para gestionar usuarios (bloqueos, intentos, etc.)
+    // Servicio de dominio para gestionar usuarios (carga, bloqueos, intentos, etc.)
     private final UserService userService;
     // Servicio encargado de generar y validar tokens JWT
     private final JwtService jwtService;
     // Servicio para persistir logs de acceso (login/logout)
     private final AccessLogService accessLogService;
+    // Pool acotado donde se verifica la contraseña (BCrypt), fuera de los hilos de Tomcat
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PasswordEncoder passwordEncoder;
+    // Donde se termina el login tras el hash (JWT, contador de intentos, log de acceso): el pool de
+    // hashing sólo calcula BCrypt y no se queda esperando a la BD
+    private final AsyncTaskExecutor authenticationExecutor;
+
+    // Hash de una contraseña cualquiera para los usuarios que no existen: se verifica igualmente para que
+    // el tiempo de respuesta no delate qué usuarios existen (lo mismo que hace DaoAuthenticationProvider)
+    private volatile String userNotFoundPassword;
+
+    public AuthenticationService(UserService userService,
+                                 JwtService jwtService,
+                                 AccessLogService accessLogService,
+                                 PasswordHashingExecutor passwordHashingExecutor,
+                                 PasswordEncoder passwordEncoder,
+                                 @Qualifier("authenticationExecutor") AsyncTaskExecutor authenticationExecutor) {
+        this.userService = userService;
+        this.jwtService = jwtService;
+        this.accessLogService = accessLogService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.passwordEncoder = passwordEncoder;
+        this.authenticationExecutor = authenticationExecutor;
+    }
 
-    // Autentica al usuario y, si tiene éxito, genera un JWT y registra el acceso
-    public AuthenticationResponse authenticate(AuthenticationRequest request, String ipAddress) {
+    // Autentica al usuario y, si tiene éxito, genera un JWT y registra el acceso. Se hace en tres pasos:
+    // 1. En el hilo de la petición: carga del usuario y comprobación de bloqueo (lecturas de BD, sin CPU).
+    // 2. En el pool de hashing: sólo passwordEncoder.matches. Si el pool está saturado, el futuro falla con
+    //    PasswordHashingOverloadException sin escribir nada en BD (el controlador responde 503).
+    // 3. En authenticationExecutor: JWT, contador de intentos y log de acceso.
+    // Los errores llegan en el futuro como ResponseStatusException (423, 401 o 500).
+    public CompletableFuture<AuthenticationResponse> authenticateAsync(AuthenticationRequest request, String ipAddress) {
         final String username = request.username();
 
+        UserDetails principal;
         try {
-            // Se delega la autenticación al AuthenticationManager configurado en SecurityConfiguration
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            username,
-                            request.password()
-                    )
-            );
+            principal = userService.loadUserByUsername(username);
+            if (!principal.isEnabled()) {
+                throw new DisabledException("Cuenta deshabilitada");
+            }
+        } catch (UsernameNotFoundException e) {
+            // Se sigue adelante con un hash de relleno: la respuesta será 401 "Credenciales inválidas"
+            principal = null;
+        } catch (LockedException e) {
+            return CompletableFuture.failedFuture(locked(username, ipAddress));
+        } catch (AuthenticationException e) {
+            return CompletableFuture.failedFuture(authenticationError(username, ipAddress, e));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(internalError(username, ipAddress, e));
+        }
 
-            // Obtenemos el principal resultante (UserDetails) tras la autenticación
-            UserDetails principal = (UserDetails) authentication.getPrincipal();
+        final UserDetails user = principal;
+        final String encodedPassword = user != null ? user.getPassword() : userNotFoundPassword();
+        final String rawPassword = request.password() != null ? request.password() : "";
+        return passwordHashingExecutor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword))
+                .handleAsync((matches, error) -> {
+                    if (error instanceof PasswordHashingOverloadException overload) {
+                        // Sobrecarga: no se toca la BD, el cliente reintentará
+                        throw overload;
+                    }
+                    if (error != null) {
+                        throw internalError(username, ipAddress, error);
+                    }
+                    if (user == null || !matches) {
+                        throw badCredentials(username, ipAddress);
+                    }
+                    return authenticated(user, ipAddress);
+                }, authenticationExecutor);
+    }
+
+    // Contraseña correcta: genera el JWT, reinicia el contador de intentos y registra el acceso
+    private AuthenticationResponse authenticated(UserDetails principal, String ipAddress) {
+        final String username = principal.getUsername();
+        try {
             User user;
             if (principal instanceof User) {
                 user = (User) principal;
             } else {
                 // Si el principal no es nuestra entidad User, la recuperamos desde el servicio
-                user = userService.getUserByUsername(principal.getUsername());
+                user = userService.getUserByUsername(username);
             }
 
             // Generamos un token JWT para el usuario autenticado
@@ -77,62 +137,88 @@ public class AuthenticationService {
                     .roles(user.getRoles())
                     .message("Autenticación exitosa")
                     .build();
+        } catch (Exception e) {
+            throw internalError(username, ipAddress, e);
+        }
+    }
 
-        } catch (LockedException e) {
-            // Caso en el que la cuenta está bloqueada
-            accessLogService.logAccess(
-                    username,
-                    ipAddress,
-                    AccessLog.AccessType.LOGIN,
-                    false,
-                    "Cuenta bloqueada"
-            );
-            log.warn("Cuenta bloqueada para usuario: {}", username);
-            throw new ResponseStatusException(HttpStatus.LOCKED, "Cuenta bloqueada debido a múltiples intentos fallidos");
-        } catch (BadCredentialsException e) {
-            // Credenciales incorrectas: se incrementa contador de intentos y se registra
-            try {
-                User user = userService.getUserByUsername(username);
-                userService.increaseFailedAttempts(user);
-            } catch (Exception ignored) {}
+    // Caso en el que la cuenta está bloqueada
+    private ResponseStatusException locked(String username, String ipAddress) {
+        accessLogService.logAccess(
+                username,
+                ipAddress,
+                AccessLog.AccessType.LOGIN,
+                false,
+                "Cuenta bloqueada"
+        );
+        log.warn("Cuenta bloqueada para usuario: {}", username);
+        return new ResponseStatusException(HttpStatus.LOCKED, "Cuenta bloqueada debido a múltiples intentos fallidos");
+    }
 
-            accessLogService.logAccess(
-                    username,
-                    ipAddress,
-                    AccessLog.AccessType.LOGIN,
-                    false,
-                    "Credenciales inválidas"
-            );
+    // Credenciales incorrectas: se incrementa contador de intentos y se registra
+    private ResponseStatusException badCredentials(String username, String ipAddress) {
+        try {
+            User user = userService.getUserByUsername(username);
+            userService.increaseFailedAttempts(user);
+        } catch (Exception ignored) {}
 
-            log.warn("Intento de autenticación fallido (credenciales) para usuario: {}", username);
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Credenciales inválidas");
-        } catch (AuthenticationException e) {
-            // Cualquier otro problema de autenticación (por ejemplo, configuración)
-            accessLogService.logAccess(
-                    username,
-                    ipAddress,
-                    AccessLog.AccessType.LOGIN,
-                    false,
-                    "Error de autenticación"
-            );
-            log.warn("Error de autenticación para usuario {}: {}", username, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No autorizado");
-        } catch (Exception e) {
-            // Errores internos no previstos
-            accessLogService.logAccess(
-                    username,
-                    ipAddress,
-                    AccessLog.AccessType.LOGIN,
-                    false,
-                    "Error interno"
-            );
-            log.error("Error interno durante autenticación de {}: {}", username, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
+        accessLogService.logAccess(
+                username,
+                ipAddress,
+                AccessLog.AccessType.LOGIN,
+                false,
+                "Credenciales inválidas"
+        );
+
+        log.warn("Intento de autenticación fallido (credenciales) para usuario: {}", username);
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Credenciales inválidas");
+    }
+
+    // Cualquier otro problema de autenticación (por ejemplo, cuenta deshabilitada)
+    private ResponseStatusException authenticationError(String username, String ipAddress, AuthenticationException e) {
+        accessLogService.logAccess(
+                username,
+                ipAddress,
+                AccessLog.AccessType.LOGIN,
+                false,
+                "Error de autenticación"
+        );
+        log.warn("Error de autenticación para usuario {}: {}", username, e.getMessage());
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No autorizado");
+    }
+
+    // Errores internos no previstos
+    private ResponseStatusException internalError(String username, String ipAddress, Throwable e) {
+        accessLogService.logAccess(
+                username,
+                ipAddress,
+                AccessLog.AccessType.LOGIN,
+                false,
+                "Error interno"
+        );
+        log.error("Error interno durante autenticación de {}: {}", username, e.getMessage());
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
+    }
+
+    // Se calcula una sola vez, la primera vez que alguien intenta entrar con un usuario inexistente
+    private String userNotFoundPassword() {
+        String encoded = userNotFoundPassword;
+        if (encoded == null) {
+            encoded = passwordEncoder.encode("userNotFoundPassword");
+            userNotFoundPassword = encoded;
         }
+        return encoded;
     }
 
-    // Registra un logout exitoso del usuario (no invalida JWT, simplemente deja constancia)
-    public void logout(String username, String ipAddress) {
+    // Registra el logout del usuario y revoca el JWT con el que se hizo (deja de valer en la siguiente petición)
+    public void logout(String username, String ipAddress, String token) {
+        if (token != null) {
+            try {
+                jwtService.revoke(token);
+            } catch (JwtException e) {
+                log.debug("Logout con un token no válido: {}", e.getMessage());
+            }
+        }
         accessLogService.logAccess(
                 username,
                 ipAddress,
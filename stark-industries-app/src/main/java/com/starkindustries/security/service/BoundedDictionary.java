@@ -0,0 +1,75 @@
+package com.starkindustries.security.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+// Diccionario acotado de cadenas que vienen de fuera (ubicaciones, unidades) y se usan como clave en
+// estructuras en memoria. Cada cadena admitida recibe un id consecutivo y un valor asociado creado una sola
+// vez; la entrada comodín existe desde el principio (id 0) y a ella van las cadenas vacías y todas las
+// nuevas una vez alcanzado el máximo. La búsqueda de una cadena ya internada es una lectura del mapa; el
+// alta se hace bajo un bloqueo, así que el máximo se respeta aunque muchos hilos den de alta a la vez.
+final class BoundedDictionary<V> {
+
+    private final int maxEntries;
+    private final Function<String, V> factory;
+    private final Map<String, Entry<V>> byKey = new ConcurrentHashMap<>();
+    // Mismas entradas en orden de alta (posición = id), para recorrerlas o resolver un id sin el mapa
+    private final List<Entry<V>> entries = new CopyOnWriteArrayList<>();
+    private final Entry<V> overflow;
+
+    // `maxEntries` cadenas distintas además de la comodín
+    BoundedDictionary(int maxEntries, String overflowKey, Function<String, V> factory) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.factory = factory;
+        this.overflow = add(overflowKey);
+    }
+
+    // Diccionario sin valor asociado: sólo cadenas canónicas e ids
+    static BoundedDictionary<String> ofStrings(int maxEntries, String overflowKey) {
+        return new BoundedDictionary<>(maxEntries, overflowKey, Function.identity());
+    }
+
+    // Entrada de la cadena (la comodín si es nula, vacía o ya no caben más)
+    Entry<V> intern(String key) {
+        if (key == null || key.isBlank()) {
+            return overflow;
+        }
+        Entry<V> entry = byKey.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            entry = byKey.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            return entries.size() > maxEntries ? overflow : add(key);
+        }
+    }
+
+    Entry<V> get(int id) {
+        return entries.get(id);
+    }
+
+    // Todas las entradas en orden de alta (vista de sólo lectura que no se bloquea al recorrerla)
+    List<Entry<V>> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Entry<V> add(String key) {
+        Entry<V> entry = new Entry<>(entries.size(), key, factory.apply(key));
+        entries.add(entry);
+        byKey.put(key, entry);
+        return entry;
+    }
+
+    record Entry<V>(int id, String key, V value) {}
+}
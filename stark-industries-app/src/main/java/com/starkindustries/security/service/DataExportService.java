@@ -0,0 +1,252 @@
+package com.starkindustries.security.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.starkindustries.security.config.ExportTimeoutConfiguration;
+import com.starkindustries.security.model.AccessLog;
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.repository.AccessLogRepository;
+import com.starkindustries.security.repository.SensorEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Exportación completa de eventos de sensores y logs de acceso (auditoría) en CSV o NDJSON, opcionalmente
+// comprimida con gzip. Las filas se leen con un cursor de sólo avance y sólo lectura (Stream de JPA con
+// fetch size acotado) y se escriben una a una en la respuesta, soltando cada entidad del contexto de
+// persistencia: la memoria usada es la misma exporte 1.000 o 10 millones de filas.
+@Service
+@Slf4j
+public class DataExportService {
+
+    private static final String[] SENSOR_EVENT_COLUMNS = {"id", "sensorType", "sensorId", "location", "value",
+            "unit", "description", "critical", "timestamp", "processedAt", "processedBy", "processingTimeMs"};
+
+    private static final String[] ACCESS_LOG_COLUMNS = {"id", "username", "ipAddress", "accessType", "successful",
+            "failureReason", "timestamp", "userAgent", "location"};
+
+    private static final DateTimeFormatter FILENAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Primer carácter con el que una hoja de cálculo interpreta la celda como fórmula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final SensorEventRepository sensorEventRepository;
+    private final AccessLogRepository accessLogRepository;
+    private final EntityManager entityManager;
+    // Sin volcar tras cada fila: el volcado lo marca `flushRows`
+    private final ObjectWriter rowWriter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Cada cuántas filas se vuelca lo escrito al cliente
+    @Value("${stark.export.flush-rows:500}")
+    private int flushRows;
+
+    // Tamaño del buffer de escritura (y del de compresión)
+    @Value("${stark.export.buffer-size:65536}")
+    private int bufferSize;
+
+    public DataExportService(SensorEventRepository sensorEventRepository,
+                             AccessLogRepository accessLogRepository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.sensorEventRepository = sensorEventRepository;
+        this.accessLogRepository = accessLogRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Formatos de exportación soportados
+    // Respuesta de descarga común a todas las exportaciones: tipo del formato (o gzip), fichero adjunto
+    // `<dataset>-<fecha>.<extensión>[.gz]` y el timeout largo de las exportaciones para esta petición
+    public static ResponseEntity<StreamingResponseBody> downloadResponse(String dataset, Format format, boolean gzip,
+                                                                         StreamingResponseBody body) {
+        ExportTimeoutConfiguration.markExportRequest();
+        String filename = dataset + "-" + LocalDateTime.now().format(FILENAME_TIMESTAMP)
+                + "." + format.extension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            return value == null ? CSV : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // Filtros de la exportación de logs de acceso (los nulos no se aplican)
+    public record AccessLogFilter(AccessLog.AccessType accessType, String location, Boolean successful,
+                                  LocalDateTime start, LocalDateTime end) {}
+
+    // Escribe en `out` los eventos de sensores del filtro, en orden (timestamp, id). Devuelve las filas escritas.
+    @Transactional(readOnly = true)
+    public long exportSensorEvents(SensorEventQueryService.EventFilter filter, Format format, boolean gzip,
+                                   OutputStream out) throws IOException {
+        try (Stream<SensorEvent> rows = sensorEventRepository.streamFiltered(filter.type(), filter.location(),
+                filter.critical(), filter.from(), filter.to())) {
+            return export("sensor_events", rows, format, gzip, out, SENSOR_EVENT_COLUMNS, e -> new Object[] {
+                    e.getId(), e.getSensorType(), e.getSensorId(), e.getLocation(), e.getValue(), e.getUnit(),
+                    e.getDescription(), e.getCritical(), e.getTimestamp(), e.getProcessedAt(), e.getProcessedBy(),
+                    e.getProcessingTimeMs()});
+        }
+    }
+
+    // Escribe en `out` los logs de acceso del filtro, en orden (timestamp, id). Devuelve las filas escritas.
+    @Transactional(readOnly = true)
+    public long exportAccessLogs(AccessLogFilter filter, Format format, boolean gzip, OutputStream out)
+            throws IOException {
+        LocalDateTime start = filter.start() != null ? filter.start() : SensorEventQueryService.MIN_TIMESTAMP;
+        LocalDateTime end = filter.end() != null ? filter.end() : SensorEventQueryService.MAX_TIMESTAMP;
+        try (Stream<AccessLog> rows = accessLogRepository.streamFiltered(filter.accessType(), filter.location(),
+                filter.successful(), start, end)) {
+            return export("access_logs", rows, format, gzip, out, ACCESS_LOG_COLUMNS, l -> new Object[] {
+                    l.getId(), l.getUsername(), l.getIpAddress(), l.getAccessType(), l.getSuccessful(),
+                    l.getFailureReason(), l.getTimestamp(), l.getUserAgent(), l.getLocation()});
+        }
+    }
+
+    // Recorre el Stream escribiendo cada fila en el formato pedido. No cierra `out` (es de la respuesta HTTP),
+    // pero sí el compresor y el generador aunque el cliente corte a medias: el Deflater usa memoria nativa.
+    private <T> long export(String dataset, Stream<T> rows, Format format, boolean gzip, OutputStream out,
+                            String[] columns, Function<T, Object[]> values) throws IOException {
+        long startedAt = System.nanoTime();
+        long written = 0;
+        OutputStream target = StreamUtils.nonClosing(out);
+        // syncFlush: cada volcado periódico llega al cliente aunque la salida vaya comprimida
+        try (OutputStream sink = gzip ? new GZIPOutputStream(target, bufferSize, true) : target;
+             Writer writer = new BufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8), bufferSize);
+             JsonGenerator json = format == Format.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null) {
+            if (json == null) {
+                writeCsvLine(writer, columns);
+            }
+
+            for (T row : (Iterable<T>) rows::iterator) {
+                if (json != null) {
+                    rowWriter.writeValue(json, row);
+                    json.writeRaw('\n');
+                } else {
+                    writeCsvLine(writer, values.apply(row));
+                }
+                // Sin esto el contexto de persistencia retendría todas las filas leídas
+                entityManager.detach(row);
+                if (++written % flushRows == 0) {
+                    if (json != null) {
+                        json.flush();
+                    }
+                    writer.flush();
+                }
+            }
+        }
+        // Al cerrar se ha vaciado todo (y escrito el final del gzip) en `out`
+        out.flush();
+        record(dataset, format, written, System.nanoTime() - startedAt);
+        return written;
+    }
+
+    // Una línea CSV (RFC 4180): comillas sólo en los campos que las necesitan, nulos como campo vacío.
+    // Los textos que empiezan por =, +, -, @, tabulador o retorno de carro llevan delante una comilla simple
+    // para que una hoja de cálculo no los interprete como fórmula (ubicaciones, user agents... vienen de fuera).
+    private static void writeCsvLine(Writer writer, Object[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            String text = field.toString();
+            if (field instanceof CharSequence && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // Filas, duración y rendimiento (filas/s) de cada exportación
+    private void record(String dataset, Format format, long rows, long nanos) {
+        String formatTag = format.extension();
+        Counter.builder("export.rows")
+                .description("Filas exportadas")
+                .tag("dataset", dataset)
+                .tag("format", formatTag)
+                .register(meterRegistry)
+                .increment(rows);
+        Timer.builder("export.duration")
+                .description("Duración de las exportaciones")
+                .tag("dataset", dataset)
+                .tag("format", formatTag)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        double seconds = Math.max(nanos, 1) / 1_000_000_000.0;
+        long rowsPerSecond = Math.round(rows / seconds);
+        DistributionSummary.builder("export.throughput")
+                .description("Filas por segundo de cada exportación")
+                .baseUnit("rows/s")
+                .tag("dataset", dataset)
+                .tag("format", formatTag)
+                .register(meterRegistry)
+                .record(rowsPerSecond);
+        log.info("Exportación de {} ({}): {} filas en {} ms ({} filas/s)", dataset, formatTag, rows,
+                TimeUnit.NANOSECONDS.toMillis(nanos), rowsPerSecond);
+    }
+}
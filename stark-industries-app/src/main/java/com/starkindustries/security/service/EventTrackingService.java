@@ -0,0 +1,128 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Seguimiento de eventos enviados por HTTP: permite responder antes de que termine el procesamiento
+// ("fire and track") y consultar después su estado mediante un identificador de seguimiento.
+@Service
+@Slf4j
+public class EventTrackingService {
+
+    // Estados posibles de un evento en seguimiento
+    public enum Status { PENDING, COMPLETED, FAILED }
+
+    private final Map<String, TrackedEvent> tracked = new ConcurrentHashMap<>();
+    // Ids en orden de alta, para descartar los más antiguos al llegar al máximo
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+
+    // Tiempo que se conserva el estado de un evento ya terminado
+    @Value("${stark.sensors.tracking.ttl-ms:600000}")
+    private long ttlMs;
+
+    // Máximo de entradas (límite estricto): al superarlo se descartan las más antiguas, terminadas o no
+    @Value("${stark.sensors.tracking.max-entries:10000}")
+    private int maxEntries;
+
+    // Registra el procesamiento en curso y devuelve su id de seguimiento.
+    // El estado se actualiza solo cuando el futuro termina, sin bloquear ningún hilo.
+    public String track(SensorEvent event, CompletableFuture<SensorEvent> processing) {
+        String trackingId = UUID.randomUUID().toString();
+        TrackedEvent entry = new TrackedEvent(trackingId, event.getSensorId(), event.getSensorType());
+        tracked.put(trackingId, entry);
+        order.add(trackingId);
+        while (tracked.size() > maxEntries) {
+            String oldest = order.poll();
+            if (oldest == null) {
+                break;
+            }
+            tracked.remove(oldest);
+        }
+        processing.whenComplete((processed, error) -> entry.complete(processed, error));
+        return trackingId;
+    }
+
+    // Estado actual de un evento en seguimiento (vacío si no existe o ya caducó)
+    public Optional<EventStatus> getStatus(String trackingId) {
+        return Optional.ofNullable(tracked.get(trackingId)).map(TrackedEvent::toStatus);
+    }
+
+    // Limpieza periódica de entradas terminadas hace más de `ttlMs` (las pendientes sólo salen por el máximo)
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        long limit = System.currentTimeMillis() - ttlMs;
+        int before = tracked.size();
+        tracked.values().removeIf(e -> e.completedAtMillis != 0 && e.completedAtMillis <= limit);
+        order.removeIf(id -> !tracked.containsKey(id));
+        int removed = before - tracked.size();
+        if (removed > 0) {
+            log.debug("Eliminadas {} entradas de seguimiento de eventos", removed);
+        }
+    }
+
+    // Entrada mutable: la escribe el hilo que completa el futuro y la leen las peticiones de estado
+    private static final class TrackedEvent {
+        private final String trackingId;
+        private final String sensorId;
+        private final SensorType sensorType;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile Status status = Status.PENDING;
+        private volatile SensorEvent processed;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+        private volatile long completedAtMillis;
+
+        TrackedEvent(String trackingId, String sensorId, SensorType sensorType) {
+            this.trackingId = trackingId;
+            this.sensorId = sensorId;
+            this.sensorType = sensorType;
+        }
+
+        void complete(SensorEvent result, Throwable failure) {
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                error = cause.getMessage();
+                status = Status.FAILED;
+            } else {
+                processed = result;
+                status = Status.COMPLETED;
+            }
+            completedAt = LocalDateTime.now();
+            completedAtMillis = System.currentTimeMillis();
+        }
+
+        EventStatus toStatus() {
+            SensorEvent event = processed;
+            return new EventStatus(trackingId, status, sensorId, sensorType,
+                    event != null ? event.getCritical() : null,
+                    event != null ? event.getId() : null,
+                    error, submittedAt, completedAt);
+        }
+    }
+
+    // Vista pública del estado de un evento en seguimiento
+    public record EventStatus(
+            String trackingId,
+            Status status,
+            String sensorId,
+            SensorType sensorType,
+            Boolean critical,
+            Long eventId,
+            String error,
+            LocalDateTime submittedAt,
+            LocalDateTime completedAt
+    ) {}
+}
@@ -0,0 +1,229 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.repository.AccessLogRepository;
+import com.starkindustries.security.repository.SecurityAlertRepository;
+import com.starkindustries.security.repository.SensorEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Retención de datos: borra periódicamente las filas más antiguas que la antigüedad máxima configurada
+// para cada tabla (security.retention.<tabla>.max-age; 0 = sin límite).
+// Se borra por trozos: cada uno toma los `chunk-size` ids más bajos anteriores al corte (consulta acotada
+// con LIMIT) y los borra en su propia transacción corta, con una pausa entre trozos: los bloqueos duran poco
+// y las inserciones del pipeline no esperan. Los huecos de ids no cuestan nada: sólo se visitan filas vivas.
+// La purga corre en su propio hilo, así que tampoco retrasa al resto de tareas programadas.
+// Los agregados de `sensor_rollups` no se purgan: las estadísticas históricas se conservan.
+@Service
+@Slf4j
+public class RetentionService {
+
+    private final MeterRegistry meterRegistry;
+    private final List<Policy> policies = new ArrayList<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, Map<String, Object>> lastRun = new LinkedHashMap<>();
+    private ExecutorService purger;
+
+    private final SensorEventRepository sensorEventRepository;
+    private final SecurityAlertRepository securityAlertRepository;
+    private final AccessLogRepository accessLogRepository;
+
+    @Value("${security.retention.enabled:true}")
+    private boolean enabled;
+
+    // Filas (ids) por trozo de borrado y pausa entre trozos
+    @Value("${security.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${security.retention.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${security.retention.sensor-events.max-age:30d}")
+    private Duration sensorEventsMaxAge;
+
+    // Sólo alertas resueltas
+    @Value("${security.retention.security-alerts.max-age:90d}")
+    private Duration securityAlertsMaxAge;
+
+    @Value("${security.retention.access-logs.max-age:180d}")
+    private Duration accessLogsMaxAge;
+
+    public RetentionService(SensorEventRepository sensorEventRepository,
+                            SecurityAlertRepository securityAlertRepository,
+                            AccessLogRepository accessLogRepository,
+                            MeterRegistry meterRegistry) {
+        this.sensorEventRepository = sensorEventRepository;
+        this.securityAlertRepository = securityAlertRepository;
+        this.accessLogRepository = accessLogRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        policies.add(policy("sensor_events", sensorEventsMaxAge, sensorEventRepository::findIdsBefore,
+                sensorEventRepository::deleteIdsBefore));
+        policies.add(policy("security_alerts", securityAlertsMaxAge, securityAlertRepository::findIdsBefore,
+                securityAlertRepository::deleteIdsBefore));
+        policies.add(policy("access_logs", accessLogsMaxAge, accessLogRepository::findIdsBefore,
+                accessLogRepository::deleteIdsBefore));
+        purger = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "RetentionPurger");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Lanza una purga si la retención está activa
+    @Scheduled(fixedDelayString = "${security.retention.interval-ms:3600000}",
+            initialDelayString = "${security.retention.initial-delay-ms:300000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purgeAsync();
+        }
+    }
+
+    // Encola una purga de todas las tablas en el hilo de purga; false si ya hay una en curso
+    public boolean purgeAsync() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            purger.execute(() -> {
+                try {
+                    for (Policy policy : policies) {
+                        purge(policy);
+                    }
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // Configuración y resultado de la última purga de cada tabla
+    public Map<String, Object> describe() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", running.get());
+        status.put("chunkSize", chunkSize);
+        status.put("pauseMs", pauseMs);
+        Map<String, Object> tables = new LinkedHashMap<>();
+        synchronized (lastRun) {
+            for (Policy policy : policies) {
+                Map<String, Object> table = new LinkedHashMap<>();
+                table.put("maxAge", policy.maxAge().toString());
+                table.put("lastRun", lastRun.get(policy.table()));
+                tables.put(policy.table(), table);
+            }
+        }
+        status.put("tables", tables);
+        return status;
+    }
+
+    private void purge(Policy policy) {
+        if (policy.maxAge().isZero() || policy.maxAge().isNegative()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(policy.maxAge());
+        long startedAt = System.nanoTime();
+        long purged = 0;
+        try {
+            Pageable chunk = PageRequest.of(0, chunkSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> ids = policy.victims().find(cutoff, chunk);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long chunkStart = System.nanoTime();
+                int deleted = policy.delete().delete(ids, cutoff);
+                policy.chunkLatency().record(System.nanoTime() - chunkStart, TimeUnit.NANOSECONDS);
+                policy.rowsPurged().increment(deleted);
+                purged += deleted;
+                // Un trozo incompleto era el último
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error purgando {}: {}", policy.table(), e.getMessage());
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        policy.purgeLatency().record(elapsed, TimeUnit.NANOSECONDS);
+        synchronized (lastRun) {
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("cutoff", cutoff);
+            run.put("rowsPurged", purged);
+            run.put("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+            run.put("finishedAt", LocalDateTime.now());
+            lastRun.put(policy.table(), run);
+        }
+        if (purged > 0) {
+            log.info("Retención: purgadas {} filas de {} anteriores a {} en {} ms", purged, policy.table(), cutoff,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        purger.shutdownNow();
+        purger.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @FunctionalInterface
+    private interface VictimQuery {
+        List<Long> find(LocalDateTime cutoff, Pageable page);
+    }
+
+    @FunctionalInterface
+    private interface ChunkDelete {
+        int delete(List<Long> ids, LocalDateTime cutoff);
+    }
+
+    // Política de una tabla y sus métricas
+    private record Policy(String table, Duration maxAge, VictimQuery victims, ChunkDelete delete,
+                          Counter rowsPurged, Timer purgeLatency, Timer chunkLatency) {}
+
+    private Policy policy(String table, Duration maxAge, VictimQuery victims, ChunkDelete delete) {
+        return new Policy(table, maxAge, victims, delete,
+                Counter.builder("retention.rows.purged")
+                        .description("Filas borradas por la retención")
+                        .tag("table", table)
+                        .register(meterRegistry),
+                Timer.builder("retention.purge.time")
+                        .description("Duración de cada purga completa de una tabla")
+                        .tag("table", table)
+                        .register(meterRegistry),
+                Timer.builder("retention.chunk.time")
+                        .description("Duración de cada trozo de borrado (tiempo que se retienen los bloqueos)")
+                        .tag("table", table)
+                        .register(meterRegistry));
+    }
+}
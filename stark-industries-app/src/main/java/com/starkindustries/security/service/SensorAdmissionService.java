@@ -0,0 +1,166 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.sensor.Sensor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+// Control de admisión delante del pipeline de sensores con un límite de concurrencia adaptativo (AIMD):
+// - Si la latencia observada (admisión -> fin de procesamiento) supera el objetivo, el límite se reduce
+//   de forma multiplicativa (como mucho una vez por ventana de latencia objetivo).
+// - Mientras la latencia es buena y el límite se está usando, crece de forma aditiva (~+1 por cada
+//   `limit` eventos completados).
+// Al acercarse al límite se descartan primero las lecturas de temperatura no críticas, después las de
+// movimiento; los eventos de acceso nunca se descartan.
+@Service
+@Slf4j
+public class SensorAdmissionService {
+
+    private final Sensor temperatureSensor;
+
+    @Value("${stark.sensors.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stark.sensors.admission.min-limit:20}")
+    private int minLimit;
+
+    @Value("${stark.sensors.admission.max-limit:400}")
+    private int maxLimit;
+
+    // Latencia objetivo de extremo a extremo por evento
+    @Value("${stark.sensors.admission.target-latency-ms:1000}")
+    private long targetLatencyMs;
+
+    // Factor de reducción multiplicativa cuando se supera la latencia objetivo
+    @Value("${stark.sensors.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    // Fracción del límite a partir de la cual se descarta cada tipo (ACCESS no es configurable: nunca se descarta)
+    @Value("${stark.sensors.admission.shed-threshold.temperature:0.7}")
+    private double temperatureShedThreshold;
+
+    @Value("${stark.sensors.admission.shed-threshold.motion:1.0}")
+    private double motionShedThreshold;
+
+    @Value("${stark.sensors.admission.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    // Límite actual (double guardado como bits para actualizarlo sin bloqueos) y eventos admitidos en curso
+    private final AtomicLong limitBits = new AtomicLong();
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+
+    private final Map<SensorType, Counter> shedCounters = new EnumMap<>(SensorType.class);
+
+    public SensorAdmissionService(@Qualifier("temperatureSensor") Sensor temperatureSensor,
+                                  @Value("${stark.sensors.admission.initial-limit:100}") int initialLimit,
+                                  MeterRegistry meterRegistry) {
+        this.temperatureSensor = temperatureSensor;
+        this.limitBits.set(Double.doubleToLongBits(initialLimit));
+        Gauge.builder("sensor.admission.limit", this, SensorAdmissionService::getLimit)
+                .description("Límite adaptativo de eventos en curso")
+                .register(meterRegistry);
+        Gauge.builder("sensor.admission.inflight", inflight, AtomicInteger::get)
+                .description("Eventos admitidos pendientes de terminar")
+                .register(meterRegistry);
+        for (SensorType type : SensorType.values()) {
+            shedCounters.put(type, Counter.builder("sensor.admission.shed")
+                    .description("Eventos descartados por sobrecarga")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    // Intenta admitir el evento. Devuelve el permiso que hay que liberar al terminar, o lanza
+    // SensorOverloadException si el evento se descarta.
+    public Permit admit(SensorEvent event) {
+        if (!enabled) {
+            return Permit.NONE;
+        }
+        SensorType type = event.getSensorType();
+        int current = inflight.incrementAndGet();
+        if (current > shedLimit(event)) {
+            inflight.decrementAndGet();
+            shedCounters.get(type).increment();
+            log.debug("Evento {} descartado por sobrecarga (en curso={}, límite={})", type, current, (int) getLimit());
+            throw new SensorOverloadException(type, retryAfterSeconds);
+        }
+        return new Permit(this, System.nanoTime());
+    }
+
+    public double getLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    // Número de eventos en curso a partir del cual se descarta este evento
+    private double shedLimit(SensorEvent event) {
+        double limit = getLimit();
+        return switch (event.getSensorType()) {
+            case ACCESS -> Double.MAX_VALUE;
+            case MOTION -> limit * motionShedThreshold;
+            // Una lectura fuera de rango es una alerta en potencia: se trata como el movimiento
+            case TEMPERATURE -> event.getValue() != null && temperatureSensor.requiresAlert(event.getValue())
+                    ? limit * motionShedThreshold
+                    : limit * temperatureShedThreshold;
+        };
+    }
+
+    // Ajuste AIMD al terminar un evento admitido
+    private void onComplete(long startNanos) {
+        int current = inflight.getAndDecrement();
+        long now = System.nanoTime();
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        if (now - startNanos > targetNanos) {
+            long last = lastDecreaseNanos.get();
+            // Una sola reducción por ventana: los eventos lentos de una misma ráfaga no lo hunden al mínimo
+            if (now - last > targetNanos && lastDecreaseNanos.compareAndSet(last, now)) {
+                double updated = updateLimit(l -> Math.max(minLimit, l * backoffRatio));
+                log.debug("Latencia por encima del objetivo: límite de admisión reducido a {}", (int) updated);
+            }
+        } else if (current >= getLimit() / 2) {
+            updateLimit(l -> Math.min(maxLimit, l + 1.0 / l));
+        }
+    }
+
+    private double updateLimit(DoubleUnaryOperator update) {
+        long updated = limitBits.updateAndGet(bits ->
+                Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+        return Double.longBitsToDouble(updated);
+    }
+
+    // Permiso de un evento admitido; se libera una sola vez al terminar (con éxito o con error)
+    public static final class Permit {
+        static final Permit NONE = new Permit(null, 0);
+
+        private final SensorAdmissionService owner;
+        private final long startNanos;
+
+        private Permit(SensorAdmissionService owner, long startNanos) {
+            this.owner = owner;
+            this.startNanos = startNanos;
+        }
+
+        public void release() {
+            if (owner != null) {
+                owner.onComplete(startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contadores de eventos procesados por tipo × ubicación × criticidad.
+// - Cada celda es un `LongAdder`: los hilos que incrementan a la vez el mismo contador escriben en
+//   celdas distintas en lugar de pelearse por un único `AtomicLong` (y su línea de caché).
+// - Las ubicaciones se "internan" en un `BoundedDictionary`: la primera vez se crea su bloque de contadores
+//   y a partir de ahí el incremento es una lectura del mapa + `increment()`, sin bloqueos ni asignaciones.
+// - Las ubicaciones vienen de la API, así que el diccionario está acotado: pasado el máximo, las nuevas
+//   se acumulan en una ubicación comodín.
+@Component
+@Slf4j
+public class SensorEventCounters {
+
+    // Ubicación para eventos sin ubicación o por encima del máximo de ubicaciones distintas
+    public static final String OTHER_LOCATION = "(otras)";
+
+    private static final int TYPES = SensorType.values().length;
+
+    @Value("${stark.sensors.counters.max-locations:1024}")
+    private int maxLocations;
+
+    // Diccionario de ubicaciones internadas y su bloque de contadores
+    private BoundedDictionary<LocationCounters> locations;
+
+    @PostConstruct
+    void init() {
+        locations = new BoundedDictionary<>(maxLocations, OTHER_LOCATION, location -> {
+            log.debug("Nueva ubicación en los contadores de eventos: {}", location);
+            return new LocationCounters(location);
+        });
+    }
+
+    // Incremento O(1) sin bloqueos (salvo el alta de una ubicación nueva)
+    public void increment(SensorType type, String location, boolean critical) {
+        locations.intern(location).value().cells[type.ordinal() * 2 + (critical ? 1 : 0)].increment();
+    }
+
+    // Foto de todos los contadores en una sola pasada. Cada celda se lee una vez y todos los totales
+    // (por tipo y por ubicación) se derivan de esas mismas lecturas, así que son coherentes entre sí:
+    // los totales por tipo son exactamente la suma de las ubicaciones y los críticos nunca superan al total.
+    public Snapshot snapshot() {
+        long[] total = new long[TYPES];
+        long[] critical = new long[TYPES];
+        Map<String, Map<SensorType, Counts>> perLocation = new TreeMap<>();
+        for (BoundedDictionary.Entry<LocationCounters> entry : locations.entries()) {
+            LocationCounters counters = entry.value();
+            Map<SensorType, Counts> counts = new EnumMap<>(SensorType.class);
+            for (SensorType type : SensorType.values()) {
+                long normal = counters.cells[type.ordinal() * 2].sum();
+                long crit = counters.cells[type.ordinal() * 2 + 1].sum();
+                if (normal + crit > 0) {
+                    counts.put(type, new Counts(normal + crit, crit));
+                    total[type.ordinal()] += normal + crit;
+                    critical[type.ordinal()] += crit;
+                }
+            }
+            if (!counts.isEmpty()) {
+                perLocation.put(counters.location, counts);
+            }
+        }
+        Map<SensorType, Long> totals = new EnumMap<>(SensorType.class);
+        Map<SensorType, Long> criticals = new EnumMap<>(SensorType.class);
+        for (SensorType type : SensorType.values()) {
+            totals.put(type, total[type.ordinal()]);
+            criticals.put(type, critical[type.ordinal()]);
+        }
+        return new Snapshot(totals, criticals, perLocation);
+    }
+
+    // Total por tipo sumando todas las ubicaciones (lo usan los gauges de Micrometer)
+    public long total(SensorType type) {
+        long sum = 0;
+        for (BoundedDictionary.Entry<LocationCounters> entry : locations.entries()) {
+            LocationCounters counters = entry.value();
+            sum += counters.cells[type.ordinal() * 2].sum() + counters.cells[type.ordinal() * 2 + 1].sum();
+        }
+        return sum;
+    }
+
+    public long critical(SensorType type) {
+        long sum = 0;
+        for (BoundedDictionary.Entry<LocationCounters> entry : locations.entries()) {
+            sum += entry.value().cells[type.ordinal() * 2 + 1].sum();
+        }
+        return sum;
+    }
+
+    // Bloque de contadores de una ubicación: una celda por tipo y criticidad ([tipo * 2 + crítico])
+    private static final class LocationCounters {
+        private final String location;
+        private final LongAdder[] cells = new LongAdder[TYPES * 2];
+
+        LocationCounters(String location) {
+            this.location = location;
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = new LongAdder();
+            }
+        }
+    }
+
+    // Eventos totales y críticos de un tipo en una ubicación
+    public record Counts(long total, long critical) {}
+
+    // Foto coherente de los contadores (ver `snapshot()`)
+    public record Snapshot(Map<SensorType, Long> total,
+                           Map<SensorType, Long> critical,
+                           Map<String, Map<SensorType, Counts>> byLocation) {}
+}
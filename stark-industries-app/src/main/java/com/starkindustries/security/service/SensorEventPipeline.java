@@ -0,0 +1,208 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.config.PipelineStage;
+import com.starkindustries.security.config.SensorBulkheads;
+import com.starkindustries.security.config.WaitStrategy;
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Pipeline por etapas (SEDA) de los eventos de sensores: evaluate -> persist -> broadcast -> alert.
+// Cada etapa tiene su propia cola acotada, número de workers y tamaño de lote, de modo que un paso lento
+// (p. ej. la BD) sólo acumula trabajo en su cola en lugar de retener a los demás:
+// - evaluate: carriles serie por sensor sobre los compartimentos por tipo (`SensorProcessingService`).
+// - persist: buffer write-behind, inserta por lotes (`SensorEventWriteBehindBuffer`).
+// - broadcast: alimenta las series temporales y los agregados por minuto y publica por WebSocket; un
+//   worker despacha de golpe todo lo acumulado.
+// - alert: crea alertas a partir de los eventos críticos (`AlertService`).
+// Si una cola se llena, la etapa anterior procesa el elemento ella misma (back-pressure sin pérdidas).
+@Service
+@Slf4j
+public class SensorEventPipeline {
+
+    private final SensorEventWriteBehindBuffer sensorEventWriter;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AlertService alertService;
+    private final SensorBulkheads sensorBulkheads;
+    private final SensorTimeSeries sensorTimeSeries;
+    private final SensorRollupService sensorRollupService;
+    private final AsyncTaskExecutor broadcastExecutor;
+    private final AsyncTaskExecutor alertExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // Tiempo de la etapa de evaluación (desde que el evento entra en su carril hasta que se entrega a persist)
+    private final Timer evaluateLatency;
+
+    @Value("${stark.sensors.pipeline.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    // Espera en las colas de las etapas: busy-spin | yielding | parking
+    @Value("${stark.sensors.pipeline.wait-strategy:parking}")
+    private String waitStrategy;
+
+    @Value("${stark.sensors.pipeline.broadcast.workers:2}")
+    private int broadcastWorkers;
+
+    @Value("${stark.sensors.pipeline.broadcast.batch-size:100}")
+    private int broadcastBatchSize;
+
+    @Value("${stark.sensors.pipeline.broadcast.queue-capacity:5000}")
+    private int broadcastQueueCapacity;
+
+    @Value("${stark.sensors.pipeline.alert.workers:4}")
+    private int alertWorkers;
+
+    @Value("${stark.sensors.pipeline.alert.batch-size:10}")
+    private int alertBatchSize;
+
+    @Value("${stark.sensors.pipeline.alert.queue-capacity:1000}")
+    private int alertQueueCapacity;
+
+    private PipelineStage<SensorEvent> broadcastStage;
+    private PipelineStage<SensorEvent> alertStage;
+
+    public SensorEventPipeline(SensorEventWriteBehindBuffer sensorEventWriter,
+                               SimpMessagingTemplate messagingTemplate,
+                               AlertService alertService,
+                               SensorBulkheads sensorBulkheads,
+                               SensorTimeSeries sensorTimeSeries,
+                               SensorRollupService sensorRollupService,
+                               @Qualifier("broadcastExecutor") AsyncTaskExecutor broadcastExecutor,
+                               @Qualifier("alertExecutor") AsyncTaskExecutor alertExecutor,
+                               MeterRegistry meterRegistry) {
+        this.sensorEventWriter = sensorEventWriter;
+        this.messagingTemplate = messagingTemplate;
+        this.alertService = alertService;
+        this.sensorBulkheads = sensorBulkheads;
+        this.sensorTimeSeries = sensorTimeSeries;
+        this.sensorRollupService = sensorRollupService;
+        this.broadcastExecutor = broadcastExecutor;
+        this.alertExecutor = alertExecutor;
+        this.meterRegistry = meterRegistry;
+        this.evaluateLatency = Timer.builder("sensor.pipeline.latency")
+                .description("Tiempo desde que un elemento entra en la etapa hasta que termina de procesarse")
+                .tag("stage", "evaluate")
+                .register(meterRegistry);
+        Gauge.builder("sensor.pipeline.queue", this, SensorEventPipeline::evaluatePending)
+                .description("Elementos esperando en la cola de la etapa")
+                .tag("stage", "evaluate")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        broadcastStage = new PipelineStage<>("broadcast", broadcastExecutor, broadcastWorkers, broadcastBatchSize, 0,
+                broadcastQueueCapacity, WaitStrategy.from(waitStrategy), this::broadcast, meterRegistry);
+        alertStage = new PipelineStage<>("alert", alertExecutor, alertWorkers, alertBatchSize, 0,
+                alertQueueCapacity, WaitStrategy.from(waitStrategy), this::raiseAlerts, meterRegistry);
+        // persist -> broadcast: sólo se publica (y entra en series y agregados) lo que ya está en la BD;
+        // un crítico que no se ha podido guardar va directo a alertas
+        sensorEventWriter.setDownstream(event -> broadcastStage.submit(event, offerTimeoutMs), event -> {
+            if (Boolean.TRUE.equals(event.getCritical())) {
+                alertStage.submit(event, offerTimeoutMs);
+            }
+        });
+    }
+
+    // Entrada del pipeline tras la evaluación: el evento pasa a la etapa de persistencia
+    public void submit(SensorEvent evaluated, long evaluateNanos) {
+        evaluateLatency.record(evaluateNanos, TimeUnit.NANOSECONDS);
+        sensorEventWriter.persist(evaluated);
+    }
+
+    // Estado de cada etapa (diagnóstico)
+    public Map<String, Map<String, Object>> describe() {
+        Map<String, Map<String, Object>> stages = new LinkedHashMap<>();
+        Map<String, Object> evaluate = new LinkedHashMap<>();
+        evaluate.put("queued", evaluatePending());
+        evaluate.put("processed", evaluateLatency.count());
+        stages.put("evaluate", evaluate);
+        stages.put("persist", sensorEventWriter.describe());
+        stages.put("broadcast", broadcastStage.describe());
+        stages.put("alert", alertStage.describe());
+        return stages;
+    }
+
+    private int evaluatePending() {
+        int pending = 0;
+        for (SensorType type : SensorType.values()) {
+            pending += sensorBulkheads.lanes(type).getPendingCount();
+        }
+        return pending;
+    }
+
+    // Etapa broadcast: añade el lote a las series temporales y a los agregados, lo publica en los tópicos
+    // WebSocket y pasa los críticos a la etapa de alertas
+    private void broadcast(List<SensorEvent> events) {
+        sensorTimeSeries.append(events);
+        sensorRollupService.record(events);
+        for (SensorEvent event : events) {
+            broadcastEvent(event);
+            if (Boolean.TRUE.equals(event.getCritical())) {
+                alertStage.submit(event, offerTimeoutMs);
+            }
+        }
+    }
+
+    // Etapa alert: el propio `AlertService` aplica el enfriamiento por sensor, así que las ráfagas de
+    // críticos de un mismo sensor dentro del lote acaban en una sola alerta
+    private void raiseAlerts(List<SensorEvent> events) {
+        for (SensorEvent event : events) {
+            try {
+                alertService.createAlertFromEvent(event);
+            } catch (Exception e) {
+                log.error("Error creando alerta para {} en {}: {}", event.getSensorType(), event.getLocation(), e.getMessage());
+            }
+        }
+    }
+
+    // Publica el evento procesado en tópicos WebSocket
+    private void broadcastEvent(SensorEvent processedEvent) {
+        // Concepto de "event-driven": cada vez que el backend procesa algo,
+        // los clientes suscritos reciben la actualización sin hacer polling.
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("type", processedEvent.getSensorType().name());
+            payload.put("sensorId", processedEvent.getSensorId());
+            payload.put("location", processedEvent.getLocation());
+            payload.put("value", processedEvent.getValue());
+            payload.put("unit", processedEvent.getUnit());
+            payload.put("critical", processedEvent.getCritical());
+            payload.put("timestamp", processedEvent.getTimestamp());
+
+            // Canal específico por tipo de sensor (permite a los clientes suscribirse sólo a lo que les interesa)
+            String typeTopic = "/topic/sensors/" + processedEvent.getSensorType().name().toLowerCase();
+            messagingTemplate.convertAndSend(typeTopic, payload);
+            // Canal agregado con todos los eventos de sensores
+            messagingTemplate.convertAndSend("/topic/sensors/events", payload);
+        } catch (Exception ex) {
+            // Los fallos al notificar por WS no deben parar el procesamiento de sensores.
+            // Se registra en log a nivel debug para diagnóstico sin saturar el log principal.
+            log.debug("No se pudo publicar evento individual por WS: {}", ex.getMessage());
+        }
+    }
+
+    // Al apagar se vacían las etapas en orden; lo que llegue después (el volcado final del buffer)
+    // se procesa en el hilo que lo entrega
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        broadcastStage.stop(TimeUnit.SECONDS.toMillis(10));
+        alertStage.stop(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,98 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.repository.SensorEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+// Listados de eventos de sensores sin cargar la tabla entera en memoria: paginación por "keyset" sobre
+// (timestamp, id) con un cursor opaco. Cada página es una consulta acotada que empieza justo después de la
+// última fila de la anterior (estable aunque entren eventos). El volcado completo en streaming está en
+// `DataExportService`.
+@Service
+@RequiredArgsConstructor
+public class SensorEventQueryService {
+
+    // Límites por defecto del rango temporal cuando no se indica
+    public static final LocalDateTime MIN_TIMESTAMP = LocalDateTime.of(1970, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final SensorEventRepository sensorEventRepository;
+
+    @Value("${stark.sensors.query.page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${stark.sensors.query.max-page-size:1000}")
+    private int maxPageSize;
+
+    // Filtros comunes a los listados (los nulos no se aplican)
+    public record EventFilter(SensorType type, String location, Boolean critical, LocalDateTime start,
+                              LocalDateTime end) {
+
+        public static EventFilter all() {
+            return new EventFilter(null, null, null, null, null);
+        }
+
+        public LocalDateTime from() {
+            return start != null ? start : MIN_TIMESTAMP;
+        }
+
+        public LocalDateTime to() {
+            return end != null ? end : MAX_TIMESTAMP;
+        }
+    }
+
+    // Una página de resultados; `nextCursor` es nulo en la última
+    public record EventPage(List<SensorEvent> items, int size, String nextCursor) {}
+
+    // Página de eventos a partir del cursor (nulo = desde el principio)
+    public EventPage page(EventFilter filter, String cursor, Integer size) {
+        int pageSize = Math.min(Math.max(1, size != null ? size : defaultPageSize), maxPageSize);
+        LocalDateTime afterTs = filter.from();
+        long afterId = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            Position position = decode(cursor);
+            afterTs = position.timestamp();
+            afterId = position.id();
+        }
+
+        // Se pide una fila de más para saber si hay página siguiente sin hacer un COUNT
+        List<SensorEvent> rows = sensorEventRepository.findPageAfter(filter.type(), filter.location(),
+                filter.critical(), filter.from(), filter.to(), afterTs, afterId, PageRequest.of(0, pageSize + 1));
+        String next = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            SensorEvent last = rows.get(pageSize - 1);
+            next = encode(last.getTimestamp(), last.getId());
+        }
+        return new EventPage(List.copyOf(rows), rows.size(), next);
+    }
+
+    // Cursor opaco: "timestamp|id" en Base64 URL-safe
+    private static String encode(LocalDateTime timestamp, Long id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor no válido");
+        }
+    }
+
+    private record Position(LocalDateTime timestamp, long id) {}
+}
@@ -0,0 +1,187 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.config.PipelineStage;
+import com.starkindustries.security.config.WaitStrategy;
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.repository.SensorEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Persistencia "write-behind" de eventos de sensores (etapa "persist" del pipeline): los hilos de
+// procesamiento encolan el evento y los hilos volcadores los insertan en lotes (por tamaño o por tiempo),
+// en una única transacción por lote. Tras volcar un lote, sus eventos pasan a la siguiente etapa.
+@Service
+@Slf4j
+public class SensorEventWriteBehindBuffer {
+
+    private final SensorEventRepository sensorEventRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stark.sensors.persistence.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stark.sensors.persistence.write-behind.buffer-capacity:5000}")
+    private int bufferCapacity;
+
+    // Tamaño máximo de cada lote (conviene que coincida con hibernate.jdbc.batch_size)
+    @Value("${stark.sensors.persistence.write-behind.batch-size:50}")
+    private int batchSize;
+
+    // Tiempo máximo que un evento espera en el buffer antes de volcarse
+    @Value("${stark.sensors.persistence.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    // Espera máxima para encolar con el buffer lleno; pasado ese tiempo se guarda en el hilo llamante
+    @Value("${stark.sensors.persistence.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    // Hilos volcadores (cada uno con su lote y su transacción)
+    @Value("${stark.sensors.persistence.write-behind.workers:1}")
+    private int workers;
+
+    // Espera en el buffer circular (la misma que el resto de etapas del pipeline)
+    @Value("${stark.sensors.pipeline.wait-strategy:parking}")
+    private String waitStrategy;
+
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter failedRows;
+    private final Counter backPressureSaves;
+
+    private PipelineStage<SensorEvent> stage;
+    private ExecutorService flushers;
+    // Siguiente etapa: recibe cada evento una vez volcado
+    private volatile Consumer<SensorEvent> downstream = event -> {};
+    // Eventos que no se han podido guardar: no van a `downstream` (que sólo ve filas persistidas)
+    private volatile Consumer<SensorEvent> unpersisted = event -> {};
+
+    public SensorEventWriteBehindBuffer(SensorEventRepository sensorEventRepository, MeterRegistry meterRegistry) {
+        this.sensorEventRepository = sensorEventRepository;
+        this.meterRegistry = meterRegistry;
+        this.flushTimer = Timer.builder("sensor.persistence.flush.time")
+                .description("Duración de cada volcado por lotes a BD")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("sensor.persistence.rows.flushed").register(meterRegistry);
+        this.failedRows = Counter.builder("sensor.persistence.rows.failed").register(meterRegistry);
+        this.backPressureSaves = Counter.builder("sensor.persistence.backpressure")
+                .description("Eventos guardados de forma síncrona por tener el buffer lleno")
+                .register(meterRegistry);
+        meterRegistry.gauge("sensor.persistence.buffer.size", this, SensorEventWriteBehindBuffer::getPendingCount);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            log.info("Persistencia write-behind deshabilitada: cada evento se guarda de forma síncrona");
+            return;
+        }
+        flushers = Executors.newFixedThreadPool(Math.max(1, workers),
+                Thread.ofPlatform().name("SensorEventFlusher-", 0).daemon().factory());
+        stage = new PipelineStage<>("persist", flushers, workers, batchSize, flushIntervalMs, bufferCapacity,
+                WaitStrategy.from(waitStrategy), this::flush, meterRegistry);
+        log.info("Persistencia write-behind activa (capacidad={}, lote={}, intervalo={} ms, volcadores={})",
+                bufferCapacity, batchSize, flushIntervalMs, workers);
+    }
+
+    // Conecta la siguiente etapa del pipeline (filas ya guardadas) y el destino de las que fallan
+    public void setDownstream(Consumer<SensorEvent> downstream, Consumer<SensorEvent> unpersisted) {
+        this.downstream = downstream;
+        this.unpersisted = unpersisted;
+    }
+
+    // Encola el evento para su inserción diferida. Si el buffer está lleno más de `offerTimeoutMs`
+    // (o se está apagando la aplicación), se guarda directamente en el hilo llamante: eso frena al
+    // productor (back-pressure) sin perder eventos.
+    public SensorEvent persist(SensorEvent event) {
+        if (stage == null) {
+            SensorEvent saved = sensorEventRepository.save(event);
+            downstream.accept(saved);
+            return saved;
+        }
+        if (!stage.submit(event, offerTimeoutMs)) {
+            backPressureSaves.increment();
+            log.debug("Buffer write-behind lleno, evento guardado de forma síncrona");
+        }
+        return event;
+    }
+
+    // Eventos pendientes de volcar (útil para diagnóstico)
+    public int getPendingCount() {
+        return stage != null ? stage.size() : 0;
+    }
+
+    // Estado de la etapa de persistencia (diagnóstico)
+    public Map<String, Object> describe() {
+        return stage != null ? stage.describe() : Map.of("enabled", false);
+    }
+
+    // Inserta el lote en una sola transacción; si falla, se reintenta fila a fila para aislar la defectuosa.
+    // Las filas guardadas pasan a la siguiente etapa y las descartadas a `unpersisted`: un fallo de BD no
+    // debe silenciar sus alertas, pero tampoco deben aparecer en las series y agregados, que reflejan la BD.
+    private void flush(List<SensorEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Lo que llega a la siguiente etapa: el propio evento o, en el reintento, la entidad que devuelve
+        // save; null si no se ha podido guardar
+        List<SensorEvent> saved = batch;
+        try {
+            flushTimer.record(() -> sensorEventRepository.saveAll(batch));
+            flushedRows.increment(batch.size());
+            log.debug("Volcados {} eventos de sensores a BD", batch.size());
+        } catch (Exception e) {
+            log.error("Error volcando lote de {} eventos, reintentando uno a uno: {}", batch.size(), e.getMessage());
+            saved = new ArrayList<>(batch.size());
+            for (SensorEvent event : batch) {
+                // El persist del lote fallido ya asignó ids de la secuencia, pero la fila no existe: con id,
+                // save() haría un merge (SELECT + INSERT de una copia con otro id) y el evento seguiría con
+                // el id viejo. Sin él, vuelve a ser nuevo y se inserta tal cual.
+                event.setId(null);
+                try {
+                    saved.add(sensorEventRepository.save(event));
+                    flushedRows.increment();
+                } catch (Exception single) {
+                    event.setId(null);
+                    saved.add(null);
+                    failedRows.increment();
+                    log.error("Evento descartado al persistir ({} en {}): {}",
+                            event.getSensorType(), event.getLocation(), single.getMessage());
+                }
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            SensorEvent event = saved.get(i);
+            if (event == null) {
+                unpersisted.accept(batch.get(i));
+            } else {
+                downstream.accept(event);
+            }
+        }
+    }
+
+    // Vuelca lo pendiente antes de que se cierre el EntityManagerFactory
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (stage == null) {
+            return;
+        }
+        // Lo que se encola mientras se para se guarda en el hilo llamante; lo pendiente se vuelca aquí mismo
+        stage.stop(TimeUnit.SECONDS.toMillis(30));
+        flushers.shutdown();
+        log.info("Buffer write-behind vaciado al apagar");
+    }
+}
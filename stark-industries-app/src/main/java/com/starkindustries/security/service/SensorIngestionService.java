@@ -0,0 +1,178 @@
+package com.starkindustries.security.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starkindustries.security.model.SensorEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Ingesta masiva de eventos de sensores: lee el cuerpo de la petición en streaming (NDJSON o array JSON)
+// y lo entrega al pipeline de procesamiento por trozos, sin cargar nunca el payload completo en memoria.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SensorIngestionService {
+
+    // Máximo de errores individuales que se devuelven en el resumen (el resto sólo cuenta)
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final SensorProcessingService sensorProcessingService;
+    private final ObjectMapper objectMapper;
+
+    // Eventos que se envían juntos al pipeline como un lote
+    @Value("${stark.sensors.ingestion.chunk-size:500}")
+    private int chunkSize;
+
+    // Lotes en procesamiento a la vez; al alcanzarlo se espera al más antiguo antes de seguir leyendo
+    @Value("${stark.sensors.ingestion.max-inflight-chunks:4}")
+    private int maxInflightChunks;
+
+    // Lee y procesa todos los eventos del flujo y devuelve un resumen agregado de la carga
+    public IngestionSummary ingest(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        Counts counts = new Counts();
+        Deque<CompletableFuture<List<SensorProcessingService.BatchItemResult>>> inflight = new ArrayDeque<>();
+        List<SensorEvent> chunk = new ArrayList<>(chunkSize);
+
+        // MappingIterator admite tanto valores sueltos separados por saltos de línea (NDJSON)
+        // como un único array JSON raíz, que recorre elemento a elemento
+        try (MappingIterator<SensorEvent> events = objectMapper.readerFor(SensorEvent.class).readValues(body)) {
+            while (true) {
+                SensorEvent event;
+                try {
+                    if (!events.hasNextValue()) {
+                        break;
+                    }
+                    event = events.nextValue();
+                } catch (JsonParseException e) {
+                    // JSON mal formado: no es posible resincronizar el flujo, se corta la lectura
+                    counts.reject("JSON mal formado en línea " + e.getLocation().getLineNr() + ": " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    // JSON válido pero no convertible a SensorEvent: se descarta y se sigue con el siguiente
+                    counts.received++;
+                    counts.reject("Evento inválido: " + e.getOriginalMessage());
+                    continue;
+                }
+                counts.received++;
+
+                String invalidReason = validate(event);
+                if (invalidReason != null) {
+                    counts.reject("Evento " + counts.received + ": " + invalidReason);
+                    continue;
+                }
+                chunk.add(event);
+
+                if (chunk.size() >= chunkSize) {
+                    submitChunk(chunk, inflight, counts);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            submitChunk(chunk, inflight, counts);
+        }
+        while (!inflight.isEmpty()) {
+            collect(inflight.poll(), counts);
+        }
+
+        long durationMs = System.currentTimeMillis() - start;
+        log.info("Ingesta masiva: {} recibidos, {} aceptados, {} rechazados, {} críticos en {} ms",
+                counts.received, counts.accepted, counts.rejected, counts.critical, durationMs);
+        return new IngestionSummary(counts.received, counts.accepted, counts.rejected, counts.critical,
+                durationMs, durationMs > 0 ? counts.accepted * 1000.0 / durationMs : counts.accepted,
+                counts.errors);
+    }
+
+    // Envía un trozo al pipeline, esperando antes al más antiguo si ya hay demasiados en vuelo
+    private void submitChunk(List<SensorEvent> chunk,
+                             Deque<CompletableFuture<List<SensorProcessingService.BatchItemResult>>> inflight,
+                             Counts counts) {
+        while (inflight.size() >= Math.max(1, maxInflightChunks)) {
+            collect(inflight.poll(), counts);
+        }
+        inflight.add(sensorProcessingService.processBatchAsync(chunk));
+    }
+
+    // Espera a que termine un trozo y acumula sus resultados individuales
+    private void collect(CompletableFuture<List<SensorProcessingService.BatchItemResult>> future, Counts counts) {
+        for (SensorProcessingService.BatchItemResult result : future.join()) {
+            if (result.success()) {
+                counts.accepted++;
+                if (Boolean.TRUE.equals(result.event().getCritical())) {
+                    counts.critical++;
+                }
+            } else {
+                counts.reject("Fallo procesando " + result.event().getSensorId() + ": " + result.error());
+            }
+        }
+    }
+
+    // Comprueba los campos obligatorios y completa los opcionales; devuelve el motivo si no es válido.
+    // También la usa POST /api/sensors/events: con la persistencia diferida, un evento incompleto sólo
+    // fallaría al volcar el lote, cuando el cliente ya tiene su respuesta.
+    public String validate(SensorEvent event) {
+        if (event == null) {
+            return "evento vacío";
+        }
+        if (event.getSensorType() == null) {
+            return "falta sensorType";
+        }
+        if (event.getSensorId() == null || event.getSensorId().isBlank()) {
+            return "falta sensorId";
+        }
+        if (event.getLocation() == null || event.getLocation().isBlank()) {
+            return "falta location";
+        }
+        if (event.getValue() == null) {
+            return "falta value";
+        }
+        // Los ids los asigna la BD y la criticidad la decide el sensor
+        event.setId(null);
+        event.setCritical(false);
+        if (event.getTimestamp() == null) {
+            event.setTimestamp(LocalDateTime.now());
+        }
+        return null;
+    }
+
+    // Contadores de una ingesta (sólo los usa el hilo que atiende la petición)
+    private static final class Counts {
+        long received;
+        long accepted;
+        long rejected;
+        long critical;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(reason);
+            }
+        }
+    }
+
+    // Resumen devuelto al cliente tras la carga
+    public record IngestionSummary(
+            long received,
+            long accepted,
+            long rejected,
+            long critical,
+            long durationMs,
+            double eventsPerSecond,
+            List<String> errors
+    ) {}
+}
@@ -0,0 +1,83 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Métricas del procesamiento de sensores con todos los medidores creados al arrancar.
+// Cada tipo de sensor (y criticidad) tiene ya su Timer/Counter/Gauge resuelto en un EnumMap, de modo
+// que el camino por evento no hace búsquedas en el registro ni crea listas de tags ni cadenas.
+@Component
+public class SensorMetrics {
+
+    // Contadores en memoria por tipo × ubicación × criticidad (los exponen los gauges y las estadísticas)
+    private final SensorEventCounters eventCounters;
+
+    private final Map<SensorType, Timer> processingTimers = new EnumMap<>(SensorType.class);
+    private final Map<SensorType, Counter> errorCounters = new EnumMap<>(SensorType.class);
+    // sensor.events.processed por tipo: [0] = no crítico, [1] = crítico
+    private final Map<SensorType, Counter[]> processedCounters = new EnumMap<>(SensorType.class);
+
+    // Los mapas sólo se escriben aquí; después son de sólo lectura y se pueden compartir entre hilos
+    public SensorMetrics(MeterRegistry meterRegistry, SensorEventCounters eventCounters) {
+        this.eventCounters = eventCounters;
+        for (SensorType type : SensorType.values()) {
+            String tag = type.name();
+
+            Gauge.builder("sensor.events.total", eventCounters, c -> c.total(type))
+                    .tag("type", tag)
+                    .register(meterRegistry);
+
+            Gauge.builder("sensor.events.critical", eventCounters, c -> c.critical(type))
+                    .tag("type", tag)
+                    .register(meterRegistry);
+
+            processingTimers.put(type, Timer.builder("sensor.processing.time")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+
+            errorCounters.put(type, Counter.builder("sensor.processing.errors")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+
+            processedCounters.put(type, new Counter[]{
+                    processedCounter(meterRegistry, tag, false),
+                    processedCounter(meterRegistry, tag, true)
+            });
+        }
+    }
+
+    // Registra un evento procesado: contadores en memoria y contador etiquetado por criticidad
+    public void recordProcessed(SensorType type, String location, boolean critical) {
+        eventCounters.increment(type, location, critical);
+        processedCounters.get(type)[critical ? 1 : 0].increment();
+    }
+
+    // Registra la duración del procesamiento medida con System.nanoTime() (sin crear un Timer.Sample)
+    public void recordProcessingTime(SensorType type, long elapsedNanos) {
+        processingTimers.get(type).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordError(SensorType type) {
+        errorCounters.get(type).increment();
+    }
+
+    // Foto coherente de los contadores en memoria
+    public SensorEventCounters.Snapshot snapshot() {
+        return eventCounters.snapshot();
+    }
+
+    private static Counter processedCounter(MeterRegistry registry, String type, boolean critical) {
+        return Counter.builder("sensor.events.processed")
+                .tag("type", type)
+                .tag("critical", String.valueOf(critical))
+                .register(registry);
+    }
+}
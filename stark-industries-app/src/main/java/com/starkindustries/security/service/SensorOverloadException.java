@@ -0,0 +1,20 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorType;
+import lombok.Getter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// El control de admisión ha descartado un evento por sobrecarga; indica cuándo conviene reintentar
+@Getter
+public class SensorOverloadException extends RejectedExecutionException {
+
+    private final SensorType sensorType;
+    private final long retryAfterSeconds;
+
+    public SensorOverloadException(SensorType sensorType, long retryAfterSeconds) {
+        super("Sistema saturado: evento " + sensorType + " descartado, reintentar en " + retryAfterSeconds + " s");
+        this.sensorType = sensorType;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,96 +1,82 @@
 package com.starkindustries.security.service;
 
+import com.starkindustries.security.config.SensorBulkheads;
+import com.starkindustries.security.config.TaskPriority;
 import com.starkindustries.security.model.SensorEvent;
 import com.starkindustries.security.model.SensorType;
-import com.starkindustries.security.repository.SensorEventRepository;
 import com.starkindustries.security.sensor.Sensor;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 // Procesamiento concurrente de eventos de sensores. Esta clase es el "corazón concurrente" del sistema,
 // donde se aplican los conceptos de programación concurrente vistos en teoría:
 // - Uso de hilos gestionados por un ThreadPool (`ThreadPoolTaskExecutor`).
+// - Compartimentos por tipo de sensor (`SensorBulkheads`) con carriles serie por sensor (`KeyedSerialExecutor`).
+// - Pipeline por etapas con colas independientes tras la evaluación (`SensorEventPipeline`).
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class SensorProcessingService {
 
-    // Repositorio JPA: acceso concurrente seguro gestionado por Spring y la BD
-    private final SensorEventRepository sensorEventRepository;
+    // Etapas posteriores a la evaluación (persistencia, difusión y alertas), cada una con su cola
+    private final SensorEventPipeline sensorEventPipeline;
     // Servicios delegados: aplican el principio de separación de responsabilidades
-    private final AlertService alertService;
     private final NotificationService notificationService;
     // Mapa de sensores inyectado por Spring (IoC/DI). Clave = beanName, Valor = implementación concreta
     // Permite seleccionar en tiempo de ejecución qué estrategia de procesamiento usar para cada tipo de sensor
     private final Map<String, Sensor> sensors;
-    // Registro de métricas (Micrometer): expone contadores y tiempos a Actuator/Prometheus
-    private final MeterRegistry meterRegistry;
-    // Canal WebSocket para difusión en tiempo real (no bloquea peticiones HTTP)
-    private final SimpMessagingTemplate messagingTemplate;
-    // Executor específico para sensores, definido en `AsyncConfiguration`.
-    // Es un pool de hilos reutilizables: mejor uso de CPU que crear un hilo por petición.
-    private final ThreadPoolTaskExecutor sensorExecutor;
-
-    // Contadores por tipo de sensor. Se usa ConcurrentHashMap + AtomicLong para:
-    // - Evitar bloqueos gruesos (no se usa `synchronized` global).
-    // - Permitir muchas actualizaciones concurrentes con baja contención.
-    private final Map<SensorType, AtomicLong> eventCounters = new ConcurrentHashMap<>();
-    private final Map<SensorType, AtomicLong> criticalCounters = new ConcurrentHashMap<>();
-
-    // Snapshot con claves String y valores por tipo presentes
-    public Map<String, Object> buildStatsSnapshot() {
-        Map<String, Long> total = new HashMap<>();
-        for (SensorType st : SensorType.values()) total.put(st.name(), 0L);
-        getEventStatistics().forEach((k, v) -> total.put(k.name(), v));
-
-        Map<String, Long> critical = new HashMap<>();
-        for (SensorType st : SensorType.values()) critical.put(st.name(), 0L);
-        getCriticalEventStatistics().forEach((k, v) -> critical.put(k.name(), v));
-
-        Map<String, Object> snapshot = new HashMap<>();
-        snapshot.put("totalEvents", total);
-        snapshot.put("criticalEvents", critical);
+    // Métricas (Micrometer) con los medidores ya resueltos por tipo: expone contadores y tiempos a Actuator/Prometheus
+    private final SensorMetrics sensorMetrics;
+    // Compartimentos por tipo de sensor (definidos en `AsyncConfiguration`), cada uno con su pool y sus
+    // carriles serie: los eventos de un mismo sensor (tipo + ubicación) se procesan de uno en uno y en
+    // orden de llegada, así el estado que guarda cada sensor por ubicación no se pisa; sensores distintos
+    // van en paralelo y un tipo saturado no frena a los demás.
+    private final SensorBulkheads sensorBulkheads;
+    // Control de admisión (límite adaptativo y descarte por tipo) delante de los compartimentos
+    private final SensorAdmissionService admissionService;
+
+    // Versión de las estadísticas: crece con cada evento procesado y permite saber si hay algo nuevo que publicar
+    private final AtomicLong statsVersion = new AtomicLong();
+
+    // Último evento crítico de cada sensor (tipo@ubicación): sube la prioridad de sus siguientes eventos
+    private final Map<String, Long> lastCriticalAt = new ConcurrentHashMap<>();
+
+    // Ventana durante la que un sensor con un evento crítico reciente se atiende con prioridad elevada
+    @Value("${stark.sensors.priority.recent-critical-ms:30000}")
+    private long recentCriticalMs;
+
+    // Número máximo de eventos de un mismo lote procesándose a la vez
+    @Value("${stark.sensors.batch.parallelism:8}")
+    private int batchParallelism;
 
-        try {
-            Map<String, Object> threadPool = new HashMap<>();
-            threadPool.put("active", sensorExecutor.getActiveCount());
-            threadPool.put("poolSize", sensorExecutor.getPoolSize());
-            threadPool.put("corePoolSize", sensorExecutor.getCorePoolSize());
-            threadPool.put("maxPoolSize", sensorExecutor.getMaxPoolSize());
-            snapshot.put("activeThreads", sensorExecutor.getActiveCount());
-            snapshot.put("threadPool", threadPool);
-        } catch (Exception e) {
-            log.trace("No se pudieron adjuntar métricas de hilos al snapshot: {}", e.getMessage());
-        }
-
-        return snapshot;
-    }
-
-    @Async("sensorExecutor") // Indica que este método se ejecutará de forma asíncrona en un hilo separado usando el executor especificado ("sensorExecutor")
     public CompletableFuture<SensorEvent> processEventAsync(SensorEvent event) {
-        // Marcamos claramente que este método se ejecuta en un hilo del pool `sensorExecutor`.
+        // El evento se encola en el carril de su sensor y se procesa en un hilo del compartimento de su tipo.
         // Desde el punto de vista del controlador HTTP, la llamada es "fire-and-forget":
         // el hilo del servidor delega el trabajo a este pool y puede atender otras peticiones.
+        // El CompletableFuture se completa cuando el carril llega a este evento y termina de procesarlo.
+        return submitToLane(event);
+    }
+
+    // Etapa de evaluación de un evento en el hilo actual (lo usan tanto los eventos sueltos como los lotes).
+    // `enqueuedAt` es el instante en que el evento entró en su carril.
+    private SensorEvent processEvent(SensorEvent event, long enqueuedAt) {
         log.debug("Iniciando procesamiento asíncrono de evento: {} - Thread: {}",
                   event.getSensorType(), Thread.currentThread().getName());
 
-        // Tomamos una muestra de tiempo con Micrometer para medir la latencia por tipo de sensor.
+        // Tomamos una muestra de tiempo para medir la latencia por tipo de sensor.
         // Esto nos permite analizar el rendimiento bajo carga (concepto de benchmarking y profiling).
-        Timer.Sample sample = Timer.start(meterRegistry);
+        long start = System.nanoTime();
 
         try {
             // Seleccionamos la implementación de `Sensor` adecuada según el tipo.
@@ -100,48 +86,31 @@ public class SensorProcessingService {
             // Procesamos el evento (cálculos, normalización, etc.) en el hilo del pool.
             SensorEvent processedEvent = sensor.processEvent(event);
 
-            // Persistimos el evento en BD. Spring y la BD se encargan de la seguridad en concurrencia a nivel de datos.
-            processedEvent = sensorEventRepository.save(processedEvent);
-
             // Actualizamos contadores concurrentes y métricas centrales.
             updateMetrics(processedEvent);
 
-            // Construimos un snapshot consistente de estadísticas. Nótese que no se bloquea el pool:
-            // sólo se leen contadores atómicos, operación O(1) y muy rápida.
-            Map<String, Object> snapshot = buildStatsSnapshot();
-            // Difundimos las estadísticas a los clientes Web vía WebSocket/SSE, desacoplando lectura y escritura.
-            messagingTemplate.convertAndSend("/topic/stats", snapshot);
-            log.debug("Evento enviado a WebSocket: /topic/stats -> {}", snapshot);
+            // Las estadísticas ya no se difunden por evento: `updateMetrics` sólo las marca como cambiadas
+            // y `StatsBroadcastService` publica un snapshot coalescido como mucho una vez por intervalo.
 
-            // Publicamos el evento concreto en canales específicos.
-            broadcastEvent(processedEvent);
-
-            // Si el evento es crítico, se encadena de forma asíncrona un flujo de alertas/ notificaciones.
-            if (processedEvent.getCritical()) {
-                // Aquí se aplica el principio de "reacción a eventos": el sistema actúa según el tipo de evento.
-                alertService.createAlertFromEvent(processedEvent);
-            }
+            // El resto del trabajo pasa a las siguientes etapas del pipeline, cada una con su cola:
+            // persistencia por lotes (el id se asigna al volcarlo), difusión por WebSocket y, si el
+            // evento es crítico, alertas ("reacción a eventos"). Si una cola está llena, la etapa se
+            // ejecuta aquí mismo (back-pressure).
+            sensorEventPipeline.submit(processedEvent, System.nanoTime() - enqueuedAt);
 
             // Cerramos la medición de tiempo y registramos la métrica etiquetada por tipo de sensor.
-            sample.stop(Timer.builder("sensor.processing.time")
-                    .tag("type", event.getSensorType().name())
-                    .register(meterRegistry));
+            sensorMetrics.recordProcessingTime(event.getSensorType(), System.nanoTime() - start);
 
-            log.info("Evento procesado: ID={}, Tipo={}, Crítico={}",
-                     processedEvent.getId(), processedEvent.getSensorType(), processedEvent.getCritical());
+            log.info("Evento procesado: Sensor={}, Tipo={}, Crítico={}",
+                     processedEvent.getSensorId(), processedEvent.getSensorType(), processedEvent.getCritical());
 
-            // Devolvemos un CompletableFuture ya completado con el resultado.
-            // En otros escenarios podríamos encadenar más etapas con `thenApply`, `thenCompose`, etc.
-            return CompletableFuture.completedFuture(processedEvent);
+            return processedEvent;
 
         } catch (Exception e) {
             // En sistemas concurrentes el manejo de errores es clave: un fallo en un hilo del pool
             // no debe tumbar el proceso completo. Se registra una métrica de error y se encapsula la excepción.
             log.error("Error procesando evento de sensor: {}", event.getSensorType(), e);
-            Counter.builder("sensor.processing.errors")
-                    .tag("type", event.getSensorType().name())
-                    .register(meterRegistry)
-                    .increment();
+            sensorMetrics.recordError(event.getSensorType());
             throw new RuntimeException("Error procesando evento", e);
         }
     }
@@ -154,89 +123,155 @@ public class SensorProcessingService {
         };
     }
 
-    @Async("sensorExecutor")
-    public CompletableFuture<List<SensorEvent>> processBatchAsync(List<SensorEvent> events) {
-        // Procesa un lote de eventos en paralelo reutilizando el método unitario.
-        // Cada evento se procesa en un hilo potencialmente distinto del pool, ilustrando
-        // el patrón "fork-join" simplificado con `CompletableFuture.allOf`.
+    // Procesa un lote de eventos en paralelo (fork-join) repartiéndolo entre varios workers del pool.
+    // Los eventos de un mismo sensor dentro del lote se encolan en su carril en el orden del lote.
+    public CompletableFuture<List<BatchItemResult>> processBatchAsync(List<SensorEvent> events) {
         log.info("Procesando lote de {} eventos concurrentemente", events.size());
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        // Cada posición del array la escribe un único worker; allOf garantiza la visibilidad al final
+        BatchItemResult[] results = new BatchItemResult[events.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
 
-        // Transformamos la lista en una lista de futuros individuales.
-        List<CompletableFuture<SensorEvent>> futures = events.stream()
-                .map(this::processEventAsync)
-                .toList();
+        // Como máximo `batchParallelism` eventos del lote en vuelo a la vez (ventana deslizante):
+        // cada worker toma el siguiente evento libre en cuanto termina el anterior.
+        int workers = Math.min(Math.max(1, batchParallelism), events.size());
+        CompletableFuture<?>[] workerFutures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            workerFutures[i] = runBatchWorker(events, results, nextIndex);
+        }
 
-        // `allOf` espera a que todos los futuros terminen (éxito o error).
-        // Es el equivalente de usar un `CountDownLatch` pero con la API de CompletableFuture.
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> futures.stream().map(CompletableFuture::join).toList());
+        // `allOf` espera a que todos los workers terminen; los fallos ya están recogidos por evento
+        return CompletableFuture.allOf(workerFutures)
+                .thenApply(v -> Arrays.asList(results));
     }
 
-    private void updateMetrics(SensorEvent event) {
-        // Se registran métricas por tipo de sensor aprovechando gauges + contadores atómicos.
-        // `computeIfAbsent` es seguro en `ConcurrentHashMap` y evita crear contadores duplicados.
-        eventCounters.computeIfAbsent(event.getSensorType(), k -> {
-            AtomicLong counter = new AtomicLong(0);
-            meterRegistry.gauge("sensor.events.total",
-                    List.of(io.micrometer.core.instrument.Tag.of("type", k.name())),
-                    counter);
-            return counter;
-        }).incrementAndGet();
-
-        if (event.getCritical()) {
-            criticalCounters.computeIfAbsent(event.getSensorType(), k -> {
-                AtomicLong counter = new AtomicLong(0);
-                meterRegistry.gauge("sensor.events.critical",
-                        List.of(io.micrometer.core.instrument.Tag.of("type", k.name())),
-                        counter);
-                return counter;
-            }).incrementAndGet();
+    // Un worker procesa un evento en el pool y, al terminar, encadena el siguiente evento pendiente del lote
+    private CompletableFuture<Void> runBatchWorker(List<SensorEvent> events,
+                                                   BatchItemResult[] results,
+                                                   AtomicInteger nextIndex) {
+        int index = nextIndex.getAndIncrement();
+        if (index >= events.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        SensorEvent event = events.get(index);
+        return submitToLane(event)
+                .handle((processed, error) -> {
+                    // Un fallo en un evento queda aislado en su resultado y no cancela el resto del lote
+                    results[index] = error == null
+                            ? BatchItemResult.success(processed)
+                            : BatchItemResult.failure(event, error);
+                    return null;
+                })
+                .thenCompose(v -> runBatchWorker(events, results, nextIndex));
+    }
+
+    // Envía un evento al carril de su sensor si el control de admisión lo acepta; si no, el futuro falla
+    // con SensorOverloadException. Si el pool está saturado el carril se ejecuta en el hilo llamante
+    // (back-pressure) y cualquier fallo se refleja en el futuro.
+    private CompletableFuture<SensorEvent> submitToLane(SensorEvent event) {
+        // Sin tipo no hay compartimento ni clave de carril: el fallo va en el futuro, como los demás
+        if (event.getSensorType() == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Evento sin sensorType"));
+        }
+        SensorAdmissionService.Permit permit;
+        try {
+            permit = admissionService.admit(event);
+        } catch (SensorOverloadException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String key = laneKey(event);
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<SensorEvent> future = sensorBulkheads.lanes(event.getSensorType())
+                .submit(key, priorityOf(event.getSensorType(), key), () -> {
+                    SensorEvent processed = processEvent(event, enqueuedAt);
+                    if (Boolean.TRUE.equals(processed.getCritical())) {
+                        lastCriticalAt.put(key, System.currentTimeMillis());
+                    }
+                    return processed;
+                });
+        // La latencia observada (de la admisión al final) alimenta el límite adaptativo
+        future.whenComplete((processed, error) -> permit.release());
+        return future;
+    }
+
+    // Prioridad en la cola del pool: por tipo (los accesos son los más urgentes y la temperatura la menos)
+    // y una clase más si el mismo sensor ha dado un evento crítico hace poco (por ejemplo, una intrusión en curso)
+    private TaskPriority priorityOf(SensorType type, String key) {
+        TaskPriority base = switch (type) {
+            case ACCESS -> TaskPriority.HIGH;
+            case MOTION -> TaskPriority.NORMAL;
+            case TEMPERATURE -> TaskPriority.LOW;
+        };
+        Long criticalAt = lastCriticalAt.get(key);
+        if (criticalAt == null) {
+            return base;
         }
+        if (System.currentTimeMillis() - criticalAt > recentCriticalMs) {
+            lastCriticalAt.remove(key, criticalAt);
+            return base;
+        }
+        return TaskPriority.values()[Math.max(0, base.ordinal() - 1)];
+    }
 
-        // Métrica adicional de eventos procesados, etiquetada por criticidad.
-        Counter.builder("sensor.events.processed")
-                .tag("type", event.getSensorType().name())
-                .tag("critical", String.valueOf(event.getCritical()))
-                .register(meterRegistry)
-                .increment();
+    // Clave de carril: los ids de sensor simulados son únicos por evento, así que el "sensor físico"
+    // se identifica por tipo + ubicación
+    private static String laneKey(SensorEvent event) {
+        return event.getSensorType().name() + '@' + event.getLocation();
+    }
+
+    // Resultado individual de un evento dentro de un lote: éxito con el evento procesado o fallo con su causa
+    public record BatchItemResult(SensorEvent event, boolean success, String error) {
+
+        static BatchItemResult success(SensorEvent processed) {
+            return new BatchItemResult(processed, true, null);
+        }
+
+        static BatchItemResult failure(SensorEvent original, Throwable error) {
+            // Se informa la causa raíz, no los envoltorios de CompletableFuture/RuntimeException
+            Throwable cause = error;
+            while (cause.getCause() != null && cause.getCause() != cause) {
+                cause = cause.getCause();
+            }
+            return new BatchItemResult(original, false, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        }
+    }
+
+    private void updateMetrics(SensorEvent event) {
+        // Contadores atómicos y métricas por tipo/criticidad ya creados al arrancar (ver `SensorMetrics`):
+        // sin búsquedas en el registro ni asignaciones por evento.
+        sensorMetrics.recordProcessed(event.getSensorType(), event.getLocation(), Boolean.TRUE.equals(event.getCritical()));
+
+        // Marca las estadísticas como cambiadas (sin construir ni enviar nada en este hilo)
+        statsVersion.incrementAndGet();
+    }
+
+    public long getStatsVersion() {
+        return statsVersion.get();
+    }
+
+    // Foto coherente de los contadores (totales, críticos y desglose por ubicación de la misma lectura).
+    // Si se necesitan totales y críticos a la vez, mejor esta que las dos llamadas siguientes por separado.
+    public SensorEventCounters.Snapshot getEventCounters() {
+        return sensorMetrics.snapshot();
     }
 
     public Map<SensorType, Long> getEventStatistics() {
-        Map<SensorType, Long> stats = new ConcurrentHashMap<>();
-        eventCounters.forEach((type, counter) -> stats.put(type, counter.get()));
-        return stats;
+        return getEventCounters().total();
     }
 
     public Map<SensorType, Long> getCriticalEventStatistics() {
-        Map<SensorType, Long> stats = new ConcurrentHashMap<>();
-        criticalCounters.forEach((type, counter) -> stats.put(type, counter.get()));
-        return stats;
+        return getEventCounters().critical();
     }
 
-    // Publica el evento procesado en tópicos WebSocket
-    private void broadcastEvent(SensorEvent processedEvent) {
-        // Este método encapsula la publicación de eventos individuales por WebSocket.
-        // Concepto de "event-driven": cada vez que el backend procesa algo,
-        // los clientes suscritos reciben la actualización sin hacer polling.
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("type", processedEvent.getSensorType().name());
-            payload.put("sensorId", processedEvent.getSensorId());
-            payload.put("location", processedEvent.getLocation());
-            payload.put("value", processedEvent.getValue());
-            payload.put("unit", processedEvent.getUnit());
-            payload.put("critical", processedEvent.getCritical());
-            payload.put("timestamp", processedEvent.getTimestamp());
-
-            // Canal específico por tipo de sensor (permite a los clientes suscribirse sólo a lo que les interesa)
-            String typeTopic = "/topic/sensors/" + processedEvent.getSensorType().name().toLowerCase();
-            messagingTemplate.convertAndSend(typeTopic, payload);
-            // Canal agregado con todos los eventos de sensores
-            messagingTemplate.convertAndSend("/topic/sensors/events", payload);
-        } catch (Exception ex) {
-            // Los fallos al notificar por WS no deben parar el procesamiento de sensores.
-            // Se registra en log a nivel debug para diagnóstico sin saturar el log principal.
-            log.debug("No se pudo publicar evento individual por WS: {}", ex.getMessage());
+    // Eventos pendientes en cada carril de sensor (tipo@ubicación)
+    public Map<String, Integer> getLaneDepths() {
+        Map<String, Integer> depths = new HashMap<>();
+        for (SensorType type : SensorType.values()) {
+            depths.putAll(sensorBulkheads.lanes(type).getLaneDepths());
         }
+        return depths;
     }
 }
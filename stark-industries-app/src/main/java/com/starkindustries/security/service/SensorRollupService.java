@@ -0,0 +1,408 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorRollup;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.repository.SensorRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Agregados de eventos de sensores por minuto, tipo y ubicación, mantenidos de forma incremental:
+// - La etapa broadcast del pipeline suma cada lote a los intervalos en memoria (sólo eventos ya persistidos).
+// - Periódicamente se vuelcan a la tabla `sensor_rollups` (granularidad MINUTE), sumándose a lo que ya haya.
+// - La compactación pliega los minutos antiguos en horas y las horas antiguas en días, así que la tabla
+//   crece con el tiempo transcurrido y no con el número de eventos.
+// Las estadísticas leen de aquí (agregados + lo pendiente de volcar) en lugar de recorrer `sensor_events`.
+@Service
+@Slf4j
+public class SensorRollupService {
+
+    private final SensorRollupRepository sensorRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer flushTimer;
+    private final Timer compactionTimer;
+    private final Counter compactedRows;
+
+    // Máximo de ubicaciones distintas; las siguientes se agregan en la ubicación comodín
+    @Value("${stark.sensors.counters.max-locations:1024}")
+    private int maxLocations;
+
+    // Antigüedad a partir de la cual los minutos se pliegan en horas y las horas en días
+    @Value("${stark.sensors.rollups.minute-retention-hours:24}")
+    private long minuteRetentionHours;
+
+    @Value("${stark.sensors.rollups.hour-retention-days:30}")
+    private long hourRetentionDays;
+
+    // Filas leídas por lote de compactación
+    @Value("${stark.sensors.rollups.compaction-batch-size:5000}")
+    private int compactionBatchSize;
+
+    // Intervalos abiertos en memoria. Los lotes se suman bajo el bloqueo de lectura (muchos a la vez) y el
+    // volcado cambia el mapa entero por uno nuevo bajo el de escritura: cuando lo tiene, ningún lote está a
+    // medias sobre el mapa anterior, así que no se pierde ninguna suma.
+    private volatile Map<BucketKey, Accumulator> open = new ConcurrentHashMap<>();
+    // Mapa que se está volcando (las lecturas lo suman hasta que el volcado se confirma)
+    private volatile Map<BucketKey, Accumulator> flushing = Map.of();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Las lecturas (tabla + pendiente) se hacen bajo el de lectura; el volcado toma el de escritura para
+    // confirmar sus filas y retirar `flushing` en un solo paso, así que una lectura nunca ve esos minutos
+    // dos veces (en la tabla y en memoria) ni ninguna (ya fuera de `flushing` y aún sin confirmar). Los
+    // lotes no lo toman: record() no espera a la BD.
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private BoundedDictionary<String> locations;
+
+    public SensorRollupService(SensorRollupRepository sensorRollupRepository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry) {
+        this.sensorRollupRepository = sensorRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushTimer = Timer.builder("sensor.rollups.flush.time")
+                .description("Tiempo de volcado de los agregados por minuto")
+                .register(meterRegistry);
+        this.compactionTimer = Timer.builder("sensor.rollups.compaction.time")
+                .description("Tiempo de cada pasada de compactación de agregados")
+                .register(meterRegistry);
+        this.compactedRows = Counter.builder("sensor.rollups.compacted")
+                .description("Agregados plegados en una granularidad mayor")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        locations = BoundedDictionary.ofStrings(maxLocations, SensorEventCounters.OTHER_LOCATION);
+    }
+
+    // Suma un lote de eventos procesados a sus intervalos de minuto (un bloqueo de lectura por lote)
+    public void record(List<SensorEvent> events) {
+        swapLock.readLock().lock();
+        try {
+            Map<BucketKey, Accumulator> target = open;
+            for (SensorEvent event : events) {
+                if (event.getTimestamp() == null || event.getValue() == null) {
+                    continue;
+                }
+                BucketKey key = new BucketKey(event.getTimestamp().truncatedTo(ChronoUnit.MINUTES),
+                        event.getSensorType(), locations.intern(event.getLocation()).key());
+                long processingMs = event.getProcessingTimeMs() != null ? event.getProcessingTimeMs() : 0;
+                target.computeIfAbsent(key, k -> new Accumulator())
+                        .add(event.getValue(), Boolean.TRUE.equals(event.getCritical()), processingMs);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Vuelca los intervalos en memoria a la tabla de agregados por minuto
+    @Scheduled(fixedDelayString = "${stark.sensors.rollups.flush-interval-ms:10000}",
+            initialDelayString = "${stark.sensors.rollups.flush-interval-ms:10000}")
+    public void flush() {
+        Map<BucketKey, Accumulator> closed;
+        swapLock.writeLock().lock();
+        try {
+            closed = open;
+            if (closed.isEmpty()) {
+                return;
+            }
+            flushing = closed;
+            open = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        // Nadie más escribe ya en `closed`
+        Map<BucketKey, SensorRollup> rows = new HashMap<>();
+        closed.forEach((key, accumulator) -> {
+            SensorRollup row = accumulator.snapshot(key, SensorRollup.Granularity.MINUTE);
+            if (row != null) {
+                rows.put(key, row);
+            }
+        });
+        publishLock.writeLock().lock();
+        try {
+            boolean committed = false;
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status ->
+                        mergeInto(SensorRollup.Granularity.MINUTE, rows.values())));
+                committed = true;
+                log.debug("Volcados {} agregados por minuto", rows.size());
+            } catch (Exception e) {
+                log.error("Error volcando {} agregados por minuto, se reintentará: {}", rows.size(), e.getMessage());
+            }
+            swapLock.writeLock().lock();
+            try {
+                if (!committed) {
+                    // Se devuelven a memoria para el siguiente volcado
+                    closed.forEach((key, accumulator) -> open.computeIfAbsent(key, k -> new Accumulator()).addAll(accumulator));
+                }
+                flushing = Map.of();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
+
+    // Pliega los minutos más antiguos que `minute-retention-hours` en horas y las horas más antiguas que
+    // `hour-retention-days` en días, por lotes de `compaction-batch-size` filas (una transacción cada uno)
+    @Scheduled(fixedDelayString = "${stark.sensors.rollups.compaction-interval-ms:300000}",
+            initialDelayString = "${stark.sensors.rollups.compaction-interval-ms:300000}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        compactionTimer.record(() -> {
+            compact(SensorRollup.Granularity.MINUTE, SensorRollup.Granularity.HOUR,
+                    now.minusHours(minuteRetentionHours).truncatedTo(ChronoUnit.HOURS), ChronoUnit.HOURS);
+            compact(SensorRollup.Granularity.HOUR, SensorRollup.Granularity.DAY,
+                    now.minusDays(hourRetentionDays).truncatedTo(ChronoUnit.DAYS), ChronoUnit.DAYS);
+        });
+    }
+
+    // Eventos, críticos y tiempo medio de procesamiento por tipo, sumando todas las granularidades
+    public Map<SensorType, TypeTotals> totalsByType() {
+        long[] events = new long[SensorType.values().length];
+        long[] critical = new long[events.length];
+        long[] processing = new long[events.length];
+        publishLock.readLock().lock();
+        try {
+            for (Object[] row : sensorRollupRepository.totalsBySensorType()) {
+                int i = ((SensorType) row[0]).ordinal();
+                events[i] += ((Number) row[1]).longValue();
+                critical[i] += ((Number) row[2]).longValue();
+                processing[i] += ((Number) row[3]).longValue();
+            }
+            forEachPending((key, accumulator) -> {
+                synchronized (accumulator) {
+                    int i = key.type().ordinal();
+                    events[i] += accumulator.events;
+                    critical[i] += accumulator.criticalEvents;
+                    processing[i] += accumulator.processingTimeSum;
+                }
+            });
+        } finally {
+            publishLock.readLock().unlock();
+        }
+        Map<SensorType, TypeTotals> totals = new EnumMap<>(SensorType.class);
+        for (SensorType type : SensorType.values()) {
+            int i = type.ordinal();
+            totals.put(type, new TypeTotals(events[i], critical[i],
+                    events[i] > 0 ? (double) processing[i] / events[i] : 0.0));
+        }
+        return totals;
+    }
+
+    // Serie de agregados de una granularidad en [start, end), con filtros opcionales. En la de minutos se
+    // incluyen los intervalos aún en memoria.
+    public List<Bucket> buckets(SensorRollup.Granularity granularity, LocalDateTime start, LocalDateTime end,
+                                SensorType type, String location) {
+        Map<BucketKey, SensorRollup> merged = new LinkedHashMap<>();
+        publishLock.readLock().lock();
+        try {
+            for (SensorRollup row : sensorRollupRepository.findRange(granularity, start, end, type, location)) {
+                merged.put(new BucketKey(row.getBucketStart(), row.getSensorType(), row.getLocation()), row);
+            }
+            if (granularity == SensorRollup.Granularity.MINUTE) {
+                forEachPending((key, accumulator) -> {
+                    if (!key.bucketStart().isBefore(start) && key.bucketStart().isBefore(end)
+                            && (type == null || type == key.type())
+                            && (location == null || location.equals(key.location()))) {
+                        SensorRollup row = accumulator.snapshot(key, granularity);
+                        if (row != null) {
+                            merged.merge(key, row, (a, b) -> {
+                                a.merge(b);
+                                return a;
+                            });
+                        }
+                    }
+                });
+            }
+        } finally {
+            publishLock.readLock().unlock();
+        }
+        return merged.values().stream()
+                .sorted((a, b) -> a.getBucketStart().compareTo(b.getBucketStart()))
+                .map(Bucket::of)
+                .toList();
+    }
+
+    // Recorre lo pendiente de volcar (`flushing` y `open`) sin que un cambio de mapa ocurra a mitad
+    private void forEachPending(BiConsumer<BucketKey, Accumulator> action) {
+        swapLock.readLock().lock();
+        try {
+            flushing.forEach(action);
+            open.forEach(action);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Suma los agregados indicados a las filas existentes de la granularidad (o las crea)
+    private void mergeInto(SensorRollup.Granularity granularity, Collection<SensorRollup> rollups) {
+        Set<LocalDateTime> starts = rollups.stream().map(SensorRollup::getBucketStart).collect(Collectors.toSet());
+        Map<BucketKey, SensorRollup> existing = sensorRollupRepository.findByGranularityAndBucketStartIn(granularity, starts)
+                .stream()
+                .collect(Collectors.toMap(r -> new BucketKey(r.getBucketStart(), r.getSensorType(), r.getLocation()),
+                        Function.identity()));
+        List<SensorRollup> toSave = new ArrayList<>(rollups.size());
+        for (SensorRollup rollup : rollups) {
+            BucketKey key = new BucketKey(rollup.getBucketStart(), rollup.getSensorType(), rollup.getLocation());
+            SensorRollup current = existing.get(key);
+            if (current != null) {
+                current.merge(rollup);
+                toSave.add(current);
+            } else {
+                toSave.add(rollup);
+            }
+        }
+        sensorRollupRepository.saveAll(toSave);
+    }
+
+    private void compact(SensorRollup.Granularity from, SensorRollup.Granularity to, LocalDateTime before,
+                         ChronoUnit unit) {
+        int folded;
+        do {
+            folded = transactionTemplate.execute(status -> {
+                List<SensorRollup> rows = sensorRollupRepository.findByGranularityAndBucketStartBeforeOrderByBucketStart(
+                        from, before, PageRequest.of(0, compactionBatchSize));
+                if (rows.isEmpty()) {
+                    return 0;
+                }
+                Map<BucketKey, SensorRollup> coarse = new HashMap<>();
+                for (SensorRollup row : rows) {
+                    BucketKey key = new BucketKey(row.getBucketStart().truncatedTo(unit), row.getSensorType(), row.getLocation());
+                    SensorRollup target = coarse.get(key);
+                    if (target == null) {
+                        coarse.put(key, copy(row, key.bucketStart(), to));
+                    } else {
+                        target.merge(row);
+                    }
+                }
+                mergeInto(to, coarse.values());
+                sensorRollupRepository.deleteAllInBatch(rows);
+                return rows.size();
+            });
+            compactedRows.increment(folded);
+            if (folded > 0) {
+                log.info("Compactados {} agregados {} en {}", folded, from, to);
+            }
+        } while (folded >= compactionBatchSize);
+    }
+
+    private static SensorRollup copy(SensorRollup row, LocalDateTime bucketStart, SensorRollup.Granularity granularity) {
+        return SensorRollup.builder()
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .sensorType(row.getSensorType())
+                .location(row.getLocation())
+                .events(row.getEvents())
+                .criticalEvents(row.getCriticalEvents())
+                .minValue(row.getMinValue())
+                .maxValue(row.getMaxValue())
+                .valueSum(row.getValueSum())
+                .valueSquares(row.getValueSquares())
+                .processingTimeSum(row.getProcessingTimeSum())
+                .build();
+    }
+
+    // Último volcado al apagar (el pipeline, que alimenta este servicio, se detiene antes)
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private record BucketKey(LocalDateTime bucketStart, SensorType type, String location) {}
+
+    // Intervalo abierto en memoria; se actualiza bajo su propio monitor (varios lotes pueden sumar a la vez)
+    private static final class Accumulator {
+        private long events;
+        private long criticalEvents;
+        private double minValue = Double.POSITIVE_INFINITY;
+        private double maxValue = Double.NEGATIVE_INFINITY;
+        private double valueSum;
+        private double valueSquares;
+        private long processingTimeSum;
+
+        synchronized void add(double value, boolean critical, long processingMs) {
+            events++;
+            if (critical) {
+                criticalEvents++;
+            }
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+            valueSum += value;
+            valueSquares += value * value;
+            processingTimeSum += processingMs;
+        }
+
+        synchronized void addAll(Accumulator other) {
+            events += other.events;
+            criticalEvents += other.criticalEvents;
+            minValue = Math.min(minValue, other.minValue);
+            maxValue = Math.max(maxValue, other.maxValue);
+            valueSum += other.valueSum;
+            valueSquares += other.valueSquares;
+            processingTimeSum += other.processingTimeSum;
+        }
+
+        synchronized SensorRollup snapshot(BucketKey key, SensorRollup.Granularity granularity) {
+            if (events == 0) {
+                return null;
+            }
+            return SensorRollup.builder()
+                    .granularity(granularity)
+                    .bucketStart(key.bucketStart())
+                    .sensorType(key.type())
+                    .location(key.location())
+                    .events(events)
+                    .criticalEvents(criticalEvents)
+                    .minValue(minValue)
+                    .maxValue(maxValue)
+                    .valueSum(valueSum)
+                    .valueSquares(valueSquares)
+                    .processingTimeSum(processingTimeSum)
+                    .build();
+        }
+    }
+
+    // Totales de un tipo de sensor
+    public record TypeTotals(long events, long criticalEvents, double averageProcessingTimeMs) {}
+
+    // Intervalo tal y como lo devuelve la API, con media y desviación típica ya calculadas
+    public record Bucket(LocalDateTime start, SensorType type, String location, long events, long criticalEvents,
+                         double min, double max, double mean, double stdDev, double averageProcessingTimeMs) {
+
+        static Bucket of(SensorRollup r) {
+            double mean = r.getValueSum() / r.getEvents();
+            double variance = Math.max(0.0, r.getValueSquares() / r.getEvents() - mean * mean);
+            return new Bucket(r.getBucketStart(), r.getSensorType(), r.getLocation(), r.getEvents(),
+                    r.getCriticalEvents(), r.getMinValue(), r.getMaxValue(), mean, Math.sqrt(variance),
+                    (double) r.getProcessingTimeSum() / r.getEvents());
+        }
+    }
+}
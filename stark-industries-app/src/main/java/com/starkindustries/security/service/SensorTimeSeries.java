@@ -0,0 +1,150 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Series temporales en memoria de los últimos eventos de cada tipo de sensor, para los endpoints /recent.
+// Cada tipo tiene un buffer circular acotado con columnas primitivas (instante en ms, valor, id de
+// ubicación, id de unidad y bit de crítico): sin entidades ni objetos por punto. Lo rellena la etapa
+// broadcast del pipeline, que sólo recibe los eventos que el write-behind ha guardado (los que fallan van
+// directos a alertas), así que la BD sirve de respaldo para ventanas más antiguas que el buffer.
+@Component
+public class SensorTimeSeries {
+
+    @Value("${stark.sensors.timeseries.capacity:10000}")
+    private int capacity;
+
+    // Máximo de cadenas distintas (ubicaciones y unidades) en el diccionario; el resto se agrupan
+    @Value("${stark.sensors.counters.max-locations:1024}")
+    private int maxStrings;
+
+    private final Map<SensorType, Series> series = new EnumMap<>(SensorType.class);
+    // Diccionario de cadenas internadas (las columnas guardan su id)
+    private BoundedDictionary<String> strings;
+    // Desde cuándo el buffer tiene todos los eventos (hasta que da la primera vuelta)
+    private final long startedAt = System.currentTimeMillis();
+
+    @PostConstruct
+    void init() {
+        strings = BoundedDictionary.ofStrings(maxStrings, SensorEventCounters.OTHER_LOCATION);
+        for (SensorType type : SensorType.values()) {
+            series.put(type, new Series(Math.max(1, capacity)));
+        }
+    }
+
+    // Añade un lote de eventos procesados (un bloqueo por tipo y lote, no por evento)
+    public void append(List<SensorEvent> events) {
+        for (SensorType type : SensorType.values()) {
+            Series s = series.get(type);
+            synchronized (s) {
+                for (SensorEvent event : events) {
+                    if (event.getSensorType() == type && event.getTimestamp() != null && event.getValue() != null) {
+                        s.add(event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                                event.getValue(), intern(event.getLocation()), intern(event.getUnit()),
+                                Boolean.TRUE.equals(event.getCritical()));
+                    }
+                }
+            }
+        }
+    }
+
+    // Últimos `limit` puntos del tipo con instante >= `sinceMillis`, en orden cronológico. Los instantes los
+    // pone el cliente y pueden llegar desordenados, así que se recorre el buffer entero (acotado por su
+    // capacidad) en vez de cortar en el primer punto fuera de la ventana. Vacío si el buffer no cubre la
+    // ventana y no tiene bastantes puntos: entonces hay que consultar la BD.
+    public Optional<List<Point>> recent(SensorType type, long sinceMillis, int limit, boolean criticalOnly) {
+        Series s = series.get(type);
+        List<Point> points = new ArrayList<>(Math.min(limit, 256));
+        long coveredSince;
+        synchronized (s) {
+            // Todo punto con instante posterior al más reciente sobrescrito sigue en el buffer
+            coveredSince = s.count > s.size() ? s.evictedMaxMillis + 1 : startedAt;
+            for (int i = 0; i < s.size(); i++) {
+                int slot = s.newest(i);
+                long at = s.epochMillis[slot];
+                if (at < sinceMillis || (criticalOnly && !s.critical[slot])) {
+                    continue;
+                }
+                points.add(new Point(at, s.values[slot], lookup(s.locationIds[slot]),
+                        lookup(s.unitIds[slot]), s.critical[slot]));
+            }
+        }
+        points.sort(Comparator.comparingLong(Point::epochMillis));
+        if (points.size() > limit) {
+            points = new ArrayList<>(points.subList(points.size() - limit, points.size()));
+        }
+        // Con `limit` puntos basta si todos son posteriores a lo sobrescrito: nada más nuevo se ha perdido
+        long from = points.isEmpty() || points.size() < limit ? sinceMillis : points.get(0).epochMillis();
+        if (from < coveredSince) {
+            return Optional.empty();
+        }
+        return Optional.of(points);
+    }
+
+    // Sin valor (unidad opcional) se guarda como -1
+    private int intern(String value) {
+        return value == null ? -1 : strings.intern(value).id();
+    }
+
+    private String lookup(int id) {
+        return id < 0 ? null : strings.get(id).key();
+    }
+
+    // Buffer circular de un tipo con una columna por campo
+    private static final class Series {
+        private final long[] epochMillis;
+        private final double[] values;
+        private final int[] locationIds;
+        private final int[] unitIds;
+        private final boolean[] critical;
+        // Puntos añadidos desde el arranque (la posición siguiente es count % capacidad)
+        private long count;
+        // Mayor instante entre los puntos sobrescritos al dar la vuelta
+        private long evictedMaxMillis = Long.MIN_VALUE;
+
+        Series(int capacity) {
+            epochMillis = new long[capacity];
+            values = new double[capacity];
+            locationIds = new int[capacity];
+            unitIds = new int[capacity];
+            critical = new boolean[capacity];
+        }
+
+        void add(long at, double value, int locationId, int unitId, boolean isCritical) {
+            int slot = (int) (count % epochMillis.length);
+            if (count >= epochMillis.length) {
+                evictedMaxMillis = Math.max(evictedMaxMillis, epochMillis[slot]);
+            }
+            epochMillis[slot] = at;
+            values[slot] = value;
+            locationIds[slot] = locationId;
+            unitIds[slot] = unitId;
+            critical[slot] = isCritical;
+            count++;
+        }
+
+        int size() {
+            return (int) Math.min(count, epochMillis.length);
+        }
+
+        // Posición del i-ésimo punto empezando por el más reciente (i = 0)
+        int newest(int i) {
+            return (int) ((count - 1 - i) % epochMillis.length);
+        }
+
+    }
+
+    // Punto de la serie tal y como lo devuelven los endpoints
+    public record Point(long epochMillis, double value, String location, String unit, boolean critical) {}
+}
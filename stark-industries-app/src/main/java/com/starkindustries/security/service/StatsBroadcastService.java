@@ -1,65 +1,156 @@
 package com.starkindustries.security.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.starkindustries.security.config.ExecutorStats;
+import com.starkindustries.security.config.SensorBulkheads;
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-// Servicio que construye y envía periódicamente un snapshot de estadísticas por WebSocket
+// Único publicador de estadísticas en /topic/stats.
+// El procesamiento de eventos sólo incrementa una versión ("marca sucio"); este servicio construye un
+// snapshot inmutable como mucho una vez por intervalo y lo comparten el push periódico, la petición
+// explícita por WebSocket y el endpoint REST de estadísticas.
 @Service
 @Slf4j
 public class StatsBroadcastService {
 
+    private static final String STATS_TOPIC = "/topic/stats";
+
     private final SensorProcessingService sensorProcessingService;
     private final SimpMessagingTemplate messagingTemplate;
-    private final ThreadPoolTaskExecutor sensorExecutor;
+    private final AsyncTaskExecutor sensorExecutor;
+    private final SensorBulkheads sensorBulkheads;
+
+    // Mensajes enviados al broker por motivo (cambio, latido periódico o petición del cliente)
+    private final Counter changeMessages;
+    private final Counter heartbeatMessages;
+    private final Counter requestMessages;
+
+    // Antigüedad máxima del snapshot cacheado (el estado del pool cambia aunque no lleguen eventos)
+    @Value("${stark.stats.publish-interval-ms:250}")
+    private long publishIntervalMs;
+
+    // Último snapshot construido y última versión publicada por cambio
+    private volatile StatsSnapshot current;
+    private volatile long lastPublishedVersion = -1;
 
     @Autowired
     public StatsBroadcastService(
             SensorProcessingService sensorProcessingService,
             SimpMessagingTemplate messagingTemplate,
-            @Qualifier("sensorExecutor") ThreadPoolTaskExecutor sensorExecutor
+            @Qualifier("sensorExecutor") AsyncTaskExecutor sensorExecutor,
+            SensorBulkheads sensorBulkheads,
+            MeterRegistry meterRegistry
     ) {
         this.sensorProcessingService = sensorProcessingService;
         this.messagingTemplate = messagingTemplate;
         this.sensorExecutor = sensorExecutor;
+        this.sensorBulkheads = sensorBulkheads;
+        this.changeMessages = statsMessageCounter(meterRegistry, "change");
+        this.heartbeatMessages = statsMessageCounter(meterRegistry, "heartbeat");
+        this.requestMessages = statsMessageCounter(meterRegistry, "request");
     }
 
-    // Tarea programada: cada 5 segundos envía un snapshot de métricas al topic /topic/stats
+    // Devuelve el snapshot vigente, reconstruyéndolo sólo si hubo eventos nuevos o ha caducado
+    public StatsSnapshot currentSnapshot() {
+        StatsSnapshot snapshot = current;
+        long version = sensorProcessingService.getStatsVersion();
+        if (snapshot == null
+                || snapshot.version() != version
+                || System.currentTimeMillis() - snapshot.builtAtMillis() >= publishIntervalMs) {
+            // Dos hilos pueden reconstruirlo a la vez: ambos resultados son válidos, gana el último
+            snapshot = buildSnapshot(version);
+            current = snapshot;
+        }
+        return snapshot;
+    }
+
+    // Publicación coalescida: como mucho una vez por intervalo y sólo si hubo eventos desde la anterior
+    @Scheduled(fixedRateString = "${stark.stats.publish-interval-ms:250}", initialDelay = 1000)
+    public void publishIfChanged() {
+        if (sensorProcessingService.getStatsVersion() == lastPublishedVersion) {
+            return;
+        }
+        StatsSnapshot snapshot = currentSnapshot();
+        lastPublishedVersion = snapshot.version();
+        send(snapshot, changeMessages);
+    }
+
+    // Tarea programada: cada 5 segundos envía el snapshot aunque no haya cambios (clientes recién conectados)
     @Scheduled(fixedRate = 5000, initialDelay = 5000) // Define que este método se ejecutará automáticamente cada 5000ms (5 segundos) con un retraso inicial de 5 segundos
     public void broadcastStats() {
-        try {
-            Map<String, Object> snapshot = new HashMap<>();
-            Map<String, Long> total = new HashMap<>();
-            sensorProcessingService.getEventStatistics().forEach((k, v) -> total.put(k.name(), v));
-            Map<String, Long> critical = new HashMap<>();
-            sensorProcessingService.getCriticalEventStatistics().forEach((k, v) -> critical.put(k.name(), v));
-            snapshot.put("totalEvents", total);
-            snapshot.put("criticalEvents", critical);
-
-            // Añade información del estado actual del pool de hilos de sensores
-            try {
-                Map<String, Object> threadPool = new HashMap<>();
-                threadPool.put("active", sensorExecutor.getActiveCount());
-                threadPool.put("poolSize", sensorExecutor.getPoolSize());
-                threadPool.put("corePoolSize", sensorExecutor.getCorePoolSize());
-                threadPool.put("maxPoolSize", sensorExecutor.getMaxPoolSize());
-                snapshot.put("activeThreads", sensorExecutor.getActiveCount());
-                snapshot.put("threadPool", threadPool);
-            } catch (Exception e) {
-                log.trace("No se pudieron obtener métricas de hilos: {}", e.getMessage());
-            }
+        send(currentSnapshot(), heartbeatMessages);
+    }
+
+    // Respuesta a la petición explícita de un cliente vía WebSocket
+    public void sendOnRequest() {
+        send(currentSnapshot(), requestMessages);
+    }
 
+    private void send(StatsSnapshot snapshot, Counter reason) {
+        try {
             // Envía el snapshot a todos los clientes suscritos al topic
-            messagingTemplate.convertAndSend("/topic/stats", snapshot);
+            messagingTemplate.convertAndSend(STATS_TOPIC, snapshot);
+            reason.increment();
         } catch (Exception e) {
             log.debug("No se pudo publicar snapshot de estadísticas: {}", e.getMessage());
         }
     }
+
+    // Construye el snapshot con claves String y todos los tipos presentes (a 0 si aún no hay eventos)
+    private StatsSnapshot buildSnapshot(long version) {
+        Map<String, Long> total = new LinkedHashMap<>();
+        Map<String, Long> critical = new LinkedHashMap<>();
+        for (SensorType type : SensorType.values()) {
+            total.put(type.name(), 0L);
+            critical.put(type.name(), 0L);
+        }
+        SensorEventCounters.Snapshot counters = sensorProcessingService.getEventCounters();
+        counters.total().forEach((k, v) -> total.put(k.name(), v));
+        counters.critical().forEach((k, v) -> critical.put(k.name(), v));
+
+        // Añade información del estado actual del pool de hilos de sensores y de cada compartimento por tipo
+        return new StatsSnapshot(
+                version,
+                LocalDateTime.now(),
+                System.currentTimeMillis(),
+                Map.copyOf(total),
+                Map.copyOf(critical),
+                sensorBulkheads.activeCount(),
+                Map.copyOf(ExecutorStats.describe(sensorExecutor)),
+                sensorBulkheads.isEnabled() ? Map.copyOf(sensorBulkheads.describe()) : Map.of()
+        );
+    }
+
+    private static Counter statsMessageCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("stats.broadcast.messages")
+                .description("Mensajes enviados a /topic/stats")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    // Snapshot inmutable y versionado de estadísticas (mismas claves que espera el dashboard)
+    public record StatsSnapshot(
+            long version,
+            LocalDateTime generatedAt,
+            @JsonIgnore long builtAtMillis,
+            Map<String, Long> totalEvents,
+            Map<String, Long> criticalEvents,
+            int activeThreads,
+            Map<String, Object> threadPool,
+            Map<String, Map<String, Object>> bulkheads
+    ) {}
 }
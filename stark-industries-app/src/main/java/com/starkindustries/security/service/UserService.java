@@ -2,6 +2,7 @@ package com.starkindustries.security.service;
 
 import com.starkindustries.security.model.User;
 import com.starkindustries.security.repository.UserRepository;
+import com.starkindustries.security.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.LockedException;
@@ -20,6 +21,8 @@ import java.util.List;
 public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    // Caché de usuarios del filtro JWT: se invalida en cada cambio de estado de un usuario
+    private final PrincipalCache principalCache;
 
     // Intentos máximos antes de bloquear la cuenta
     private static final int MAX_FAILED_ATTEMPTS = 3;
@@ -63,6 +66,7 @@ public class UserService implements UserDetailsService {
                 .build();
 
         user = userRepository.save(user);
+        principalCache.invalidate(username);
         log.info("Usuario creado: {}", username);
         return user;
     }
@@ -79,6 +83,7 @@ public class UserService implements UserDetailsService {
         }
 
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
     }
 
     // Restablece el contador de intentos fallidos y actualiza la fecha de último login
@@ -86,6 +91,7 @@ public class UserService implements UserDetailsService {
         user.setFailedAttempts(0);
         user.setLastLogin(LocalDateTime.now());
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
     }
 
     // Comprueba si ha expirado el tiempo de bloqueo y, si es así, desbloquea la cuenta
@@ -104,6 +110,7 @@ public class UserService implements UserDetailsService {
             user.setLockTime(null);
             user.setFailedAttempts(0);
             userRepository.save(user);
+            principalCache.invalidate(user.getUsername());
             return true;
         }
         return false;
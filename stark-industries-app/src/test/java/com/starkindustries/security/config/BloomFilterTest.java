@@ -0,0 +1,79 @@
+package com.starkindustries.security.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void dimensionaBitsYHashesSegunLaTasaPedida() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // m = -n·ln(p) / ln(2)² ≈ 95.851 bits, redondeado a palabras de 64; k ≈ 7
+        assertThat(filter.bitCount()).isBetween(95_851L, 95_851L + 64);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    void sinFalsosNegativosYFalsosPositivosCercaDeLaTasa() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("jti-" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("otro-" + i)) {
+                falsePositives++;
+            }
+        }
+        // 1 % esperado; el margen cubre la varianza sin tapar un hash que reparta mal
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void insercionesConcurrentesNoPierdenBits() throws Exception {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        int threads = 8;
+        int perThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        filter.put(thread + "-" + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Con varios hilos escribiendo en la misma palabra, un OR no atómico perdería bits ajenos
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertThat(filter.mightContain(t + "-" + i)).isTrue();
+            }
+        }
+    }
+}
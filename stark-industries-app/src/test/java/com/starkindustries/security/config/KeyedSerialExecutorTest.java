@@ -0,0 +1,100 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Prueba de estrés del orden por clave: muchos productores y claves a la vez sobre un pool pequeño
+class KeyedSerialExecutorTest {
+
+    private static final int KEYS = 64;
+    private static final int TASKS_PER_KEY = 2_000;
+
+    private ThreadPoolExecutor pool;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void conservaElOrdenYNoSolapaTareasDeLaMismaClave() throws Exception {
+        pool = new ThreadPoolExecutor(8, 8, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        runStress(new KeyedSerialExecutor("test", pool, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void conservaElOrdenCuandoElPoolRechazaYEjecutaElLlamante() throws Exception {
+        // Cola mínima: la mayoría de entregas se rechazan y el carril avanza en el hilo productor
+        pool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(2),
+                new ThreadPoolExecutor.AbortPolicy());
+        runStress(new KeyedSerialExecutor("test", pool, true, new SimpleMeterRegistry()));
+    }
+
+    private void runStress(KeyedSerialExecutor executor) throws Exception {
+        Map<Integer, List<Integer>> executed = new ConcurrentHashMap<>();
+        Map<Integer, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService producers = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int k = 0; k < KEYS; k++) {
+            int key = k;
+            executed.put(key, Collections.synchronizedList(new ArrayList<>()));
+            running.put(key, new AtomicInteger());
+            producers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int seq = 0; seq < TASKS_PER_KEY; seq++) {
+                    int value = seq;
+                    futures.add(executor.submit("sensor-" + key, () -> {
+                        if (running.get(key).incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        executed.get(key).add(value);
+                        running.get(key).decrementAndGet();
+                        return value;
+                    }));
+                }
+            });
+        }
+        start.countDown();
+        producers.shutdown();
+        assertThat(producers.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+
+        assertThat(overlaps).hasValue(0);
+        for (int k = 0; k < KEYS; k++) {
+            List<Integer> seqs = executed.get(k);
+            assertThat(seqs).hasSize(TASKS_PER_KEY);
+            for (int i = 0; i < TASKS_PER_KEY; i++) {
+                assertThat(seqs.get(i)).as("clave %d, posición %d", k, i).isEqualTo(i);
+            }
+        }
+        assertThat(executor.getPendingCount()).isZero();
+        assertThat(executor.getLaneDepths()).isEmpty();
+    }
+}
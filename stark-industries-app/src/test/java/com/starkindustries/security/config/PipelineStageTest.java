@@ -0,0 +1,172 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Etapas con cola acotada y lotes: límite de workers, back-pressure en el productor, fallos aislados
+// y, encadenadas, una etapa lenta que no retiene al hilo que evalúa
+class PipelineStageTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    @Test
+    void procesaCadaElementoUnaVezEnLotesYConComoMuchoLosWorkersIndicados() throws Exception {
+        int items = 5_000;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(items);
+        PipelineStage<Integer> stage = stage("test", 3, 50, 8_192, batch -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            batchSizes.add(batch.size());
+            batch.forEach(item -> {
+                assertThat(seen.add(item)).as("duplicado %s", item).isTrue();
+                done.countDown();
+            });
+            running.decrementAndGet();
+        });
+
+        for (int i = 0; i < items; i++) {
+            assertThat(stage.submit(i, 50)).isTrue();
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).hasSize(items);
+        assertThat(batchSizes).allMatch(size -> size <= 50);
+        assertThat(peak.get()).isLessThanOrEqualTo(3);
+        assertThat(meterRegistry.get("sensor.pipeline.items").tag("stage", "test").counter().count()).isEqualTo(items);
+    }
+
+    @Test
+    void conLaColaLlenaElProductorProcesaElElementoEnSuHilo() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+        List<String> handledBy = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer> stage = stage("lenta", 1, 1, 4, batch -> {
+            handledBy.add(Thread.currentThread().getName());
+            if (!Thread.currentThread().getName().equals(caller)) {
+                await(release);
+            }
+        });
+
+        // Uno lo retiene el worker bloqueado y cuatro llenan la cola
+        int queued = 0;
+        for (int i = 0; i < 5; i++) {
+            queued += stage.submit(i, 50) ? 1 : 0;
+        }
+        assertThat(queued).isEqualTo(5);
+        // El sexto no cabe: se procesa en el hilo llamante, sin perderse
+        assertThat(stage.submit(5, 10)).isFalse();
+        assertThat(handledBy).contains(caller);
+        assertThat(meterRegistry.get("sensor.pipeline.inline").tag("stage", "lenta").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        stage.stop(5_000);
+        assertThat(handledBy).hasSize(6);
+    }
+
+    @Test
+    void unLoteQueFallaNoDetieneLaEtapa() throws Exception {
+        CountDownLatch done = new CountDownLatch(9);
+        PipelineStage<Integer> stage = stage("fallos", 1, 1, 16, batch -> {
+            if (batch.get(0) == 3) {
+                throw new IllegalStateException("fallo simulado");
+            }
+            done.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            stage.submit(i, 50);
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("sensor.pipeline.errors").tag("stage", "fallos").counter().count()).isEqualTo(1);
+    }
+
+    // Comparación con el procesamiento en línea de antes: evaluar, guardar (un viaje a BD por evento) y
+    // publicar en el mismo hilo. Con etapas, el hilo que evalúa sólo encola y la BD recibe lotes.
+    @Test
+    void conEtapasUnaBaseDeDatosLentaNoRetieneAlHiloQueEvalua() throws Exception {
+        int events = 1_000;
+
+        AtomicInteger inlineBroadcasts = new AtomicInteger();
+        long inlineStart = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            database(List.of(i));
+            inlineBroadcasts.incrementAndGet();
+        }
+        long inlineMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inlineStart);
+
+        CountDownLatch broadcasted = new CountDownLatch(events);
+        PipelineStage<Integer> broadcast = stage("broadcast", 2, 100, 5_000, batch -> batch.forEach(i -> broadcasted.countDown()));
+        PipelineStage<Integer> persist = stage("persist", 1, 50, 5_000, batch -> {
+            database(batch);
+            batch.forEach(item -> broadcast.submit(item, 50));
+        });
+        long stagedStart = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            persist.submit(i, 50);
+        }
+        long producerMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stagedStart);
+        assertThat(broadcasted.await(30, TimeUnit.SECONDS)).isTrue();
+        long stagedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stagedStart);
+
+        assertThat(inlineBroadcasts.get()).isEqualTo(events);
+        assertThat(inlineMs).isGreaterThanOrEqualTo(events);
+        // El productor no espera a la BD y el total se reduce a un viaje por lote
+        assertThat(producerMs).isLessThan(inlineMs / 10);
+        assertThat(stagedMs).isLessThan(inlineMs / 2);
+        assertThat(meterRegistry.get("sensor.pipeline.inline").tag("stage", "persist").counter().count()).isZero();
+    }
+
+    // Un viaje a BD de 1 ms, sea un evento o un lote
+    private static void database(List<Integer> rows) {
+        sleep(1);
+    }
+
+    private PipelineStage<Integer> stage(String name, int workers, int batchSize, int capacity,
+                                         Consumer<List<Integer>> handler) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        executors.add(executor);
+        return new PipelineStage<>(name, executor, workers, batchSize, 0, capacity, WaitStrategy.PARKING, handler,
+                meterRegistry);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
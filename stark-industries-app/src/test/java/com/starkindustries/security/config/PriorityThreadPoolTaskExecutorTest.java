@@ -0,0 +1,157 @@
+package com.starkindustries.security.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Cola por plazos del pool de sensores: los eventos críticos no esperan detrás del trabajo de baja prioridad
+class PriorityThreadPoolTaskExecutorTest {
+
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void unCriticoEntraDelanteDeUnaColaLlenaDeTrabajoBajo() throws Exception {
+        ThreadPoolTaskExecutor executor = priorityPool(1, Map.of(
+                TaskPriority.CRITICAL, 0L, TaskPriority.HIGH, 50L, TaskPriority.NORMAL, 250L, TaskPriority.LOW, 1_000L));
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        executor.execute(() -> await(release));
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            executor.execute(new TaskPriority.Task(TaskPriority.LOW, () -> order.add("low-" + n)));
+        }
+        executor.execute(new TaskPriority.Task(TaskPriority.HIGH, () -> order.add("high")));
+        executor.execute(new TaskPriority.Task(TaskPriority.CRITICAL, () -> order.add("critical")));
+
+        release.countDown();
+        awaitSize(order, 102);
+
+        assertThat(order.subList(0, 3)).containsExactly("critical", "high", "low-0");
+        assertThat(order.get(101)).isEqualTo("low-99");
+    }
+
+    @Test
+    void unaTareaBajaQueHaAgotadoSuEsperaAdelantaALasUrgentesNuevas() throws Exception {
+        ThreadPoolTaskExecutor executor = priorityPool(1, Map.of(TaskPriority.HIGH, 50L, TaskPriority.LOW, 100L));
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        executor.execute(() -> await(release));
+        executor.execute(new TaskPriority.Task(TaskPriority.LOW, () -> order.add("low-antigua")));
+        executor.execute(new TaskPriority.Task(TaskPriority.HIGH, () -> order.add("high-reciente")));
+        Thread.sleep(80);
+        // Su plazo (llegada + 50 ms) ya es posterior al de la tarea baja (llegada hace 80 ms + 100 ms)
+        executor.execute(new TaskPriority.Task(TaskPriority.HIGH, () -> order.add("high-tardia")));
+
+        release.countDown();
+        awaitSize(order, 3);
+
+        assertThat(order).containsExactly("high-reciente", "low-antigua", "high-tardia");
+    }
+
+    @Test
+    void elP99DeEsperaDeLosCriticosNoDependeDelTrabajoBajoEnCola() throws Exception {
+        long fifoP99 = criticalWaitP99(fifoPool());
+        long priorityP99 = criticalWaitP99(priorityPool(2, Map.of(
+                TaskPriority.CRITICAL, 0L, TaskPriority.HIGH, 50L, TaskPriority.NORMAL, 250L, TaskPriority.LOW, 1_000L)));
+
+        // Con FIFO cada crítico espera a los ~100 bajos que tiene delante (≈ 50 ms con 2 hilos de 1 ms por tarea);
+        // con la cola por plazos, sólo a que quede libre un hilo
+        assertThat(priorityP99).as("p99 de espera de críticos con prioridad: %d µs (FIFO: %d µs)",
+                        priorityP99 / 1_000, fifoP99 / 1_000)
+                .isLessThan(TimeUnit.MILLISECONDS.toNanos(20))
+                .isLessThan(fifoP99 / 2);
+    }
+
+    // Mantiene ~100 tareas LOW de 1 ms en cola y mide la espera (envío -> inicio) de 100 tareas CRITICAL
+    private long criticalWaitP99(ThreadPoolTaskExecutor executor) throws Exception {
+        AtomicBoolean loading = new AtomicBoolean(true);
+        Thread producer = Thread.ofPlatform().start(() -> {
+            while (loading.get()) {
+                if (executor.getThreadPoolExecutor().getQueue().size() < 100) {
+                    executor.execute(new TaskPriority.Task(TaskPriority.LOW, () -> sleep(1)));
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        while (executor.getThreadPoolExecutor().getQueue().size() < 100) {
+            Thread.sleep(1);
+        }
+        long[] waits = new long[100];
+        CountDownLatch done = new CountDownLatch(waits.length);
+        for (int i = 0; i < waits.length; i++) {
+            int n = i;
+            long submittedAt = System.nanoTime();
+            executor.execute(new TaskPriority.Task(TaskPriority.CRITICAL, () -> {
+                waits[n] = System.nanoTime() - submittedAt;
+                done.countDown();
+            }));
+            Thread.sleep(5);
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        loading.set(false);
+        producer.join();
+        Arrays.sort(waits);
+        return waits[(int) Math.ceil(waits.length * 0.99) - 1];
+    }
+
+    private ThreadPoolTaskExecutor priorityPool(int threads, Map<TaskPriority, Long> maxWaitMs) {
+        PriorityThreadPoolTaskExecutor executor = new PriorityThreadPoolTaskExecutor("test", maxWaitMs);
+        executor.bindTo(new SimpleMeterRegistry());
+        return configure(executor, threads);
+    }
+
+    private ThreadPoolTaskExecutor fifoPool() {
+        return configure(new ThreadPoolTaskExecutor(), 2);
+    }
+
+    private ThreadPoolTaskExecutor configure(ThreadPoolTaskExecutor executor, int threads) {
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1_000);
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+
+    private static void awaitSize(List<String> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(list).hasSize(size);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.starkindustries.security.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    void redondeaLaCapacidadYRechazaAlLlenarse() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(5, WaitStrategy.YIELDING);
+        assertThat(buffer.capacity()).isEqualTo(8);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(buffer.tryPublish(i, i)).isTrue();
+        }
+        assertThat(buffer.tryPublish(8, 8)).isFalse();
+        assertThat(buffer.publish(8, 8, TimeUnit.MILLISECONDS.toNanos(5))).isFalse();
+        assertThat(buffer.size()).isEqualTo(8);
+
+        List<Integer> items = new ArrayList<>();
+        long[] enqueuedAt = new long[8];
+        assertThat(buffer.drainTo(items, enqueuedAt, 3)).isEqualTo(3);
+        assertThat(items).containsExactly(0, 1, 2);
+        assertThat(enqueuedAt[2]).isEqualTo(2);
+        // Los huecos liberados se reutilizan en la siguiente vuelta
+        assertThat(buffer.tryPublish(8, 8)).isTrue();
+    }
+
+    @Test
+    void pollDevuelveCeroSiNoLlegaNadaEnElPlazo() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4, WaitStrategy.PARKING);
+        assertThat(buffer.poll(new ArrayList<>(), new long[4], 4, TimeUnit.MILLISECONDS.toNanos(5))).isZero();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    // Varios productores y consumidores sobre un buffer pequeño: cada elemento se consume exactamente una
+    // vez y, para cada productor, en el orden en que lo publicó
+    @Test
+    void variosProductoresYConsumidoresSinPerdidasNiDuplicados() throws Exception {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 100_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(64, WaitStrategy.YIELDING);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong consumed = new AtomicLong();
+        long total = (long) producers * perProducer;
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.publish(producer * perProducer + i, System.nanoTime(), TimeUnit.SECONDS.toNanos(1))) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+        List<List<Long>> received = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            List<Long> mine = new ArrayList<>();
+            received.add(mine);
+            tasks.add(pool.submit(() -> {
+                start.await();
+                long[] enqueuedAt = new long[16];
+                List<Long> batch = new ArrayList<>(16);
+                while (consumed.get() < total) {
+                    batch.clear();
+                    int n = buffer.poll(batch, enqueuedAt, 16, TimeUnit.MILLISECONDS.toNanos(10));
+                    mine.addAll(batch);
+                    consumed.addAndGet(n);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        BitSet seen = new BitSet((int) total);
+        for (List<Long> mine : received) {
+            long[] lastByProducer = new long[producers];
+            Arrays.fill(lastByProducer, -1);
+            for (long value : mine) {
+                assertThat(seen.get((int) value)).as("duplicado %d", value).isFalse();
+                seen.set((int) value);
+                int producer = (int) (value / perProducer);
+                // Un mismo consumidor ve los elementos de cada productor en orden creciente
+                assertThat(value).isGreaterThan(lastByProducer[producer]);
+                lastByProducer[producer] = value;
+            }
+        }
+        assertThat(seen.cardinality()).isEqualTo((int) total);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+}
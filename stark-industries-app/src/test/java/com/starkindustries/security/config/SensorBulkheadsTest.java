@@ -0,0 +1,120 @@
+package com.starkindustries.security.config;
+
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Aislamiento entre tipos: con el compartimento de ACCESS saturado, los demás tipos no esperan ni se rechazan
+class SensorBulkheadsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SensorBulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        AsyncConfiguration configuration = new AsyncConfiguration();
+        ReflectionTestUtils.setField(configuration, "bulkheadsEnabled", true);
+        ReflectionTestUtils.setField(configuration, "priorityQueue", true);
+        ReflectionTestUtils.setField(configuration, "highMaxWaitMs", 50L);
+        ReflectionTestUtils.setField(configuration, "normalMaxWaitMs", 250L);
+        ReflectionTestUtils.setField(configuration, "lowMaxWaitMs", 1_000L);
+        // ACCESS: 2 hilos, 2 huecos en cola y rechazo; el resto, con los valores por defecto
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("stark.sensors.concurrent.bulkheads.access.core-size", "2")
+                .withProperty("stark.sensors.concurrent.bulkheads.access.max-size", "2")
+                .withProperty("stark.sensors.concurrent.bulkheads.access.queue-capacity", "2")
+                .withProperty("stark.sensors.concurrent.bulkheads.access.rejection-policy", "abort");
+        bulkheads = configuration.sensorBulkheads(meterRegistry, environment);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        bulkheads.destroy();
+    }
+
+    @Test
+    void unTipoSaturadoNoFrenaNiRechazaALosDemas() throws Exception {
+        // 10 sensores de acceso bloqueados: 2 en ejecución, 2 en cola y 6 rechazados
+        List<CompletableFuture<Integer>> access = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            access.add(bulkheads.lanes(SensorType.ACCESS).submit("ACCESS@puerta-" + i, TaskPriority.HIGH, () -> {
+                await(release);
+                return 1;
+            }));
+        }
+        long rejected = access.stream().filter(f -> f.isCompletedExceptionally()).count();
+        assertThat(rejected).isEqualTo(6);
+        assertThatThrownBy(() -> access.get(9).get()).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        // Mientras tanto, temperatura y movimiento se atienden a su ritmo
+        long[] latencies = new long[60];
+        List<CompletableFuture<Long>> others = new ArrayList<>();
+        for (int i = 0; i < latencies.length; i++) {
+            SensorType type = i % 2 == 0 ? SensorType.TEMPERATURE : SensorType.MOTION;
+            long submittedAt = System.nanoTime();
+            others.add(bulkheads.lanes(type).submit(type + "@zona-" + i, TaskPriority.NORMAL, () -> {
+                sleep(10);
+                return System.nanoTime() - submittedAt;
+            }));
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = others.get(i).get(5, TimeUnit.SECONDS);
+        }
+        Arrays.sort(latencies);
+        long maxMs = TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length - 1]);
+        // 30 tareas de 10 ms por tipo sobre 6 hilos: unos 50 ms; el margen cubre una máquina lenta
+        assertThat(maxMs).as("latencia máxima de TEMPERATURE/MOTION (ms)").isLessThan(1_000);
+        assertThat(meterRegistry.get("executor.lane.rejected").tag("name", "sensor-temperature").counter().count()).isZero();
+        assertThat(meterRegistry.get("executor.lane.rejected").tag("name", "sensor-motion").counter().count()).isZero();
+        assertThat(meterRegistry.get("executor.lane.rejected").tag("name", "sensor-access").counter().count()).isEqualTo(6);
+
+        // Los de acceso admitidos terminan al liberar el bloqueo
+        release.countDown();
+        for (int i = 0; i < 4; i++) {
+            assertThat(access.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void cadaTipoTieneSuPropioPool() {
+        assertThat(bulkheads.isEnabled()).isTrue();
+        assertThat(bulkheads.describe()).containsOnlyKeys("MOTION", "TEMPERATURE", "ACCESS");
+        assertThat(bulkheads.describe().get("ACCESS")).containsEntry("maxPoolSize", 2);
+        assertThat(bulkheads.describe().get("MOTION")).containsEntry("maxPoolSize", 12);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
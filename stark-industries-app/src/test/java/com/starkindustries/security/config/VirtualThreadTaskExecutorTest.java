@@ -0,0 +1,125 @@
+package com.starkindustries.security.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Modo virtual frente al pool clásico de sensores, con tareas que pasan casi todo el tiempo bloqueadas (E/S)
+class VirtualThreadTaskExecutorTest {
+
+    // Lo que admite el pool clásico sin rechazar: 50 hilos + 200 en cola
+    private static final int TASKS = 250;
+    private static final long BLOCKED_MS = 50;
+
+    @Test
+    void conTareasBloqueantesElModoVirtualLasAtiendeTodasALaVez() throws Exception {
+        AsyncTaskExecutor platform = sensorExecutor(false);
+        AsyncTaskExecutor virtual = sensorExecutor(true);
+        try {
+            Run platformRun = run(platform);
+            Run virtualRun = run(virtual);
+
+            // El pool clásico no pasa de 50 hilos: 250 tareas de 50 ms son al menos 5 rondas
+            assertThat(platformRun.threads()).hasSizeLessThanOrEqualTo(50);
+            assertThat(platformRun.peak()).isLessThanOrEqualTo(50);
+            assertThat(platformRun.elapsedMs()).isGreaterThanOrEqualTo(5 * BLOCKED_MS);
+            assertThat(platformRun.virtualThreads()).isZero();
+            // En modo virtual cada tarea tiene su hilo y todas esperan a la vez
+            assertThat(virtualRun.virtualThreads()).isEqualTo(TASKS);
+            assertThat(virtualRun.peak()).isGreaterThan(50);
+            assertThat(virtualRun.elapsedMs()).isLessThan(platformRun.elapsedMs() / 2);
+        } finally {
+            ((ThreadPoolTaskExecutor) platform).shutdown();
+        }
+    }
+
+    @Test
+    void alLlegarAlLimiteQuienEnviaEsperaEnLugarDeRecibirUnRechazo() throws Exception {
+        VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("Test-", 4, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                release.await();
+                return null;
+            });
+        }
+        awaitActive(executor, 4);
+
+        // La quinta tarea no se rechaza: el hilo que la envía queda bloqueado hasta que se libera un hueco
+        CountDownLatch fifthSubmitted = new CountDownLatch(1);
+        Thread submitter = Thread.ofPlatform().start(() -> {
+            executor.submit(() -> null);
+            fifthSubmitted.countDown();
+        });
+        assertThat(fifthSubmitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(executor.getActiveCount()).isEqualTo(4);
+
+        release.countDown();
+        assertThat(fifthSubmitted.await(5, TimeUnit.SECONDS)).isTrue();
+        submitter.join(5_000);
+        awaitActive(executor, 0);
+        assertThat(ExecutorStats.describe(executor))
+                .containsEntry("mode", "virtual")
+                .containsEntry("maxPoolSize", 4);
+    }
+
+    private static AsyncTaskExecutor sensorExecutor(boolean virtualThreads) {
+        AsyncConfiguration configuration = new AsyncConfiguration();
+        ReflectionTestUtils.setField(configuration, "virtualThreads", virtualThreads);
+        ReflectionTestUtils.setField(configuration, "sensorConcurrencyLimit", TASKS);
+        ReflectionTestUtils.setField(configuration, "priorityQueue", false);
+        return configuration.sensorExecutor();
+    }
+
+    private record Run(long elapsedMs, int peak, Set<String> threads, int virtualThreads) {
+    }
+
+    private static Run run(AsyncTaskExecutor executor) throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger virtualThreads = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>(TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            futures.add(executor.submit(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                threads.add(Thread.currentThread().getName());
+                if (Thread.currentThread().isVirtual()) {
+                    virtualThreads.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(BLOCKED_MS);
+                } finally {
+                    running.decrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Run(elapsedMs, peak.get(), threads, virtualThreads.get());
+    }
+
+    private static void awaitActive(VirtualThreadTaskExecutor executor, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (executor.getActiveCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(executor.getActiveCount()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,72 @@
+package com.starkindustries.security.controller;
+
+import com.starkindustries.security.security.PasswordHashingOverloadException;
+import com.starkindustries.security.service.AuthenticationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Traducción a HTTP de los fallos del login asíncrono
+class AuthenticationControllerTest {
+
+    private final AuthenticationService authenticationService = mock(AuthenticationService.class);
+    private final AuthenticationController controller = new AuthenticationController(authenticationService);
+
+    @Test
+    void conElPoolDeHashingSaturadoResponde503ConRetryAfter() throws Exception {
+        when(authenticationService.authenticateAsync(any(), anyString())).thenReturn(CompletableFuture.failedFuture(
+                new PasswordHashingOverloadException("Cola de verificación de contraseñas llena", 2)));
+
+        ResponseEntity<?> response = login();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(((Map<?, ?>) response.getBody()).get("retryAfterSeconds")).isEqualTo(2L);
+    }
+
+    @Test
+    void laSobrecargaEnvueltaEnUnaEtapaPosteriorTambienDa503() throws Exception {
+        // El fallo llega envuelto en CompletionException cuando pasa por otra etapa del futuro
+        CompletableFuture<AuthenticationService.AuthenticationResponse> wrapped = CompletableFuture
+                .<AuthenticationService.AuthenticationResponse>failedFuture(
+                        new PasswordHashingOverloadException("Verificación descartada tras 2100 ms en cola", 2))
+                .thenApply(r -> r);
+        when(authenticationService.authenticateAsync(any(), anyString())).thenReturn(wrapped);
+
+        ResponseEntity<?> response = login();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Test
+    void losErroresDeAutenticacionConservanSuCodigo() throws Exception {
+        when(authenticationService.authenticateAsync(any(), anyString())).thenReturn(CompletableFuture.failedFuture(
+                new ResponseStatusException(HttpStatus.LOCKED, "Cuenta bloqueada")));
+
+        ResponseEntity<?> response = login();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.LOCKED);
+        assertThat(response.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+    }
+
+    private ResponseEntity<?> login() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("10.0.0.1");
+        return controller.login(new AuthenticationService.AuthenticationRequest("jarvis", "jarvis123"), request)
+                .get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,146 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.AccessLog;
+import com.starkindustries.security.model.SensorType;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Regresión de planes: cada consulta se ejecuta a través del repositorio, se captura el SQL que genera
+// Hibernate y se pide a H2 su EXPLAIN. El plan nombra el índice elegido (o `tableScan` si no usa ninguno).
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.starkindustries.security.repository.QueryPlanTest$CapturedSql"
+})
+class QueryPlanTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private SensorEventRepository sensorEventRepository;
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Autowired
+    private SecurityAlertRepository securityAlertRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Hibernate lo instancia por nombre de clase: guarda el último SQL preparado
+    public static class CapturedSql implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        CapturedSql.STATEMENTS.clear();
+    }
+
+    @Test
+    void consultasDerivadasDeEventos() {
+        sensorEventRepository.findRecentBySensorType(SensorType.MOTION, NOW);
+        assertThat(lastPlan()).contains("idx_sensor_events_type_timestamp");
+
+        sensorEventRepository.findLatestBySensorType(SensorType.MOTION, NOW, true, PageRequest.of(0, 50));
+        assertThat(lastPlan()).contains("idx_sensor_events_type_timestamp");
+
+        sensorEventRepository.findByTimestampBetween(NOW.minusDays(1), NOW);
+        assertThat(lastPlan()).contains("idx_sensor_events_timestamp_id");
+
+        sensorEventRepository.findByCriticalTrue();
+        assertThat(lastPlan()).contains("idx_sensor_events_critical_timestamp");
+    }
+
+    @Test
+    void paginaPorCursorUsaElIndiceDelFiltro() {
+        assertThat(pagePlan(SensorType.ACCESS, null, null)).contains("idx_sensor_events_type_timestamp");
+        assertThat(pagePlan(null, "Laboratorio", null)).contains("idx_sensor_events_location_timestamp");
+        assertThat(pagePlan(null, null, true)).contains("idx_sensor_events_critical_timestamp");
+        // Sin filtros, el rango temporal y el orden (timestamp, id) salen del mismo índice
+        assertThat(pagePlan(null, null, null)).contains("idx_sensor_events_timestamp_id").contains("index sorted");
+    }
+
+    @Test
+    void exportacionesUsanElIndiceDelFiltro() {
+        try (Stream<?> rows = sensorEventRepository.streamFiltered(SensorType.TEMPERATURE, null, null, NOW.minusDays(1), NOW)) {
+            rows.count();
+        }
+        assertThat(lastPlan()).contains("idx_sensor_events_type_timestamp");
+
+        try (Stream<?> rows = accessLogRepository.streamFiltered(null, null, null, NOW.minusDays(1), NOW)) {
+            rows.count();
+        }
+        assertThat(lastPlan()).contains("idx_access_logs_timestamp");
+
+        try (Stream<?> rows = accessLogRepository.streamFiltered(AccessLog.AccessType.LOGIN, null, false, NOW.minusDays(1), NOW)) {
+            rows.count();
+        }
+        assertThat(lastPlan()).doesNotContain("tableScan");
+    }
+
+    @Test
+    void consultasDeLogsDeAcceso() {
+        accessLogRepository.countFailedAttemptsSince("tony", NOW.minusHours(1));
+        assertThat(lastPlan()).contains("idx_access_logs_username_successful_timestamp");
+
+        accessLogRepository.findSuspiciousIpAddresses(5);
+        assertThat(lastPlan()).contains("idx_access_logs_successful_ip");
+    }
+
+    @Test
+    void consultasDeAlertas() {
+        securityAlertRepository.findActiveAlertsPrioritized();
+        assertThat(lastPlan()).contains("idx_security_alerts_resolved_level_created");
+    }
+
+    @Test
+    void laRetencionNoRecorreLaTablaEntera() {
+        sensorEventRepository.findIdsBefore(NOW, PageRequest.of(0, 100));
+        assertThat(lastPlan()).contains("idx_sensor_events_timestamp_id");
+
+        accessLogRepository.findIdsBefore(NOW, PageRequest.of(0, 100));
+        assertThat(lastPlan()).contains("idx_access_logs_timestamp");
+
+        securityAlertRepository.findIdsBefore(NOW, PageRequest.of(0, 100));
+        assertThat(lastPlan()).contains("idx_security_alerts_").doesNotContain("tableScan");
+    }
+
+    private String pagePlan(SensorType type, String location, Boolean critical) {
+        sensorEventRepository.findPageAfter(type, location, critical, NOW.minusDays(1), NOW, NOW.minusDays(1),
+                Long.MIN_VALUE, PageRequest.of(0, 101));
+        return lastPlan();
+    }
+
+    // EXPLAIN del último SQL capturado; el plan se decide al preparar, así que basta con parámetros nulos
+    private String lastPlan() {
+        String sql = CapturedSql.STATEMENTS.get(CapturedSql.STATEMENTS.size() - 1);
+        return String.join("\n", jdbcTemplate.query("EXPLAIN " + sql, statement -> {
+            int count = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= count; i++) {
+                statement.setObject(i, null);
+            }
+        }, (rs, row) -> rs.getString(1)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.starkindustries.security.repository;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.service.SensorTimeSeries;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Últimos eventos de un tipo con 1M filas en la tabla: la ventana que el buffer en memoria ya no cubre
+// se pide a la BD con LIMIT en vez de cargarla entera y recortarla en Java. Un único test para insertar
+// las filas una sola vez (se deshacen al acabar, con la transacción del test).
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class RecentEventsQueryTest {
+
+    private static final int ROWS = 1_000_000;
+    // Una fila cada 86 ms: 1M filas cubren las últimas ~24 h
+    private static final int STEP_MS = 86;
+    private static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+
+    @Autowired
+    private SensorEventRepository sensorEventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 50 últimos MOTION de las últimas 6 h (~83.000 filas del tipo en la ventana). En H2 el índice
+    // (sensor_type, timestamp) no se recorre hacia atrás, así que la BD aún lee la ventana para el
+    // ORDER BY ... DESC, pero sin crear una entidad por fila; en BD que sí lo recorren, se para en el LIMIT.
+    @Test
+    void elLimiteEnBdDevuelveLoMismoQueLaVentanaEnteraYQueElBuffer() {
+        // Un tercio de cada tipo, uno de cada diez crítico
+        jdbcTemplate.update("""
+                INSERT INTO "sensor_events" ("id", "sensor_type", "sensor_id", "location", "sensor_value", "unit",
+                    "critical", "timestamp", "processed_at", "processing_time_ms")
+                SELECT X, CASE MOD(X, 3) WHEN 0 THEN 'MOTION' WHEN 1 THEN 'TEMPERATURE' ELSE 'ACCESS' END,
+                    'S-' || MOD(X, 16), 'Zona ' || MOD(X, 8), MOD(X, 100), 'u', MOD(X, 10) = 0,
+                    DATEADD(MILLISECOND, -X * %d, CAST(? AS TIMESTAMP)), CAST(? AS TIMESTAMP), 1
+                FROM SYSTEM_RANGE(1, %d)
+                """.formatted(STEP_MS, ROWS), NOW, NOW);
+        LocalDateTime since = NOW.minusHours(6);
+
+        for (boolean criticalOnly : new boolean[]{false, true}) {
+            List<LocalDateTime> loaded = timestamps(loadWholeWindow(SensorType.MOTION, since, 50, criticalOnly));
+            List<LocalDateTime> limited = timestamps(latest(SensorType.MOTION, since, 50, criticalOnly));
+            assertThat(limited).hasSize(50).isSorted().isEqualTo(loaded);
+        }
+
+        SensorTimeSeries timeSeries = ringWithLatest(SensorType.MOTION, 20_000);
+        long sinceMillis = since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertThat(timeSeries.recent(SensorType.MOTION, sinceMillis, 50, false).orElseThrow())
+                .extracting(p -> LocalDateTime.ofInstant(Instant.ofEpochMilli(p.epochMillis()), ZoneId.systemDefault()))
+                .isEqualTo(timestamps(latest(SensorType.MOTION, since, 50, false)));
+
+        long wholeWindowNanos = bestOf3(() -> loadWholeWindow(SensorType.MOTION, since, 50, false));
+        long limitedNanos = bestOf3(() -> latest(SensorType.MOTION, since, 50, false));
+        long ringNanos = bestOf3(() -> timeSeries.recent(SensorType.MOTION, sinceMillis, 50, false).orElseThrow());
+
+        // El buffer recorre sus 10.000 puntos en cada lectura: es del orden de la consulta con LIMIT, sin
+        // pasar por la BD; las dos muy por debajo de cargar la ventana
+        assertThat(limitedNanos).isLessThan(wholeWindowNanos / 2);
+        assertThat(ringNanos).isLessThan(wholeWindowNanos / 2);
+    }
+
+    // Lo que hacía el controlador: toda la ventana del tipo, filtrada, ordenada y recortada en Java
+    private List<SensorEvent> loadWholeWindow(SensorType type, LocalDateTime since, int limit, boolean criticalOnly) {
+        List<SensorEvent> events = sensorEventRepository.findRecentBySensorType(type, since);
+        if (criticalOnly) {
+            events = events.stream().filter(e -> Boolean.TRUE.equals(e.getCritical())).collect(Collectors.toList());
+        }
+        events.sort(Comparator.comparing(SensorEvent::getTimestamp));
+        return events.size() > limit ? events.subList(events.size() - limit, events.size()) : events;
+    }
+
+    // Lo que hace ahora
+    private List<SensorEvent> latest(SensorType type, LocalDateTime since, int limit, boolean criticalOnly) {
+        List<SensorEvent> events = new ArrayList<>(
+                sensorEventRepository.findLatestBySensorType(type, since, criticalOnly, PageRequest.of(0, limit)));
+        Collections.reverse(events);
+        return events;
+    }
+
+    // Buffer en memoria que ya ha dado la vuelta y conserva los `count / 2` eventos más recientes del tipo
+    private SensorTimeSeries ringWithLatest(SensorType type, int count) {
+        SensorTimeSeries timeSeries = new SensorTimeSeries();
+        ReflectionTestUtils.setField(timeSeries, "capacity", count / 2);
+        ReflectionTestUtils.setField(timeSeries, "maxStrings", 64);
+        ReflectionTestUtils.invokeMethod(timeSeries, "init");
+        timeSeries.append(latest(type, NOW.minusDays(2), count, false));
+        entityManager.clear();
+        return timeSeries;
+    }
+
+    // Mejor de 3; se vacía el contexto de persistencia tras cada consulta para que ninguna se beneficie de
+    // las entidades que dejó la anterior
+    private long bestOf3(Supplier<?> query) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            query.get();
+            best = Math.min(best, System.nanoTime() - start);
+            entityManager.clear();
+        }
+        return best;
+    }
+
+    private static List<LocalDateTime> timestamps(List<SensorEvent> events) {
+        return events.stream().map(SensorEvent::getTimestamp).toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.starkindustries.security.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private final TokenRevocationService revocationService = mock(TokenRevocationService.class);
+    private final JwtService jwtService = new JwtService(revocationService, new SimpleMeterRegistry());
+    private final PrincipalCache principalCache = new PrincipalCache(new SimpleMeterRegistry());
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<UserDetailsService> provider = mock(ObjectProvider.class);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, provider, principalCache);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtService, "secretKeyProperty", "SecretoDePruebasParaFirmarTokensJwt2024");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 100);
+        jwtService.init();
+        ReflectionTestUtils.setField(principalCache, "enabled", true);
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(principalCache, "maxSize", 100);
+        when(provider.getObject()).thenReturn(userDetailsService);
+        when(userDetailsService.loadUserByUsername("tony"))
+                .thenReturn(User.withUsername("tony").password("x").roles("ADMIN").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void autenticaConUnTokenValidoYCacheaElUsuario() throws Exception {
+        String token = jwtService.generateToken(User.withUsername("tony").password("x").roles("ADMIN").build());
+
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(bearer(token), new MockHttpServletResponse(), chain);
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            assertThat(authentication).isNotNull();
+            assertThat(authentication.getName()).isEqualTo("tony");
+            assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+            assertThat(chain.getRequest()).isNotNull();
+        }
+        verify(userDetailsService, times(1)).loadUserByUsername("tony");
+    }
+
+    @Test
+    void noAutenticaUnTokenRevocado() throws Exception {
+        String token = jwtService.generateToken(User.withUsername("tony").password("x").roles("ADMIN").build());
+        when(revocationService.isRevoked(anyString())).thenReturn(true);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(bearer(token), new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void sinCabeceraBearerSigueSinAutenticarNiVerificar() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sensors/events");
+        request.addHeader("Authorization", "Basic dG9ueTp4");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+        verify(provider, never()).getObject();
+    }
+
+    @Test
+    void unTokenInvalidoSePropagaComoJwtException() {
+        assertThatThrownBy(() -> filter.doFilter(bearer("no.es.un-jwt"), new MockHttpServletResponse(),
+                new MockFilterChain())).isInstanceOf(JwtException.class);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sensors/events");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,168 @@
+package com.starkindustries.security.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtServiceTest {
+
+    private final TokenRevocationService revocationService = mock(TokenRevocationService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtService jwtService = new JwtService(revocationService, meterRegistry);
+    private final UserDetails tony = User.withUsername("tony").password("x").roles("ADMIN").build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtService, "secretKeyProperty", "SecretoDePruebasParaFirmarTokensJwt2024");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 100);
+        jwtService.init();
+    }
+
+    @Test
+    void verificaUnaVezYDespuesUsaLaCacheDeClaims() {
+        String token = jwtService.generateToken(Map.of("role", "ADMIN"), tony);
+
+        Claims first = jwtService.verify(token);
+        Claims second = jwtService.verify(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getSubject()).isEqualTo("tony");
+        assertThat(first.getId()).isNotBlank();
+        assertThat(jwtService.<String>extractClaim(token, claims -> claims.get("role", String.class))).isEqualTo("ADMIN");
+        assertThat(cache("hit")).isEqualTo(2);
+        assertThat(cache("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void rechazaTokensAlteradosOFirmadosConOtraClave() {
+        String token = jwtService.generateToken(tony);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        JwtService other = new JwtService(revocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(other, "secretKeyProperty", "OtroSecretoDistintoParaFirmarTokens2024");
+        ReflectionTestUtils.setField(other, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(other, "claimsCacheMaxSize", 100);
+        other.init();
+
+        assertThatThrownBy(() -> jwtService.verify(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtService.verify(other.generateToken(tony))).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void unTokenCaducadoNoSeSirveDeLaCache() throws InterruptedException {
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 1_000L);
+        String token = jwtService.generateToken(tony);
+        jwtService.verify(token);
+        // exp tiene resolución de segundos
+        Thread.sleep(2_000);
+
+        assertThatThrownBy(() -> jwtService.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void noEsValidoParaOtroUsuarioNiTrasRevocarlo() {
+        String token = jwtService.generateToken(tony);
+        UserDetails pepper = User.withUsername("pepper").password("x").roles("USER").build();
+
+        assertThat(jwtService.isTokenValid(token, tony)).isTrue();
+        assertThat(jwtService.isTokenValid(token, pepper)).isFalse();
+
+        jwtService.revoke(token);
+        Claims claims = jwtService.verify(token);
+        verify(revocationService).revoke(eq(claims.getId()), eq("tony"), any());
+        when(revocationService.isRevoked(claims.getId())).thenReturn(true);
+        assertThat(jwtService.isTokenValid(token, tony)).isFalse();
+    }
+
+    @Test
+    void laCacheSeAcotaAlLlenarseYAdmiteVerificacionesConcurrentes() throws Exception {
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 20);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tokens.add(jwtService.generateToken(User.withUsername("user-" + i).password("x").roles("USER").build()));
+        }
+        when(revocationService.isRevoked(anyString())).thenReturn(false);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < 20; round++) {
+                        for (int i = 0; i < tokens.size(); i++) {
+                            assertThat(jwtService.extractUsername(tokens.get(i))).isEqualTo("user-" + i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(meterRegistry.get("security.jwt.claims.cache.size").gauge().value()).isLessThanOrEqualTo(20 + threads);
+    }
+
+    @Test
+    void alLlenarseDescartaSoloLosTokensQueAntesCaducan() {
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 20);
+        // Caducidades separadas por segundos (`exp` tiene resolución de segundo)
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L + i * 1_000L);
+            tokens.add(jwtService.generateToken(User.withUsername("user-" + i).password("x").roles("USER").build()));
+        }
+        tokens.forEach(jwtService::verify);
+        assertThat(cache("miss")).isEqualTo(20);
+
+        // Con la caché llena y todos los tokens vigentes, el siguiente desplaza sólo a la cuarta parte
+        // que antes caduca (5 de 20) en vez de vaciarla
+        jwtService.verify(jwtService.generateToken(tony));
+        assertThat(meterRegistry.get("security.jwt.claims.cache.size").gauge().value()).isEqualTo(16);
+
+        for (int i = 5; i < 20; i++) {
+            jwtService.verify(tokens.get(i));
+        }
+        assertThat(cache("hit")).isEqualTo(15);
+        assertThat(cache("miss")).isEqualTo(21);
+        for (int i = 0; i < 5; i++) {
+            jwtService.verify(tokens.get(i));
+        }
+        assertThat(cache("miss")).isEqualTo(26);
+    }
+
+    private double cache(String result) {
+        return meterRegistry.get("security.jwt.claims.cache").tag("result", result).counter().count();
+    }
+}
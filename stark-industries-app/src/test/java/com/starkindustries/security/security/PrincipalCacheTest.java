@@ -0,0 +1,137 @@
+package com.starkindustries.security.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrincipalCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PrincipalCache cache = new PrincipalCache(meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader = username -> {
+        loads.incrementAndGet();
+        return user(username);
+    };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+    }
+
+    @Test
+    void cargaUnaVezYDespuesSirveDeLaCache() {
+        cache.get("tony", loader);
+        cache.get("tony", loader);
+        cache.get("tony", loader);
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.hitRatio()).isEqualTo(2.0 / 3);
+    }
+
+    @Test
+    void caducaTrasElTtlYSeInvalidaAlCambiarElUsuario() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMs", 20L);
+        cache.get("tony", loader);
+        Thread.sleep(40);
+        cache.get("tony", loader);
+        assertThat(loads).hasValue(2);
+
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        cache.get("tony", loader);
+        cache.invalidate("tony");
+        cache.get("tony", loader);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void noCacheaLasExcepcionesDelLoader() {
+        assertThatThrownBy(() -> cache.get("nadie", username -> {
+            throw new UsernameNotFoundException(username);
+        })).isInstanceOf(UsernameNotFoundException.class);
+
+        cache.get("nadie", loader);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void unaCargaQueEmpezoAntesDeInvalidarNoGuardaElEstadoAnterior() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<UserDetails> slowLoad = CompletableFuture.supplyAsync(() -> cache.get("tony", username -> {
+            loading.countDown();
+            try {
+                invalidated.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Lo leído de BD antes del bloqueo
+            return user(username);
+        }));
+
+        loading.await(5, TimeUnit.SECONDS);
+        cache.invalidate("tony");
+        invalidated.countDown();
+        slowLoad.get(5, TimeUnit.SECONDS);
+
+        cache.get("tony", loader);
+        assertThat(loads).as("la siguiente petición debe volver a BD").hasValue(1);
+    }
+
+    @Test
+    void elTamanoSeMantieneAcotadoBajoConcurrencia() throws Exception {
+        ReflectionTestUtils.setField(cache, "maxSize", 50);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        String username = "user-" + thread + "-" + i;
+                        assertThat(cache.get(username, loader).getUsername()).isEqualTo(username);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Cada hilo puede añadir una entrada tras comprobar el tamaño, pero nunca más
+        assertThat(meterRegistry.get("security.principal.cache.size").gauge().value())
+                .isLessThanOrEqualTo(50 + threads);
+        assertThat(meterRegistry.get("security.principal.cache.evictions").counter().count()).isPositive();
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("x").roles("USER").build();
+    }
+}
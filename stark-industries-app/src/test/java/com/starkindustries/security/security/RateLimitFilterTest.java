@@ -0,0 +1,223 @@
+package com.starkindustries.security.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitFilterTest {
+
+    private final JwtService jwtService = mock(JwtService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("security.rate-limit.login.capacity", "2")
+                .withProperty("security.rate-limit.login.refill-per-second", "0.001")
+                .withProperty("security.rate-limit.sensors.capacity", "3")
+                .withProperty("security.rate-limit.sensors.refill-per-second", "0.001");
+        filter = new RateLimitFilter(jwtService, new ObjectMapper(), environment, meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "idleTimeoutMs", 300_000L);
+    }
+
+    @Test
+    void limitaPorIpConRetryAfter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(run(get("/api/sensors/events", "10.0.0.1")).getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse limited = run(get("/api/sensors/events", "10.0.0.1"));
+
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(limited.getHeader(HttpHeaders.RETRY_AFTER))).isPositive();
+        assertThat(limited.getContentAsString()).contains("retryAfterSeconds");
+        assertThat(run(get("/api/sensors/events", "10.0.0.2")).getStatus()).isEqualTo(200);
+        assertThat(count("sensors", "limited", "ip")).isEqualTo(1);
+    }
+
+    @Test
+    void limitaElLoginPorUsuarioAunqueCambieLaIp() throws Exception {
+        assertThat(run(login("1.1.1.1", "Tony")).getStatus()).isEqualTo(200);
+        assertThat(run(login("2.2.2.2", " tony ")).getStatus()).isEqualTo(200);
+
+        assertThat(run(login("3.3.3.3", "TONY")).getStatus()).isEqualTo(429);
+        assertThat(run(login("3.3.3.3", "pepper")).getStatus()).isEqualTo(200);
+        assertThat(count("login", "limited", "user")).isEqualTo(1);
+    }
+
+    @Test
+    void limitaLasLecturasPorSubjectDelJwt() throws Exception {
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn("tony");
+        when(jwtService.verify(eq("valido"))).thenReturn(claims);
+        when(jwtService.verify(eq("roto"))).thenThrow(new JwtException("firma"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(run(withToken(get("/api/sensors/events", "10.0.0." + i), "valido")).getStatus()).isEqualTo(200);
+        }
+        assertThat(run(withToken(get("/api/sensors/events", "10.0.0.9"), "valido")).getStatus()).isEqualTo(429);
+        // Un token inválido sólo cuenta contra la IP
+        assertThat(run(withToken(get("/api/sensors/events", "10.0.0.9"), "roto")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void noLimitaLasRutasFueraDeLosGrupos() throws Exception {
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/api/sensors/events");
+        post.setRemoteAddr("10.0.0.1");
+        for (int i = 0; i < 10; i++) {
+            assertThat(run(post).getStatus()).isEqualTo(200);
+        }
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        for (int i = 0; i < 10; i++) {
+            assertThat(run(get("/api/sensors/events", "10.0.0.1")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void laCadenaRecibeElCuerpoDelLoginCompleto() throws Exception {
+        // Más grande que lo que se lee por adelantado: parte sale del buffer y parte del stream original
+        String body = "{\"username\":\"tony\",\"password\":\"" + "x".repeat(10_000) + "\"}";
+        MockHttpServletRequest request = login("1.1.1.1", null);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        AtomicReference<String> received = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                received.set(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+
+        assertThat(received.get()).isEqualTo(body);
+    }
+
+    @Test
+    void laLecturaNoBloqueanteEntregaElCuerpoYNotificaElFinal() throws Exception {
+        String body = "{\"username\":\"tony\",\"password\":\"stark\"}";
+        List<String> events = new ArrayList<>();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+        FilterChain chain = (req, res) -> {
+            ServletInputStream in = req.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    events.add("data");
+                    byte[] chunk = new byte[8];
+                    int n;
+                    while (in.isReady() && (n = in.read(chunk)) != -1) {
+                        read.write(chunk, 0, n);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    events.add("end");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    events.add("error");
+                }
+            });
+        };
+        filter.doFilter(login("1.1.1.1", "tony"), new MockHttpServletResponse(), chain);
+
+        assertThat(events).containsExactly("data", "end");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void unErrorDelListenerSeNotificaPorOnError() throws Exception {
+        List<Throwable> errors = new ArrayList<>();
+        filter.doFilter(login("1.1.1.1", "tony"), new MockHttpServletResponse(), (req, res) ->
+                req.getInputStream().setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        throw new IOException("cliente desconectado");
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        errors.add(t);
+                    }
+                }));
+
+        assertThat(errors).singleElement().extracting(Throwable::getMessage).isEqualTo("cliente desconectado");
+    }
+
+    @Test
+    void descartaLosCubosInactivos() throws Exception {
+        run(get("/api/sensors/events", "10.0.0.1"));
+        assertThat(meterRegistry.get("security.rate.limit.buckets").tag("group", "sensors").gauge().value())
+                .isEqualTo(1);
+
+        ReflectionTestUtils.setField(filter, "idleTimeoutMs", 0L);
+        filter.evictIdle();
+        // El cubo aún no se ha rellenado: no se descarta
+        assertThat(meterRegistry.get("security.rate.limit.buckets").tag("group", "sensors").gauge().value())
+                .isEqualTo(1);
+
+        ReflectionTestUtils.setField(filter, "idleTimeoutMs", -10_000_000L);
+        filter.evictIdle();
+        assertThat(meterRegistry.get("security.rate.limit.buckets").tag("group", "sensors").gauge().value())
+                .isZero();
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            // El cuerpo debe seguir disponible para el controlador
+            req.getInputStream().readAllBytes();
+        });
+        return response;
+    }
+
+    private static MockHttpServletRequest get(String path, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private static MockHttpServletRequest withToken(MockHttpServletRequest request, String token) {
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static MockHttpServletRequest login(String ip, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"stark\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private double count(String group, String result, String key) {
+        return meterRegistry.get("security.rate.limit").tag("group", group)
+                .tag("result", result).tag("key", key).counter().count();
+    }
+}
@@ -0,0 +1,87 @@
+package com.starkindustries.security.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void dejaPasarLaRafagaYDespuesIndicaLaEspera() {
+        TokenBucket bucket = new TokenBucket(3, 1, 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(0)).isZero();
+        }
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND);
+        // Medio segundo después falta otro medio para el siguiente token
+        assertThat(bucket.tryAcquire(SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(SECOND)).isZero();
+        assertThat(bucket.tryAcquire(SECOND)).isPositive();
+    }
+
+    @Test
+    void seRellenaAlRitmoConfiguradoSinPasarDeLaCapacidad() {
+        TokenBucket bucket = new TokenBucket(2, 10, 0);
+
+        // Tras mucho tiempo sin uso sólo hay `capacity` tokens, no los acumulados
+        long later = 60 * SECOND;
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+        assertThat(bucket.tryAcquire(later + SECOND / 10)).isZero();
+    }
+
+    @Test
+    void estaInactivoCuandoVuelveAEstarLleno() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.isIdle(SECOND, SECOND)).isFalse();
+        assertThat(bucket.isIdle(3 * SECOND, SECOND)).isTrue();
+    }
+
+    @Test
+    void bajoConcurrenciaNoConcedeMasTokensQueLaCapacidad() throws Exception {
+        int capacity = 1_000;
+        TokenBucket bucket = new TokenBucket(capacity, 1, 0);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    for (int i = 0; i < 500; i++) {
+                        // Mismo instante para todos: no hay reposición entre intentos
+                        if (bucket.tryAcquire(0) == 0) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> future : futures) {
+                granted += future.get();
+            }
+            assertThat(granted).isEqualTo(capacity);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
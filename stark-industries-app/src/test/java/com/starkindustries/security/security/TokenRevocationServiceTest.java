@@ -0,0 +1,166 @@
+package com.starkindustries.security.security;
+
+import com.starkindustries.security.model.RevokedToken;
+import com.starkindustries.security.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenRevocationService service = new TokenRevocationService(repository, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "expectedRevocations", 1_000);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+    }
+
+    @Test
+    void cargaLasRevocacionesVigentesAlArrancar() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(RevokedToken.builder()
+                .jti("cargado")
+                .username("tony")
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build()));
+        service.init();
+
+        assertThat(service.isRevoked("cargado")).isTrue();
+        assertThat(service.isRevoked("otro")).isFalse();
+        assertThat(checks("revoked")).isEqualTo(1);
+        assertThat(checks("bloom-negative")).isEqualTo(1);
+    }
+
+    @Test
+    void revocarPersisteUnaVezYSurteEfectoEnseguida() {
+        service.init();
+
+        service.revoke("jti-1", "tony", inMinutes(30));
+        service.revoke("jti-1", "tony", inMinutes(30));
+
+        assertThat(service.isRevoked("jti-1")).isTrue();
+        verify(repository, times(1)).save(any(RevokedToken.class));
+        assertThat(meterRegistry.get("security.jwt.revocation.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoraTokensSinJtiOYaExpirados() {
+        service.init();
+
+        service.revoke(null, "tony", inMinutes(30));
+        service.revoke("caducado", "tony", new Date(System.currentTimeMillis() - 1_000));
+
+        assertThat(service.isRevoked(null)).isFalse();
+        assertThat(service.isRevoked("caducado")).isFalse();
+        verify(repository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void elConjuntoExactoDescartaLosFalsosPositivosDelFiltro() {
+        // Filtro mínimo (64 bits) saturado: responde "puede" a todo
+        ReflectionTestUtils.setField(service, "expectedRevocations", 1);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.5);
+        service.init();
+        for (int i = 0; i < 200; i++) {
+            service.revoke("jti-" + i, "tony", inMinutes(30));
+        }
+
+        assertThat(service.isRevoked("no-revocado")).isFalse();
+        assertThat(checks("false-positive")).isEqualTo(1);
+    }
+
+    @Test
+    void laLimpiezaOlvidaLasCaducadasYReconstruyeElFiltro() throws InterruptedException {
+        service.init();
+        service.revoke("corto", "tony", new Date(System.currentTimeMillis() + 50));
+        service.revoke("largo", "tony", inMinutes(30));
+        Thread.sleep(100);
+
+        service.prune();
+
+        verify(repository).deleteExpired(any());
+        assertThat(service.isRevoked("largo")).isTrue();
+        assertThat(service.isRevoked("corto")).isFalse();
+        // Reconstruido sin "corto": el filtro ya no lo deja pasar
+        assertThat(checks("bloom-negative")).isEqualTo(1);
+    }
+
+    @Test
+    void ningunaRevocacionSePierdeAlReconstruirEnParalelo() throws Exception {
+        service.init();
+        int threads = 4;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean revoking = new AtomicBoolean(true);
+        try {
+            // La limpieza reconstruye el filtro una y otra vez mientras se revoca
+            Future<?> pruner = executor.submit(() -> {
+                start.await();
+                while (revoking.get()) {
+                    service.prune();
+                }
+                return null;
+            });
+            List<Future<?>> revokers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                revokers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        String jti = thread + "-" + i;
+                        service.revoke(jti, "tony", inMinutes(30));
+                        // Caducan enseguida para que cada limpieza tenga algo que quitar
+                        service.revoke(jti + "-corto", "tony", new Date(System.currentTimeMillis() + 1));
+                        assertThat(service.isRevoked(jti)).isTrue();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> revoker : revokers) {
+                revoker.get();
+            }
+            revoking.set(false);
+            pruner.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertThat(service.isRevoked(t + "-" + i)).isTrue();
+            }
+        }
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("security.jwt.revocation.checks").tag("result", result).counter().count();
+    }
+
+    private static Date inMinutes(int minutes) {
+        return new Date(System.currentTimeMillis() + minutes * 60_000L);
+    }
+}
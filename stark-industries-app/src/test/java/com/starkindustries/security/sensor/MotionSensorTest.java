@@ -0,0 +1,59 @@
+package com.starkindustries.security.sensor;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MotionSensorTest {
+
+    private final MotionSensor sensor = new MotionSensor();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sensor, "threshold", 5);
+        ReflectionTestUtils.setField(sensor, "highThreshold", 9);
+        ReflectionTestUtils.setField(sensor, "streakTtlMs", 600_000L);
+        ReflectionTestUtils.setField(sensor, "maxTrackedLocations", 2);
+    }
+
+    @Test
+    void tresLecturasAltasSeguidasDisparanLaAlerta() {
+        assertThat(process("Lab", 6).getCritical()).isFalse();
+        assertThat(process("Lab", 6).getCritical()).isFalse();
+        assertThat(process("Lab", 6).getCritical()).isTrue();
+        // Una ubicación distinta lleva su propia racha
+        assertThat(process("Bóveda", 6).getCritical()).isFalse();
+    }
+
+    @Test
+    void elMapaDeRachasEstaAcotado() {
+        process("A", 6);
+        process("B", 6);
+        process("C", 6);
+        assertThat(streaks()).containsOnlyKeys("A", "B");
+
+        // Las rachas que vuelven a 0 liberan su hueco
+        process("A", 1);
+        assertThat(streaks()).containsOnlyKeys("B");
+
+        ReflectionTestUtils.setField(sensor, "streakTtlMs", -1L);
+        sensor.evictStaleStreaks();
+        assertThat(streaks()).isEmpty();
+    }
+
+    private SensorEvent process(String location, double value) {
+        return sensor.processEvent(SensorEvent.builder()
+                .sensorType(SensorType.MOTION).sensorId("M1").location(location).value(value).build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> streaks() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(sensor, "consecutiveHighByLocation");
+    }
+}
@@ -0,0 +1,292 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.config.VirtualThreadTaskExecutor;
+import com.starkindustries.security.model.AccessLog;
+import com.starkindustries.security.model.User;
+import com.starkindustries.security.security.JwtService;
+import com.starkindustries.security.security.PasswordHashingExecutor;
+import com.starkindustries.security.security.PasswordHashingOverloadException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Login en tres pasos: sólo BCrypt ocupa el pool de hashing; la BD y el log de acceso van fuera de él
+class AuthenticationServiceTest {
+
+    private static final PasswordEncoder BCRYPT = new BCryptPasswordEncoder(8);
+    private static final String PASSWORD_HASH = BCRYPT.encode("jarvis123");
+
+    private UserService userService;
+    private JwtService jwtService;
+    private AccessLogService accessLogService;
+    private PasswordHashingExecutor hashingExecutor;
+    private VirtualThreadTaskExecutor authenticationExecutor;
+
+    // Hilo en el que se ejecutó cada llamada a los colaboradores
+    private final Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+    // Logins completados con éxito (los cuenta el log de acceso)
+    private final AtomicInteger completedLogins = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        jwtService = mock(JwtService.class);
+        accessLogService = mock(AccessLogService.class);
+        authenticationExecutor = new VirtualThreadTaskExecutor("Login-", 64, 0);
+
+        when(userService.loadUserByUsername("jarvis")).thenAnswer(inv -> {
+            record("loadUserByUsername");
+            return user("jarvis", false);
+        });
+        when(userService.loadUserByUsername("bloqueado")).thenThrow(new LockedException("bloqueada"));
+        when(userService.loadUserByUsername("nadie")).thenThrow(new UsernameNotFoundException("nadie"));
+        when(userService.getUserByUsername("jarvis")).thenReturn(user("jarvis", false));
+        doAnswer(inv -> record("resetFailedAttempts")).when(userService).resetFailedAttempts(any());
+        doAnswer(inv -> record("increaseFailedAttempts")).when(userService).increaseFailedAttempts(any());
+        when(jwtService.generateToken(any())).thenAnswer(inv -> {
+            record("generateToken");
+            return "token";
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (hashingExecutor != null) {
+            ReflectionTestUtils.invokeMethod(hashingExecutor, "shutdown");
+        }
+    }
+
+    @Test
+    void soloLaVerificacionDeLaContrasenaOcupaElPoolDeHashing() throws Exception {
+        AuthenticationService service = service(1, 10, 2000, recordingEncoder());
+
+        AuthenticationService.AuthenticationResponse response = service
+                .authenticateAsync(new AuthenticationService.AuthenticationRequest("jarvis", "jarvis123"), "10.0.0.1")
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(response.token()).isEqualTo("token");
+        assertThat(response.username()).isEqualTo("jarvis");
+        assertThat(threads.get("matches")).allMatch(name -> name.startsWith("PasswordHasher-"));
+        // La carga del usuario, en el hilo de la petición
+        assertThat(threads.get("loadUserByUsername")).containsExactly(Thread.currentThread().getName());
+        // JWT, contador de intentos y log de acceso, en el pool de login
+        for (String call : List.of("generateToken", "resetFailedAttempts", "logAccess")) {
+            assertThat(threads.get(call)).as(call).allMatch(name -> name.startsWith("Login-"));
+        }
+    }
+
+    @Test
+    void contrasenaIncorrectaDa401YCuentaElIntentoFueraDelPoolDeHashing() throws Exception {
+        AuthenticationService service = service(1, 10, 2000, recordingEncoder());
+
+        assertStatus(service.authenticateAsync(
+                new AuthenticationService.AuthenticationRequest("jarvis", "mala"), "10.0.0.1"), HttpStatus.UNAUTHORIZED);
+
+        assertThat(threads.get("increaseFailedAttempts")).allMatch(name -> name.startsWith("Login-"));
+        assertThat(threads.get("logAccess")).allMatch(name -> name.startsWith("Login-"));
+        verify(accessLogService).logAccess("jarvis", "10.0.0.1", AccessLog.AccessType.LOGIN, false, "Credenciales inválidas");
+        verify(jwtService, never()).generateToken(any());
+    }
+
+    @Test
+    void usuarioInexistenteTambienPasaPorBCryptYDa401() throws Exception {
+        AuthenticationService service = service(1, 10, 2000, recordingEncoder());
+
+        assertStatus(service.authenticateAsync(
+                new AuthenticationService.AuthenticationRequest("nadie", "jarvis123"), "10.0.0.1"), HttpStatus.UNAUTHORIZED);
+
+        // Mismo coste que un usuario real, para no delatar qué usuarios existen
+        assertThat(threads.get("matches")).hasSize(1);
+    }
+
+    @Test
+    void cuentaBloqueadaDa423SinCalcularElHash() throws Exception {
+        AuthenticationService service = service(1, 10, 2000, recordingEncoder());
+
+        assertStatus(service.authenticateAsync(
+                new AuthenticationService.AuthenticationRequest("bloqueado", "jarvis123"), "10.0.0.1"), HttpStatus.LOCKED);
+
+        assertThat(threads).doesNotContainKey("matches");
+        verify(accessLogService).logAccess("bloqueado", "10.0.0.1", AccessLog.AccessType.LOGIN, false, "Cuenta bloqueada");
+    }
+
+    @Test
+    void conElPoolSaturadoFallaConSobrecargaSinTocarLaBd() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.matches(any(), any())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        // Un hilo y un hueco en cola: la tercera petición ya no cabe
+        AuthenticationService service = service(1, 1, 2000, blocking);
+        AuthenticationService.AuthenticationRequest request = new AuthenticationService.AuthenticationRequest("jarvis", "jarvis123");
+
+        CompletableFuture<AuthenticationService.AuthenticationResponse> running = service.authenticateAsync(request, "10.0.0.1");
+        CompletableFuture<AuthenticationService.AuthenticationResponse> queued = service.authenticateAsync(request, "10.0.0.1");
+        CompletableFuture<AuthenticationService.AuthenticationResponse> rejected = service.authenticateAsync(request, "10.0.0.1");
+
+        assertThatThrownBy(() -> rejected.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(PasswordHashingOverloadException.class)
+                .satisfies(e -> assertThat(((PasswordHashingOverloadException) e).getRetryAfterSeconds()).isEqualTo(2));
+        verify(accessLogService, never()).logAccess(anyString(), anyString(), any(), anyBoolean(), any());
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS).token()).isEqualTo("token");
+        assertThat(queued.get(5, TimeUnit.SECONDS).token()).isEqualTo("token");
+        verify(accessLogService, times(2))
+                .logAccess(eq("jarvis"), eq("10.0.0.1"), eq(AccessLog.AccessType.LOGIN), eq(true), isNull());
+    }
+
+    // Medición: 8 "hilos de Tomcat" atienden a la vez una avalancha de 64 logins y 32 peticiones ligeras
+    // (como un GET /api/sensors). Antes, BCrypt corría en el propio hilo de la petición y las ligeras
+    // esperaban a que acabasen los logins; ahora el hilo sólo lanza el login y queda libre.
+    @Test
+    void unaAvalanchaDeLoginsNoRetrasaLasPeticionesDeSensores() throws Exception {
+        int logins = 64;
+        int sensorRequests = 32;
+        AuthenticationService service = service(1, logins, 10_000, BCRYPT);
+        AuthenticationService.AuthenticationRequest request = new AuthenticationService.AuthenticationRequest("jarvis", "jarvis123");
+
+        // Antes: el hilo de la petición calculaba el hash él mismo
+        Result inline = storm(logins, sensorRequests, () -> {
+            assertThat(BCRYPT.matches("jarvis123", PASSWORD_HASH)).isTrue();
+            completedLogins.incrementAndGet();
+        });
+        // Ahora: el hilo sólo carga el usuario y encola el hash
+        Result async = storm(logins, sensorRequests,
+                () -> service.authenticateAsync(request, "10.0.0.1"));
+
+        assertThat(inline.loginsPerSecond()).isPositive();
+        assertThat(async.loginsPerSecond()).isPositive();
+        assertThat(async.sensorP99Ms()).isLessThan(inline.sensorP99Ms() / 2);
+    }
+
+    private Result storm(int logins, int sensorRequests, Runnable login) throws Exception {
+        ExecutorService tomcat = Executors.newFixedThreadPool(8);
+        List<Long> sensorLatencies = Collections.synchronizedList(new ArrayList<>());
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> submitted = new ArrayList<>();
+            for (int i = 0; i < logins; i++) {
+                submitted.add(tomcat.submit(login));
+            }
+            for (int i = 0; i < sensorRequests; i++) {
+                long enqueuedAt = System.nanoTime();
+                submitted.add(tomcat.submit(() -> sensorLatencies.add(System.nanoTime() - enqueuedAt)));
+            }
+            for (Future<?> f : submitted) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+            // En el modo asíncrono los logins siguen en marcha: se espera a que terminen para medir logins/s
+            waitForLogins(logins);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            List<Long> sorted = new ArrayList<>(sensorLatencies);
+            Collections.sort(sorted);
+            long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+            return new Result(logins / seconds, TimeUnit.NANOSECONDS.toMillis(p99));
+        } finally {
+            tomcat.shutdownNow();
+        }
+    }
+
+    private void waitForLogins(int logins) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (completedLogins.get() < logins && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(completedLogins.get()).isGreaterThanOrEqualTo(logins);
+        completedLogins.set(0);
+    }
+
+    private record Result(double loginsPerSecond, long sensorP99Ms) {}
+
+    private AuthenticationService service(int threads, int queueCapacity, long maxQueueTimeMs, PasswordEncoder encoder) {
+        hashingExecutor = new PasswordHashingExecutor(threads, queueCapacity, maxQueueTimeMs, new SimpleMeterRegistry());
+        doAnswer(inv -> {
+            record("logAccess");
+            if (Boolean.TRUE.equals(inv.getArgument(3))) {
+                completedLogins.incrementAndGet();
+            }
+            return null;
+        }).when(accessLogService).logAccess(anyString(), anyString(), any(), anyBoolean(), any());
+        return new AuthenticationService(userService, jwtService, accessLogService, hashingExecutor, encoder,
+                authenticationExecutor);
+    }
+
+    // BCrypt de verdad, anotando en qué hilo se ejecuta
+    private PasswordEncoder recordingEncoder() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(any(), any())).thenAnswer(inv -> {
+            record("matches");
+            return BCRYPT.matches(inv.getArgument(0), inv.getArgument(1));
+        });
+        when(encoder.encode(any())).thenAnswer(inv -> BCRYPT.encode(inv.getArgument(0)));
+        return encoder;
+    }
+
+    private Object record(String call) {
+        threads.computeIfAbsent(call, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+        return null;
+    }
+
+    private static void assertStatus(CompletableFuture<?> future, HttpStatus status) {
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(status));
+    }
+
+    private static User user(String username, boolean locked) {
+        return User.builder()
+                .username(username)
+                .password(PASSWORD_HASH)
+                .email(username + "@stark.com")
+                .fullName(username)
+                .roles(List.of("ROLE_USER"))
+                .enabled(true)
+                .accountNonLocked(!locked)
+                .failedAttempts(0)
+                .build();
+    }
+}
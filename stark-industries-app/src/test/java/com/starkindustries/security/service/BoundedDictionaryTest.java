@@ -0,0 +1,63 @@
+package com.starkindustries.security.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedDictionaryTest {
+
+    @Test
+    void pasadoElMaximoTodoVaALaComodin() {
+        BoundedDictionary<String> dictionary = BoundedDictionary.ofStrings(2, "(otras)");
+
+        assertThat(dictionary.intern("A").key()).isEqualTo("A");
+        assertThat(dictionary.intern("B").key()).isEqualTo("B");
+        assertThat(dictionary.intern("C").key()).isEqualTo("(otras)");
+        assertThat(dictionary.intern(" ").key()).isEqualTo("(otras)");
+        assertThat(dictionary.intern(null).id()).isZero();
+        // Las ya internadas se siguen resolviendo a sí mismas
+        assertThat(dictionary.intern("A").id()).isEqualTo(1);
+        assertThat(dictionary.get(2).key()).isEqualTo("B");
+    }
+
+    @Test
+    void elMaximoSeRespetaConAltasConcurrentes() throws Exception {
+        BoundedDictionary<String> dictionary = BoundedDictionary.ofStrings(100, "(otras)");
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        dictionary.intern("loc-" + thread + "-" + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(dictionary.size()).isEqualTo(101);
+        // Ids consecutivos y coherentes con la búsqueda por cadena
+        for (int id = 0; id < dictionary.size(); id++) {
+            BoundedDictionary.Entry<String> entry = dictionary.get(id);
+            assertThat(entry.id()).isEqualTo(id);
+            assertThat(dictionary.intern(entry.key())).isSameAs(entry);
+        }
+    }
+}
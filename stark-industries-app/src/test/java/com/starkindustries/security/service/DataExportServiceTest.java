@@ -0,0 +1,137 @@
+package com.starkindustries.security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.starkindustries.security.config.ExportTimeoutConfiguration;
+import com.starkindustries.security.model.AccessLog;
+import com.starkindustries.security.repository.AccessLogRepository;
+import com.starkindustries.security.repository.SensorEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DataExportServiceTest {
+
+    private final AccessLogRepository accessLogRepository = mock(AccessLogRepository.class);
+    private final DataExportService service = new DataExportService(mock(SensorEventRepository.class),
+            accessLogRepository, mock(EntityManager.class), new ObjectMapper().registerModule(new JavaTimeModule()),
+            new SimpleMeterRegistry());
+    private final DataExportService.AccessLogFilter all = new DataExportService.AccessLogFilter(null, null, null, null, null);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "flushRows", 1);
+        ReflectionTestUtils.setField(service, "bufferSize", 64);
+    }
+
+    @Test
+    void neutralizaLasCeldasQueParecenFormulas() throws IOException {
+        when(accessLogRepository.streamFiltered(any(), any(), any(), any(), any()))
+                .thenReturn(Stream.of(log("=HYPERLINK(\"http://x\")", "@SUM(A1)"), log("-2+3", "Mozilla")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportAccessLogs(all, DataExportService.Format.CSV, false, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(csv).contains(",\"'=HYPERLINK(\"\"http://x\"\")\"", ",'@SUM(A1),", ",Mozilla,'-2+3\r\n");
+        // Los ids (números) no se tocan
+        assertThat(csv).contains("\r\n7,");
+    }
+
+    @Test
+    void elGzipSeCierraEnteroSinCerrarLaRespuesta() throws IOException {
+        when(accessLogRepository.streamFiltered(any(), any(), any(), any(), any()))
+                .thenReturn(Stream.of(log("Laboratorio", "curl")));
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        service.exportAccessLogs(all, DataExportService.Format.NDJSON, true, out);
+
+        assertThat(closed).isFalse();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains("\"location\":\"Laboratorio\"");
+        }
+    }
+
+    @Test
+    void unClienteQueCortaPropagaElError() {
+        when(accessLogRepository.streamFiltered(any(), any(), any(), any(), any()))
+                .thenReturn(Stream.generate(() -> log("Laboratorio", "curl")).limit(1000));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> service.exportAccessLogs(all, DataExportService.Format.CSV, true, broken))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void laRespuestaDeDescargaNombraElFicheroYMarcaLaPeticionComoExportacion() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            ResponseEntity<StreamingResponseBody> csv = DataExportService.downloadResponse("access_logs",
+                    DataExportService.Format.CSV, false, out -> {});
+            ResponseEntity<StreamingResponseBody> gzip = DataExportService.downloadResponse("sensor_events",
+                    DataExportService.Format.NDJSON, true, out -> {});
+
+            assertThat(csv.getHeaders().getContentType()).hasToString("text/csv");
+            assertThat(csv.getHeaders().getContentDisposition().getFilename())
+                    .matches("access_logs-\\d{8}-\\d{6}\\.csv");
+            assertThat(gzip.getHeaders().getContentType()).hasToString("application/gzip");
+            assertThat(gzip.getHeaders().getContentDisposition().isAttachment()).isTrue();
+            assertThat(gzip.getHeaders().getContentDisposition().getFilename())
+                    .matches("sensor_events-\\d{8}-\\d{6}\\.ndjson\\.gz");
+            // La marca que amplía el timeout asíncrono de esta petición
+            assertThat(Collections.list(request.getAttributeNames()))
+                    .anyMatch(name -> name.startsWith(ExportTimeoutConfiguration.class.getName()));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static AccessLog log(String location, String userAgent) {
+        return AccessLog.builder()
+                .id(7L)
+                .username("tony")
+                .ipAddress("10.0.0.1")
+                .accessType(AccessLog.AccessType.LOGIN)
+                .successful(true)
+                .timestamp(LocalDateTime.of(2026, 1, 1, 12, 0))
+                .userAgent(userAgent)
+                .location(location)
+                .build();
+    }
+}
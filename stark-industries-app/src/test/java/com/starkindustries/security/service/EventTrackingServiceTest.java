@@ -0,0 +1,67 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventTrackingServiceTest {
+
+    private final EventTrackingService service = new EventTrackingService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ttlMs", 600_000L);
+        ReflectionTestUtils.setField(service, "maxEntries", 3);
+    }
+
+    @Test
+    void elMaximoSeRespetaAunqueTodoEstePendiente() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(service.track(event(), new CompletableFuture<>()));
+        }
+
+        // Se descartan los dos más antiguos aunque sigan pendientes
+        assertThat(service.getStatus(ids.get(0))).isEmpty();
+        assertThat(service.getStatus(ids.get(1))).isEmpty();
+        assertThat(ids.subList(2, 5)).allSatisfy(id -> assertThat(service.getStatus(id)).isPresent());
+    }
+
+    @Test
+    void unEventoRecienTerminadoSigueConsultable() {
+        CompletableFuture<SensorEvent> processing = new CompletableFuture<>();
+        String id = service.track(event(), processing);
+        processing.complete(event());
+
+        service.evictExpired();
+
+        assertThat(service.getStatus(id)).hasValueSatisfying(
+                status -> assertThat(status.status()).isEqualTo(EventTrackingService.Status.COMPLETED));
+    }
+
+    @Test
+    void laLimpiezaPorCaducidadSoloAfectaALosTerminados() {
+        ReflectionTestUtils.setField(service, "ttlMs", 0L);
+        CompletableFuture<SensorEvent> done = new CompletableFuture<>();
+        String completed = service.track(event(), done);
+        String pending = service.track(event(), new CompletableFuture<>());
+        done.complete(event());
+
+        service.evictExpired();
+
+        assertThat(service.getStatus(completed)).isEmpty();
+        assertThat(service.getStatus(pending)).isPresent();
+    }
+
+    private static SensorEvent event() {
+        return SensorEvent.builder().sensorType(SensorType.TEMPERATURE).sensorId("S1").location("Lab").value(1.0).build();
+    }
+}
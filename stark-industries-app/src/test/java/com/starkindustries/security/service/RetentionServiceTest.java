@@ -0,0 +1,169 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SecurityAlert;
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.repository.SecurityAlertRepository;
+import com.starkindustries.security.repository.SensorEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Purga real sobre H2: sin transacción de test, cada trozo se confirma como en producción
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RetentionService.class, RetentionServiceTest.Metrics.class})
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "security.retention.chunk-size=200",
+        "security.retention.pause-ms=2",
+        "security.retention.sensor-events.max-age=1d",
+        "security.retention.security-alerts.max-age=1d",
+        "security.retention.access-logs.max-age=1d"
+})
+class RetentionServiceTest {
+
+    private static final int OLD_EVENTS = 20_000;
+
+    @Autowired
+    private RetentionService retentionService;
+
+    @Autowired
+    private SensorEventRepository sensorEventRepository;
+
+    @Autowired
+    private SecurityAlertRepository securityAlertRepository;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        sensorEventRepository.deleteAllInBatch();
+        securityAlertRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void borraSoloLoAnteriorAlCorteYLasAlertasResueltas() throws InterruptedException {
+        LocalDateTime old = LocalDateTime.now().minusDays(3);
+        seedEvents(old, 1_050);
+        seedEvents(LocalDateTime.now(), 20);
+        securityAlertRepository.saveAll(List.of(alert(old, true), alert(old, false), alert(LocalDateTime.now(), true)));
+
+        assertThat(retentionService.purgeAsync()).isTrue();
+        awaitPurge();
+
+        assertThat(sensorEventRepository.count()).isEqualTo(20);
+        assertThat(securityAlertRepository.findAll())
+                .extracting(a -> a.getCreatedAt().isBefore(LocalDateTime.now().minusDays(1)) + "/" + a.getResolved())
+                .containsExactlyInAnyOrder("true/false", "false/true");
+    }
+
+    @Test
+    void elP99DeIngestaNoSeResienteDuranteLaPurga() throws InterruptedException {
+        seedEvents(LocalDateTime.now().minusDays(3), OLD_EVENTS);
+
+        // Calentamiento y referencia sin purga
+        measureInserts(200);
+        long[] baseline = measureInserts(1_000);
+
+        assertThat(retentionService.purgeAsync()).isTrue();
+        List<Long> underPurge = new ArrayList<>();
+        while (isRunning()) {
+            long startedAt = System.nanoTime();
+            sensorEventRepository.save(event(LocalDateTime.now()));
+            underPurge.add(System.nanoTime() - startedAt);
+        }
+        awaitPurge();
+
+        long baselineP99 = p99(baseline);
+        long purgeP99 = p99(underPurge.stream().mapToLong(Long::longValue).toArray());
+        assertThat(underPurge).as("inserciones medidas durante la purga").hasSizeGreaterThan(100);
+        // Margen amplio para no depender de la máquina: lo que se comprueba es que no hay esperas por bloqueo
+        assertThat(purgeP99).as("p99 con purga %d µs, sin purga %d µs", purgeP99 / 1_000, baselineP99 / 1_000)
+                .isLessThanOrEqualTo(Math.max(5 * baselineP99, baselineP99 + 25_000_000L));
+        assertThat(sensorEventRepository.count()).isEqualTo(1_200 + underPurge.size());
+    }
+
+    private long[] measureInserts(int count) {
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            long startedAt = System.nanoTime();
+            sensorEventRepository.save(event(LocalDateTime.now()));
+            latencies[i] = System.nanoTime() - startedAt;
+        }
+        return latencies;
+    }
+
+    private static long p99(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+
+    private boolean isRunning() {
+        return Boolean.TRUE.equals(retentionService.describe().get("running"));
+    }
+
+    private void awaitPurge() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(isRunning()).isFalse();
+    }
+
+    private void seedEvents(LocalDateTime timestamp, int count) {
+        List<SensorEvent> batch = new ArrayList<>(1_000);
+        for (int i = 0; i < count; i++) {
+            batch.add(event(timestamp));
+            if (batch.size() == 1_000 || i == count - 1) {
+                sensorEventRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static SensorEvent event(LocalDateTime timestamp) {
+        return SensorEvent.builder()
+                .sensorType(SensorType.TEMPERATURE)
+                .sensorId("T-1")
+                .location("Laboratorio")
+                .value(21.0)
+                .critical(false)
+                .timestamp(timestamp)
+                .processedAt(timestamp)
+                .processingTimeMs(1L)
+                .build();
+    }
+
+    private static SecurityAlert alert(LocalDateTime createdAt, boolean resolved) {
+        return SecurityAlert.builder()
+                .level(SecurityAlert.AlertLevel.HIGH)
+                .title("Prueba")
+                .createdAt(createdAt)
+                .resolved(resolved)
+                .build();
+    }
+}
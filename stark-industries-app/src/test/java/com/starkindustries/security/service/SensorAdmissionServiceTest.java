@@ -0,0 +1,143 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.sensor.Sensor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Límite adaptativo (AIMD): baja multiplicativamente con latencia alta, descarta por tipo y se recupera sumando
+class SensorAdmissionServiceTest {
+
+    private static final long TARGET_MS = 20;
+
+    private final Sensor temperatureSensor = mock(Sensor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SensorAdmissionService service = new SensorAdmissionService(temperatureSensor, 100, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "minLimit", 20);
+        ReflectionTestUtils.setField(service, "maxLimit", 400);
+        ReflectionTestUtils.setField(service, "targetLatencyMs", TARGET_MS);
+        ReflectionTestUtils.setField(service, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(service, "temperatureShedThreshold", 0.7);
+        ReflectionTestUtils.setField(service, "motionShedThreshold", 1.0);
+        ReflectionTestUtils.setField(service, "retryAfterSeconds", 2L);
+        when(temperatureSensor.requiresAlert(anyDouble())).thenAnswer(invocation -> (double) invocation.getArgument(0) > 50);
+    }
+
+    @Test
+    void conLatenciaAltaElLimiteBajaMultiplicativamenteUnaVezPorVentana() throws InterruptedException {
+        slowCompletion();
+        assertThat(service.getLimit()).isEqualTo(50.0);
+
+        // Una ráfaga de eventos lentos que terminan a la vez sólo lo reduce una vez
+        Thread.sleep(TARGET_MS + 10);
+        List<SensorAdmissionService.Permit> burst = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            burst.add(service.admit(event(SensorType.ACCESS, 0.0)));
+        }
+        Thread.sleep(TARGET_MS + 10);
+        burst.forEach(SensorAdmissionService.Permit::release);
+        assertThat(service.getLimit()).isEqualTo(25.0);
+
+        Thread.sleep(TARGET_MS + 10);
+        slowCompletion();
+        assertThat(service.getLimit()).as("nunca por debajo del mínimo").isEqualTo(20.0);
+    }
+
+    @Test
+    void descartaPrimeroTemperaturaDespuesMovimientoYNuncaAccesos() throws InterruptedException {
+        lowerLimitTo20();
+        List<SensorAdmissionService.Permit> held = new ArrayList<>();
+
+        // Temperatura normal: hasta el 70 % del límite (14 en curso)
+        for (int i = 0; i < 14; i++) {
+            held.add(service.admit(event(SensorType.TEMPERATURE, 21.0)));
+        }
+        assertThatThrownBy(() -> service.admit(event(SensorType.TEMPERATURE, 21.0)))
+                .isInstanceOf(SensorOverloadException.class)
+                .satisfies(e -> assertThat(((SensorOverloadException) e).getRetryAfterSeconds()).isEqualTo(2));
+        // Una lectura fuera de rango (posible alerta) se trata como el movimiento
+        held.add(service.admit(event(SensorType.TEMPERATURE, 80.0)));
+
+        // Movimiento: hasta el límite completo
+        for (int i = 0; i < 5; i++) {
+            held.add(service.admit(event(SensorType.MOTION, 1.0)));
+        }
+        assertThatThrownBy(() -> service.admit(event(SensorType.MOTION, 1.0)))
+                .isInstanceOf(SensorOverloadException.class);
+
+        // Accesos: siempre
+        for (int i = 0; i < 50; i++) {
+            held.add(service.admit(event(SensorType.ACCESS, 0.0)));
+        }
+        assertThat(service.getInflight()).isEqualTo(70);
+        assertThat(meterRegistry.get("sensor.admission.shed").tag("type", "TEMPERATURE").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sensor.admission.shed").tag("type", "MOTION").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sensor.admission.shed").tag("type", "ACCESS").counter().count()).isZero();
+
+        held.forEach(SensorAdmissionService.Permit::release);
+        assertThat(service.getInflight()).isZero();
+    }
+
+    @Test
+    void conLatenciaBuenaElLimiteSeRecuperaSumando() throws InterruptedException {
+        lowerLimitTo20();
+
+        // Con al menos la mitad del límite ocupada, cada evento rápido suma 1/límite: ~+1 por cada `límite` eventos
+        List<SensorAdmissionService.Permit> held = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            held.add(service.admit(event(SensorType.ACCESS, 0.0)));
+        }
+        double previous = service.getLimit();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 20; i++) {
+                service.admit(event(SensorType.ACCESS, 0.0)).release();
+            }
+            double current = service.getLimit();
+            assertThat(current - previous).as("crecimiento de la ronda %d", round).isBetween(0.8, 1.05);
+            previous = current;
+        }
+        held.forEach(SensorAdmissionService.Permit::release);
+
+        // Sin uso (menos de la mitad del límite en curso) no crece
+        double idle = service.getLimit();
+        for (int i = 0; i < 100; i++) {
+            service.admit(event(SensorType.ACCESS, 0.0)).release();
+        }
+        assertThat(service.getLimit()).isEqualTo(idle);
+    }
+
+    // Un evento que tarda más que el objetivo
+    private void slowCompletion() throws InterruptedException {
+        Thread.sleep(TARGET_MS + 10);
+        SensorAdmissionService.Permit permit = service.admit(event(SensorType.ACCESS, 0.0));
+        Thread.sleep(TARGET_MS + 10);
+        permit.release();
+    }
+
+    private void lowerLimitTo20() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            slowCompletion();
+        }
+        assertThat(service.getLimit()).isEqualTo(20.0);
+    }
+
+    private static SensorEvent event(SensorType type, double value) {
+        return SensorEvent.builder().sensorType(type).sensorId("S-1").location("Laboratorio").value(value).build();
+    }
+}
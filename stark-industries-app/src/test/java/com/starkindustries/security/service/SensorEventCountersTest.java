@@ -0,0 +1,130 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Contención: 64 hilos incrementando a la vez mientras otro hilo toma fotos y comprueba su coherencia
+class SensorEventCountersTest {
+
+    private static final int THREADS = 64;
+    private static final int INCREMENTS_PER_THREAD = 20_000;
+    // Más ubicaciones que el máximo: las que sobran caen en la ubicación comodín
+    private static final int LOCATIONS = 40;
+    private static final int MAX_LOCATIONS = 32;
+
+    private final SensorEventCounters counters = new SensorEventCounters();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(counters, "maxLocations", MAX_LOCATIONS);
+        counters.init();
+    }
+
+    @Test
+    void sesentaYCuatroHilosNoPierdenIncrementosYLasFotosSonCoherentes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger snapshots = new AtomicInteger();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        counters.increment(type(i), "Zona " + ((thread + i) % LOCATIONS), critical(i));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                Map<SensorType, Long> previous = new EnumMap<>(SensorType.class);
+                do {
+                    SensorEventCounters.Snapshot snapshot = counters.snapshot();
+                    assertCoherent(snapshot);
+                    for (SensorType type : SensorType.values()) {
+                        // Los contadores sólo crecen: una foto nunca ve menos que la anterior
+                        assertThat(snapshot.total().get(type)).isGreaterThanOrEqualTo(previous.getOrDefault(type, 0L));
+                        previous.put(type, snapshot.total().get(type));
+                    }
+                    snapshots.incrementAndGet();
+                } while (writing.get());
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SensorEventCounters.Snapshot snapshot = counters.snapshot();
+        assertCoherent(snapshot);
+        for (SensorType type : SensorType.values()) {
+            long expectedTotal = 0;
+            long expectedCritical = 0;
+            for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                if (type(i) == type) {
+                    expectedTotal += THREADS;
+                    expectedCritical += critical(i) ? THREADS : 0;
+                }
+            }
+            assertThat(snapshot.total().get(type)).as("total %s", type).isEqualTo(expectedTotal);
+            assertThat(snapshot.critical().get(type)).as("críticos %s", type).isEqualTo(expectedCritical);
+            assertThat(counters.total(type)).isEqualTo(expectedTotal);
+            assertThat(counters.critical(type)).isEqualTo(expectedCritical);
+        }
+        // 32 ubicaciones propias + la comodín, que recoge las 8 que no caben
+        assertThat(snapshot.byLocation()).hasSize(MAX_LOCATIONS + 1).containsKey(SensorEventCounters.OTHER_LOCATION);
+        assertThat(snapshots.get()).isPositive();
+    }
+
+    // Totales por tipo = suma de sus ubicaciones, y críticos <= total en cada nivel
+    private static void assertCoherent(SensorEventCounters.Snapshot snapshot) {
+        for (SensorType type : SensorType.values()) {
+            long total = 0;
+            long critical = 0;
+            for (Map<SensorType, SensorEventCounters.Counts> byType : snapshot.byLocation().values()) {
+                SensorEventCounters.Counts counts = byType.get(type);
+                if (counts != null) {
+                    assertThat(counts.critical()).isLessThanOrEqualTo(counts.total());
+                    total += counts.total();
+                    critical += counts.critical();
+                }
+            }
+            assertThat(snapshot.total().get(type)).as("total %s", type).isEqualTo(total);
+            assertThat(snapshot.critical().get(type)).as("críticos %s", type).isEqualTo(critical);
+            assertThat(snapshot.critical().get(type)).isLessThanOrEqualTo(snapshot.total().get(type));
+        }
+    }
+
+    private static SensorType type(int i) {
+        return SensorType.values()[i % SensorType.values().length];
+    }
+
+    private static boolean critical(int i) {
+        return i % 7 == 0;
+    }
+}
@@ -0,0 +1,206 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.repository.SensorEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Paginación por cursor (timestamp, id) contra H2: recorre todas las filas una sola vez aunque haya
+// empates de timestamp o entren filas nuevas, y una página profunda cuesta lo mismo que la primera
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class SensorEventQueryServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    @Autowired
+    private SensorEventRepository sensorEventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SensorEventQueryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SensorEventQueryService(sensorEventRepository);
+        ReflectionTestUtils.setField(service, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(service, "maxPageSize", 1_000);
+    }
+
+    @Test
+    void recorrerLasPaginasDevuelveCadaFilaUnaVezEnOrdenAunqueRepitanTimestamp() {
+        // Cuatro filas por timestamp: el cursor tiene que desempatar por id
+        insertRows(1_000, 4);
+
+        List<Long> walked = walk(SensorEventQueryService.EventFilter.all(), 7);
+        assertThat(walked).hasSize(1_000).doesNotHaveDuplicates().isEqualTo(idsInOrder(null));
+
+        SensorEventQueryService.EventFilter motion = new SensorEventQueryService.EventFilter(
+                SensorType.MOTION, null, null, null, null);
+        assertThat(walk(motion, 13)).isEqualTo(idsInOrder("MOTION"));
+    }
+
+    @Test
+    void lasFilasQueEntranDuranteElRecorridoNoDuplicanNiSaltanResultados() {
+        insertRows(100, 1);
+
+        SensorEventQueryService.EventPage first = service.page(SensorEventQueryService.EventFilter.all(), null, 30);
+        // Con OFFSET, una fila más antigua desplaza la página siguiente y la última de la primera se repite
+        insertRow(1_000_001, BASE.minusDays(1));
+        insertRow(1_000_002, BASE.plusDays(1));
+        assertThat(sensorEventRepository.findPageAfter(null, null, null, SensorEventQueryService.MIN_TIMESTAMP,
+                SensorEventQueryService.MAX_TIMESTAMP, SensorEventQueryService.MIN_TIMESTAMP, Long.MIN_VALUE,
+                PageRequest.of(1, 30)).get(0).getId()).isEqualTo(first.items().get(29).getId());
+
+        List<Long> walked = new ArrayList<>(ids(first.items()));
+        String cursor = first.nextCursor();
+        while (cursor != null) {
+            SensorEventQueryService.EventPage page = service.page(SensorEventQueryService.EventFilter.all(), cursor, 30);
+            walked.addAll(ids(page.items()));
+            cursor = page.nextCursor();
+        }
+        // Las 100 originales una vez cada una y la nueva al final; la anterior al cursor no se cuela
+        assertThat(walked).hasSize(101).doesNotHaveDuplicates().doesNotContain(1_000_001L).endsWith(1_000_002L);
+    }
+
+    @Test
+    void cursorInvalidoYTamanoFueraDeRango() {
+        insertRows(1_500, 1);
+
+        assertThatThrownBy(() -> service.page(SensorEventQueryService.EventFilter.all(), "no-es-un-cursor", 10))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThat(service.page(SensorEventQueryService.EventFilter.all(), null, 5_000).size()).isEqualTo(1_000);
+        assertThat(service.page(SensorEventQueryService.EventFilter.all(), null, 0).size()).isEqualTo(1);
+        assertThat(service.page(SensorEventQueryService.EventFilter.all(), null, null).size()).isEqualTo(100);
+    }
+
+    // 200.000 filas: la página 1.999 por cursor frente a la misma con OFFSET y frente a cargar la tabla,
+    // que era lo que hacían los listados. Tiempos con el contexto de persistencia vacío en cada intento.
+    @Test
+    void unaPaginaProfundaPorCursorCuestaLoMismoQueLaPrimera() {
+        insertRows(200_000, 4);
+        Map<String, Object> position = jdbcTemplate.queryForMap(
+                "SELECT \"timestamp\", \"id\" FROM \"sensor_events\" ORDER BY \"timestamp\", \"id\" OFFSET 199799 ROWS FETCH NEXT 1 ROW ONLY");
+        LocalDateTime afterTs = ((java.sql.Timestamp) position.get("timestamp")).toLocalDateTime();
+        long afterId = ((Number) position.get("id")).longValue();
+
+        Supplier<List<SensorEvent>> firstPage = () -> keyset(SensorEventQueryService.MIN_TIMESTAMP, Long.MIN_VALUE);
+        Supplier<List<SensorEvent>> deepKeyset = () -> keyset(afterTs, afterId);
+        Supplier<List<SensorEvent>> deepOffset = () -> sensorEventRepository.findPageAfter(null, null, null,
+                SensorEventQueryService.MIN_TIMESTAMP, SensorEventQueryService.MAX_TIMESTAMP,
+                SensorEventQueryService.MIN_TIMESTAMP, Long.MIN_VALUE, PageRequest.of(1_998, 100));
+        assertThat(ids(deepKeyset.get())).hasSize(100).isEqualTo(ids(deepOffset.get()));
+        entityManager.clear();
+
+        long firstNanos = bestOf3(firstPage);
+        long keysetNanos = bestOf3(deepKeyset);
+        long offsetNanos = bestOf3(deepOffset);
+        long wholeTableNanos = bestOf3(sensorEventRepository::findAll);
+        long pageBytes = allocatedBytes(deepKeyset);
+        long wholeTableBytes = allocatedBytes(sensorEventRepository::findAll);
+
+        // La página profunda por cursor arranca en el índice (timestamp, id) donde lo dejó la anterior. H2
+        // salta las filas del OFFSET sobre ese mismo índice sin crear entidades, así que aquí apenas se
+        // distinguen; la diferencia con OFFSET es la estabilidad del recorrido (ver el test anterior).
+        assertThat(keysetNanos).isLessThan(firstNanos * 5 + 5_000_000);
+        assertThat(keysetNanos).isLessThan(offsetNanos * 5 + 5_000_000);
+        assertThat(keysetNanos).isLessThan(wholeTableNanos / 10);
+        assertThat(pageBytes).isLessThan(wholeTableBytes / 100);
+    }
+
+    // Sigue los cursores hasta la última página y devuelve los ids en el orden recibido
+    private List<Long> walk(SensorEventQueryService.EventFilter filter, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            SensorEventQueryService.EventPage page = service.page(filter, cursor, size);
+            assertThat(page.size()).isLessThanOrEqualTo(size);
+            ids.addAll(ids(page.items()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<SensorEvent> keyset(LocalDateTime afterTs, long afterId) {
+        return sensorEventRepository.findPageAfter(null, null, null, SensorEventQueryService.MIN_TIMESTAMP,
+                SensorEventQueryService.MAX_TIMESTAMP, afterTs, afterId, PageRequest.of(0, 100));
+    }
+
+    // `rows` filas con ids 1..rows, `perTimestamp` por cada segundo, con los ids desordenados respecto al
+    // tiempo dentro de cada grupo para que el desempate se note
+    private void insertRows(int rows, int perTimestamp) {
+        jdbcTemplate.update("""
+                INSERT INTO "sensor_events" ("id", "sensor_type", "sensor_id", "location", "sensor_value", "unit",
+                    "critical", "timestamp", "processed_at", "processing_time_ms")
+                SELECT X, CASE MOD(X, 3) WHEN 0 THEN 'MOTION' WHEN 1 THEN 'TEMPERATURE' ELSE 'ACCESS' END,
+                    'S-' || MOD(X, 16), 'Zona ' || MOD(X, 8), MOD(X, 100), 'u', MOD(X, 10) = 0,
+                    DATEADD(SECOND, (%d - X) / %d, CAST(? AS TIMESTAMP)), CAST(? AS TIMESTAMP), 1
+                FROM SYSTEM_RANGE(1, %d)
+                """.formatted(rows, perTimestamp, rows), BASE, BASE);
+    }
+
+    private void insertRow(long id, LocalDateTime timestamp) {
+        jdbcTemplate.update("""
+                INSERT INTO "sensor_events" ("id", "sensor_type", "sensor_id", "location", "sensor_value", "unit",
+                    "critical", "timestamp", "processed_at", "processing_time_ms")
+                VALUES (?, 'MOTION', 'S-nuevo', 'Zona 0', 1, 'u', FALSE, ?, ?, 1)
+                """, id, timestamp, timestamp);
+    }
+
+    private List<Long> idsInOrder(String type) {
+        return type == null
+                ? jdbcTemplate.queryForList("SELECT \"id\" FROM \"sensor_events\" ORDER BY \"timestamp\", \"id\"", Long.class)
+                : jdbcTemplate.queryForList("SELECT \"id\" FROM \"sensor_events\" WHERE \"sensor_type\" = ?"
+                        + " ORDER BY \"timestamp\", \"id\"", Long.class, type);
+    }
+
+    private static List<Long> ids(List<SensorEvent> events) {
+        return events.stream().map(SensorEvent::getId).toList();
+    }
+
+    private long bestOf3(Supplier<?> query) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            query.get();
+            best = Math.min(best, System.nanoTime() - start);
+            entityManager.clear();
+        }
+        return best;
+    }
+
+    private long allocatedBytes(Supplier<?> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        query.get();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        entityManager.clear();
+        return allocated;
+    }
+}
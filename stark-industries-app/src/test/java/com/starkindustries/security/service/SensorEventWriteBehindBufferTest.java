@@ -0,0 +1,116 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.repository.SensorEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Volcado por lotes contra H2: un lote con una fila defectuosa se reintenta fila a fila y lo que sigue
+// adelante son las filas que de verdad están en BD
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.starkindustries.security.service.SensorEventWriteBehindBufferTest$CapturedSql"
+})
+class SensorEventWriteBehindBufferTest {
+
+    @Autowired
+    private SensorEventRepository sensorEventRepository;
+
+    private SensorEventWriteBehindBuffer buffer;
+    private final List<SensorEvent> persisted = new ArrayList<>();
+    private final List<SensorEvent> unpersisted = new ArrayList<>();
+
+    public static class CapturedSql implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        buffer = new SensorEventWriteBehindBuffer(sensorEventRepository, new SimpleMeterRegistry());
+        buffer.setDownstream(persisted::add, unpersisted::add);
+        CapturedSql.STATEMENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sensorEventRepository.deleteAll();
+    }
+
+    @Test
+    void elReintentoFilaAFilaInsertaLosEventosConIdsNuevosYSinMerge() {
+        List<SensorEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(event("TEMP-" + i, "Laboratorio"));
+        }
+        // Sin ubicación (NOT NULL): hace fallar el lote entero cuando los demás ya tienen id asignado
+        batch.add(event("TEMP-defectuoso", null));
+
+        ReflectionTestUtils.invokeMethod(buffer, "flush", batch);
+        List<String> flushStatements = List.copyOf(CapturedSql.STATEMENTS);
+
+        assertThat(persisted).hasSize(20);
+        assertThat(unpersisted).extracting(SensorEvent::getSensorId).containsExactly("TEMP-defectuoso");
+        assertThat(sensorEventRepository.count()).isEqualTo(20);
+        // Cada evento que sigue adelante tiene el id de su fila, no el que le dio el lote fallido
+        for (SensorEvent event : persisted) {
+            assertThat(sensorEventRepository.findById(event.getId()))
+                    .as(event.getSensorId())
+                    .hasValueSatisfying(row -> assertThat(row.getSensorId()).isEqualTo(event.getSensorId()));
+        }
+        // Con el id viejo, save() hacía merge: un SELECT por evento antes de insertar una copia
+        assertThat(flushStatements)
+                .filteredOn(sql -> sql.toLowerCase().startsWith("select") && sql.contains("from \"sensor_events\""))
+                .isEmpty();
+    }
+
+    @Test
+    void unLoteSinErroresSigueAdelanteEnOrden() {
+        List<SensorEvent> batch = List.of(event("A", "Taller"), event("B", "Taller"), event("C", "Taller"));
+
+        ReflectionTestUtils.invokeMethod(buffer, "flush", batch);
+
+        assertThat(persisted).extracting(SensorEvent::getSensorId).containsExactly("A", "B", "C");
+        assertThat(persisted).allMatch(event -> event.getId() != null);
+        assertThat(unpersisted).isEmpty();
+    }
+
+    private static SensorEvent event(String sensorId, String location) {
+        return SensorEvent.builder()
+                .sensorType(SensorType.TEMPERATURE)
+                .sensorId(sensorId)
+                .location(location)
+                .value(21.5)
+                .unit("°C")
+                .critical(false)
+                .timestamp(LocalDateTime.now())
+                .processedAt(LocalDateTime.now())
+                .processingTimeMs(1L)
+                .build();
+    }
+}
@@ -0,0 +1,211 @@
+package com.starkindustries.security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Validación compartida por la ingesta masiva y POST /api/sensors/events, y lectura en streaming por trozos
+class SensorIngestionServiceTest {
+
+    private final SensorProcessingService sensorProcessingService = mock(SensorProcessingService.class);
+    private final SensorIngestionService service = new SensorIngestionService(sensorProcessingService, new ObjectMapper());
+    // Tamaño de cada trozo que llega al pipeline
+    private final List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void rechazaEventosSinCamposObligatorios() {
+        assertThat(service.validate(event(null, "S1", "Lab", 1.0))).isEqualTo("falta sensorType");
+        assertThat(service.validate(event(SensorType.TEMPERATURE, " ", "Lab", 1.0))).isEqualTo("falta sensorId");
+        assertThat(service.validate(event(SensorType.TEMPERATURE, "S1", null, 1.0))).isEqualTo("falta location");
+        assertThat(service.validate(event(SensorType.TEMPERATURE, "S1", "Lab", null))).isEqualTo("falta value");
+    }
+
+    @Test
+    void completaLosCamposOpcionales() {
+        SensorEvent event = event(SensorType.TEMPERATURE, "S1", "Lab", 21.5);
+        event.setId(42L);
+        event.setCritical(true);
+
+        assertThat(service.validate(event)).isNull();
+        assertThat(event.getId()).isNull();
+        assertThat(event.getCritical()).isFalse();
+        assertThat(event.getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void ndjsonConEventosInvalidosSigueLeyendoYReparteEnTrozos() throws IOException {
+        configure(3, 2);
+        processImmediately();
+        String body = String.join("\n",
+                line("S1"), line("S2"),
+                "{\"sensorType\":\"TEMPERATURE\",\"location\":\"Lab\",\"value\":1.0}",
+                "{\"sensorType\":\"NO_EXISTE\",\"sensorId\":\"S3\",\"location\":\"Lab\",\"value\":1.0}",
+                line("S4"), line("FALLA"), line("S6"), line("S7"));
+
+        SensorIngestionService.IngestionSummary summary = service.ingest(stream(body));
+
+        assertThat(summary.received()).isEqualTo(8);
+        assertThat(summary.accepted()).isEqualTo(5);
+        // Sin sensorId, tipo desconocido y el que falla al procesarse
+        assertThat(summary.rejected()).isEqualTo(3);
+        assertThat(summary.errors()).hasSize(3)
+                .anyMatch(error -> error.contains("falta sensorId"))
+                .anyMatch(error -> error.startsWith("Evento inválido"))
+                .anyMatch(error -> error.contains("FALLA"));
+        assertThat(chunkSizes).containsExactly(3, 3);
+    }
+
+    @Test
+    void aceptaUnArrayJsonRaiz() throws IOException {
+        configure(500, 4);
+        processImmediately();
+
+        SensorIngestionService.IngestionSummary summary = service.ingest(stream(
+                "[" + line("S1") + "," + line("S2") + "," + line("S3") + "]"));
+
+        assertThat(summary.accepted()).isEqualTo(3);
+        assertThat(summary.rejected()).isZero();
+        assertThat(chunkSizes).containsExactly(3);
+    }
+
+    @Test
+    void elJsonMalFormadoCortaLaLecturaPeroConservaLoYaLeido() throws IOException {
+        configure(500, 4);
+        processImmediately();
+
+        SensorIngestionService.IngestionSummary summary = service.ingest(stream(
+                line("S1") + "\n" + line("S2") + "\n{\"sensorType\": TEMPERATURE\n" + line("S4")));
+
+        assertThat(summary.accepted()).isEqualTo(2);
+        assertThat(summary.rejected()).isEqualTo(1);
+        assertThat(summary.errors()).singleElement().asString().startsWith("JSON mal formado en línea 3");
+    }
+
+    @Test
+    void nuncaHayMasTrozosEnVueloQueElMaximo() throws IOException {
+        configure(10, 3);
+        AtomicInteger inflight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Executor delayed = CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS);
+        when(sensorProcessingService.processBatchAsync(anyList())).thenAnswer(invocation -> {
+            List<SensorEvent> chunk = invocation.getArgument(0);
+            peak.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                inflight.decrementAndGet();
+                return succeeded(chunk);
+            }, delayed);
+        });
+
+        SensorIngestionService.IngestionSummary summary = service.ingest(generated(1_000));
+
+        assertThat(summary.accepted()).isEqualTo(1_000);
+        assertThat(peak.get()).isEqualTo(3);
+    }
+
+    @Test
+    void ingestaDeCienDiezMilYUnMillonDeEventosEnStreaming() throws IOException {
+        configure(500, 4);
+        processImmediately();
+
+        for (int events : new int[]{100, 10_000, 1_000_000}) {
+            chunkSizes.clear();
+            // El cuerpo se genera línea a línea: un millón de eventos (~100 MB) nunca está entero en memoria
+            SensorIngestionService.IngestionSummary summary = service.ingest(generated(events));
+
+            assertThat(summary.received()).isEqualTo(events);
+            assertThat(summary.accepted()).isEqualTo(events);
+            assertThat(summary.rejected()).isZero();
+            assertThat(chunkSizes).hasSize((events + 499) / 500).allMatch(size -> size <= 500);
+        }
+    }
+
+    private void configure(int chunkSize, int maxInflightChunks) {
+        ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(service, "maxInflightChunks", maxInflightChunks);
+    }
+
+    // El pipeline acepta cada trozo al momento, salvo los eventos del sensor "FALLA"
+    private void processImmediately() {
+        when(sensorProcessingService.processBatchAsync(anyList())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(succeeded(invocation.getArgument(0))));
+    }
+
+    private List<SensorProcessingService.BatchItemResult> succeeded(List<SensorEvent> chunk) {
+        chunkSizes.add(chunk.size());
+        List<SensorProcessingService.BatchItemResult> results = new ArrayList<>(chunk.size());
+        for (SensorEvent event : chunk) {
+            boolean fails = "FALLA".equals(event.getSensorId());
+            results.add(new SensorProcessingService.BatchItemResult(event, !fails, fails ? "error simulado" : null));
+        }
+        return results;
+    }
+
+    private static String line(String sensorId) {
+        return "{\"sensorType\":\"TEMPERATURE\",\"sensorId\":\"" + sensorId
+                + "\",\"location\":\"Laboratorio\",\"value\":21.5,\"unit\":\"°C\"}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // NDJSON de `events` líneas generado bajo demanda
+    private static InputStream generated(int events) {
+        return new InputStream() {
+            private int next;
+            private byte[] current = new byte[0];
+            private int position;
+
+            @Override
+            public int read() {
+                if (position == current.length) {
+                    if (next == events) {
+                        return -1;
+                    }
+                    current = (line("TEMP-" + next++) + "\n").getBytes(StandardCharsets.UTF_8);
+                    position = 0;
+                }
+                return current[position++] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                int count = 0;
+                while (count < length) {
+                    int b = read();
+                    if (b < 0) {
+                        return count == 0 ? -1 : count;
+                    }
+                    buffer[offset + count++] = (byte) b;
+                }
+                return count;
+            }
+        };
+    }
+
+    private static SensorEvent event(SensorType type, String sensorId, String location, Double value) {
+        return SensorEvent.builder().sensorType(type).sensorId(sensorId).location(location).value(value).build();
+    }
+}
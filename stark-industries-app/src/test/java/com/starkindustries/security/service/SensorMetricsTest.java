@@ -0,0 +1,115 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Medidores resueltos al arrancar: mismos nombres y tags que antes, y sin asignaciones por evento
+class SensorMetricsTest {
+
+    private static final int EVENTS = 200_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SensorEventCounters counters = new SensorEventCounters();
+    private SensorMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(counters, "maxLocations", 16);
+        counters.init();
+        metrics = new SensorMetrics(meterRegistry, counters);
+    }
+
+    @Test
+    void todosLosTiposTienenSusMedidoresDesdeElArranque() {
+        for (SensorType type : SensorType.values()) {
+            String tag = type.name();
+            assertThat(meterRegistry.get("sensor.events.total").tag("type", tag).gauge().value()).isZero();
+            assertThat(meterRegistry.get("sensor.events.critical").tag("type", tag).gauge().value()).isZero();
+            assertThat(meterRegistry.get("sensor.processing.time").tag("type", tag).timer().count()).isZero();
+            assertThat(meterRegistry.get("sensor.processing.errors").tag("type", tag).counter().count()).isZero();
+            assertThat(meterRegistry.get("sensor.events.processed").tag("type", tag).counters()).hasSize(2);
+        }
+    }
+
+    @Test
+    void cadaRegistroLlegaAlMedidorDeSuTipoYCriticidad() {
+        metrics.recordProcessed(SensorType.MOTION, "Hangar", true);
+        metrics.recordProcessed(SensorType.MOTION, "Hangar", false);
+        metrics.recordProcessed(SensorType.MOTION, "Taller", false);
+        metrics.recordProcessingTime(SensorType.MOTION, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.recordError(SensorType.ACCESS);
+
+        assertThat(meterRegistry.get("sensor.events.total").tag("type", "MOTION").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("sensor.events.critical").tag("type", "MOTION").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("sensor.events.processed").tag("type", "MOTION").tag("critical", "true")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sensor.events.processed").tag("type", "MOTION").tag("critical", "false")
+                .counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("sensor.processing.time").tag("type", "MOTION").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3);
+        assertThat(meterRegistry.get("sensor.processing.errors").tag("type", "ACCESS").counter().count()).isEqualTo(1);
+        assertThat(metrics.snapshot().total()).containsEntry(SensorType.MOTION, 3L).containsEntry(SensorType.ACCESS, 0L);
+    }
+
+    @Test
+    void elCaminoPorEventoNoAsignaMemoriaAlContrarioQueResolverLosMedidoresCadaVez() {
+        SensorType[] types = SensorType.values();
+        // Calentamiento de ambos caminos antes de medir
+        for (int i = 0; i < EVENTS; i++) {
+            preResolved(types[i % types.length], i % 7 == 0);
+            resolvedPerEvent(types[i % types.length], i % 7 == 0);
+        }
+
+        long preResolvedBytes = allocatedBytes(() -> {
+            for (int i = 0; i < EVENTS; i++) {
+                preResolved(types[i % types.length], i % 7 == 0);
+            }
+        });
+        long perEventBytes = allocatedBytes(() -> {
+            for (int i = 0; i < EVENTS; i++) {
+                resolvedPerEvent(types[i % types.length], i % 7 == 0);
+            }
+        });
+
+        // Resolver en cada evento crea builders, listas de tags y el Timer.Sample; el EnumMap, nada
+        assertThat(perEventBytes / EVENTS).isGreaterThanOrEqualTo(100);
+        assertThat(preResolvedBytes / EVENTS).isLessThan(8);
+    }
+
+    private void preResolved(SensorType type, boolean critical) {
+        long start = System.nanoTime();
+        metrics.recordProcessed(type, "Laboratorio", critical);
+        metrics.recordProcessingTime(type, System.nanoTime() - start);
+    }
+
+    // Lo que hacía antes SensorProcessingService por cada evento
+    private void resolvedPerEvent(SensorType type, boolean critical) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter.builder("sensor.events.processed")
+                .tag("type", type.name())
+                .tag("critical", String.valueOf(critical))
+                .register(meterRegistry)
+                .increment();
+        sample.stop(Timer.builder("sensor.processing.time")
+                .tag("type", type.name())
+                .register(meterRegistry));
+    }
+
+    private static long allocatedBytes(Runnable work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        work.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+}
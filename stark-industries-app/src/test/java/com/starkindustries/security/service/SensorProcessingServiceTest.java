@@ -0,0 +1,121 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.config.SensorBulkheads;
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.sensor.Sensor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Lotes en paralelo: el lote tarda lo que el evento más lento, no la suma, y un fallo queda en su resultado
+class SensorProcessingServiceTest {
+
+    private static final long EVENT_MS = 300;
+    private static final int EVENTS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Sensor temperatureSensor = mock(Sensor.class);
+    private SensorBulkheads bulkheads;
+    private SensorProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        when(temperatureSensor.processEvent(any())).thenAnswer(invocation -> {
+            SensorEvent event = invocation.getArgument(0);
+            Thread.sleep(EVENT_MS);
+            if ("averiada".equals(event.getLocation())) {
+                throw new IllegalStateException("sensor averiado");
+            }
+            event.setCritical(false);
+            return event;
+        });
+
+        Map<SensorType, SensorBulkheads.Bulkhead> pools = new EnumMap<>(SensorType.class);
+        for (SensorType type : SensorType.values()) {
+            pools.put(type, new SensorBulkheads.Bulkhead(pool(type), true));
+        }
+        bulkheads = new SensorBulkheads(pools, true, meterRegistry);
+
+        SensorEventCounters counters = new SensorEventCounters();
+        ReflectionTestUtils.setField(counters, "maxLocations", 64);
+        counters.init();
+        SensorAdmissionService admission = new SensorAdmissionService(temperatureSensor, 100, meterRegistry);
+        ReflectionTestUtils.setField(admission, "enabled", false);
+
+        service = new SensorProcessingService(mock(SensorEventPipeline.class), mock(NotificationService.class),
+                Map.of("temperatureSensor", temperatureSensor), new SensorMetrics(meterRegistry, counters),
+                bulkheads, admission);
+        ReflectionTestUtils.setField(service, "batchParallelism", EVENTS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        bulkheads.destroy();
+    }
+
+    @Test
+    void elLoteTardaLoQueElEventoMasLentoNoLaSuma() throws Exception {
+        List<SensorEvent> batch = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            batch.add(event("zona-" + i));
+        }
+
+        long startedAt = System.nanoTime();
+        List<SensorProcessingService.BatchItemResult> results = service.processBatchAsync(batch).get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        assertThat(results).hasSize(EVENTS).allMatch(SensorProcessingService.BatchItemResult::success);
+        // En serie serían EVENTS × EVENT_MS = 2,4 s; se deja margen de sobra para una máquina lenta
+        assertThat(elapsedMs).as("duración del lote (ms)").isGreaterThanOrEqualTo(EVENT_MS).isLessThan(3 * EVENT_MS);
+    }
+
+    @Test
+    void unEventoQueFallaNoArrastraAlRestoDelLote() throws Exception {
+        List<SensorEvent> batch = List.of(event("zona-0"), event("averiada"), event("zona-2"), event("zona-3"));
+
+        List<SensorProcessingService.BatchItemResult> results = service.processBatchAsync(batch).get(10, TimeUnit.SECONDS);
+
+        // Mismo orden que el lote
+        assertThat(results).extracting(r -> r.event().getLocation())
+                .containsExactly("zona-0", "averiada", "zona-2", "zona-3");
+        assertThat(results).extracting(SensorProcessingService.BatchItemResult::success)
+                .containsExactly(true, false, true, true);
+        assertThat(results.get(1).error()).isEqualTo("IllegalStateException: sensor averiado");
+        assertThat(meterRegistry.get("sensor.processing.errors").tag("type", "TEMPERATURE").counter().count())
+                .isEqualTo(1);
+    }
+
+    private static ThreadPoolTaskExecutor pool(SensorType type) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(EVENTS);
+        executor.setMaxPoolSize(EVENTS);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("test-" + type.name() + "-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static SensorEvent event(String location) {
+        return SensorEvent.builder()
+                .sensorType(SensorType.TEMPERATURE)
+                .sensorId("T-" + location)
+                .location(location)
+                .value(21.0)
+                .build();
+    }
+}
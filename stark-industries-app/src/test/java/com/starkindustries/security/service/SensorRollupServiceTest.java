@@ -0,0 +1,208 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorRollup;
+import com.starkindustries.security.model.SensorType;
+import com.starkindustries.security.repository.SensorRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SensorRollupServiceTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int BATCHES = 2_000;
+    private static final int BATCH_SIZE = 10;
+
+    private final SensorRollupRepository repository = mock(SensorRollupRepository.class);
+    private final SensorRollupService service = new SensorRollupService(repository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+    // Eventos y críticos que han llegado a la tabla en todos los volcados
+    private final AtomicLong persistedEvents = new AtomicLong();
+    private final AtomicLong persistedCritical = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxLocations", 16);
+        service.init();
+        when(repository.findByGranularityAndBucketStartIn(any(), anyCollection())).thenReturn(List.of());
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<SensorRollup> rows = invocation.getArgument(0);
+            for (SensorRollup row : rows) {
+                persistedEvents.addAndGet(row.getEvents());
+                persistedCritical.addAndGet(row.getCriticalEvents());
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void ningunEventoSePierdeAunqueSeVuelqueMientrasSeSuma() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                producers.add(pool.submit(() -> {
+                    start.await();
+                    for (int b = 0; b < BATCHES; b++) {
+                        service.record(batch(producer, b));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (producing.get()) {
+                    service.flush();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+            producing.set(false);
+            flusher.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        service.flush();
+
+        long expected = (long) PRODUCERS * BATCHES * BATCH_SIZE;
+        assertThat(persistedEvents.get()).isEqualTo(expected);
+        assertThat(persistedCritical.get()).isEqualTo(expected / BATCH_SIZE);
+    }
+
+    @Test
+    void lasLecturasNoCuentanDosVecesNiPierdenLoQueSeEstaVolcando() throws Exception {
+        // La "tabla" devuelve lo ya confirmado; uno de cada tres volcados falla y se devuelve a memoria
+        AtomicLong flushes = new AtomicLong();
+        doAnswer(invocation -> {
+            if (flushes.incrementAndGet() % 3 == 0) {
+                throw new IllegalStateException("BD caída");
+            }
+            Iterable<SensorRollup> rows = invocation.getArgument(0);
+            for (SensorRollup row : rows) {
+                persistedEvents.addAndGet(row.getEvents());
+            }
+            // Ensancha la ventana entre la confirmación y la retirada de `flushing`
+            Thread.sleep(1);
+            return rows;
+        }).when(repository).saveAll(any());
+        when(repository.totalsBySensorType()).thenAnswer(invocation ->
+                List.<Object[]>of(new Object[]{SensorType.TEMPERATURE, persistedEvents.get(), 0L, 0L}));
+
+        AtomicLong started = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        AtomicBoolean producing = new AtomicBoolean(true);
+        List<String> violations = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> producer = pool.submit(() -> {
+                for (int b = 0; b < 3_000; b++) {
+                    List<SensorEvent> batch = batch(0, b);
+                    started.addAndGet(batch.size());
+                    service.record(batch);
+                    completed.addAndGet(batch.size());
+                }
+                producing.set(false);
+                return null;
+            });
+            Future<?> flusher = pool.submit(() -> {
+                while (producing.get()) {
+                    service.flush();
+                }
+                return null;
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(pool.submit(() -> {
+                    while (producing.get()) {
+                        long atLeast = completed.get();
+                        long seen = service.totalsByType().get(SensorType.TEMPERATURE).events();
+                        long atMost = started.get();
+                        if (seen < atLeast || seen > atMost) {
+                            violations.add(seen + " fuera de [" + atLeast + ", " + atMost + "]");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            producer.get();
+            flusher.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(violations).isEmpty();
+        assertThat(service.totalsByType().get(SensorType.TEMPERATURE).events()).isEqualTo(3_000L * BATCH_SIZE);
+    }
+
+    @Test
+    void lasUbicacionesNuevasPasadoElMaximoSeAgrupan() {
+        List<SensorEvent> events = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            events.add(event("zona-" + i, 1.0, false));
+        }
+        service.record(events);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SensorRollupService.Bucket> buckets = service.buckets(SensorRollup.Granularity.MINUTE,
+                now.minusHours(1), now.plusHours(1), SensorType.TEMPERATURE, null);
+
+        assertThat(buckets).hasSize(17);
+        assertThat(buckets).filteredOn(b -> b.location().equals(SensorEventCounters.OTHER_LOCATION))
+                .singleElement()
+                .satisfies(b -> assertThat(b.events()).isEqualTo(24));
+    }
+
+    // Lote con varias ubicaciones y minutos; el primer evento de cada lote es crítico
+    private static List<SensorEvent> batch(int producer, int batch) {
+        List<SensorEvent> events = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            SensorEvent event = event("zona-" + ((producer + i) % 4), i, i == 0);
+            event.setTimestamp(event.getTimestamp().minusMinutes(batch % 3));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static SensorEvent event(String location, double value, boolean critical) {
+        SensorEvent event = new SensorEvent();
+        event.setSensorType(SensorType.TEMPERATURE);
+        event.setSensorId("T-1");
+        event.setLocation(location);
+        event.setValue(value);
+        event.setCritical(critical);
+        event.setProcessingTimeMs(5L);
+        event.setTimestamp(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,68 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.model.SensorEvent;
+import com.starkindustries.security.model.SensorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SensorTimeSeriesTest {
+
+    private final SensorTimeSeries timeSeries = new SensorTimeSeries();
+    private final long now = System.currentTimeMillis() + 60_000;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timeSeries, "capacity", 4);
+        ReflectionTestUtils.setField(timeSeries, "maxStrings", 16);
+        timeSeries.init();
+    }
+
+    @Test
+    void unPuntoAntiguoNoOcultaLosRecientesQueLlegaronAntes() {
+        timeSeries.append(List.of(event(now - 1_000), event(now - 900_000), event(now - 500)));
+
+        List<SensorTimeSeries.Point> points = timeSeries.recent(SensorType.TEMPERATURE, now - 60_000, 10, false)
+                .orElseThrow();
+
+        assertThat(points).extracting(SensorTimeSeries.Point::epochMillis).containsExactly(now - 1_000, now - 500);
+    }
+
+    @Test
+    void devuelveLosMasRecientesPorInstanteNoPorLlegada() {
+        timeSeries.append(List.of(event(now - 100), event(now - 300), event(now - 200)));
+
+        List<SensorTimeSeries.Point> points = timeSeries.recent(SensorType.TEMPERATURE, now - 60_000, 2, false)
+                .orElseThrow();
+
+        assertThat(points).extracting(SensorTimeSeries.Point::epochMillis).containsExactly(now - 200, now - 100);
+    }
+
+    @Test
+    void sinCoberturaTrasDarLaVueltaRemiteALaBd() {
+        // El quinto punto sobrescribe al más reciente de todos: la ventana ya no está completa
+        timeSeries.append(List.of(event(now - 10), event(now - 400), event(now - 300), event(now - 200),
+                event(now - 100)));
+
+        assertThat(timeSeries.recent(SensorType.TEMPERATURE, now - 60_000, 10, false)).isEmpty();
+        assertThat(timeSeries.recent(SensorType.TEMPERATURE, now - 5, 10, false)).hasValue(List.of());
+    }
+
+    private SensorEvent event(long epochMillis) {
+        SensorEvent event = new SensorEvent();
+        event.setSensorType(SensorType.TEMPERATURE);
+        event.setSensorId("T-1");
+        event.setLocation("Laboratorio");
+        event.setValue(21.0);
+        event.setUnit("C");
+        event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+        return event;
+    }
+}
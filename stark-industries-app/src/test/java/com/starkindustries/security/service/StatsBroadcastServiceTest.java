@@ -0,0 +1,124 @@
+package com.starkindustries.security.service;
+
+import com.starkindustries.security.config.SensorBulkheads;
+import com.starkindustries.security.model.SensorType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Publicación coalescida de /topic/stats: una ráfaga de eventos se traduce en un mensaje por intervalo
+class StatsBroadcastServiceTest {
+
+    private static final long PUBLISH_INTERVAL_MS = 250;
+
+    private final SensorProcessingService sensorProcessingService = mock(SensorProcessingService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SensorEventCounters counters = new SensorEventCounters();
+    private final AtomicLong version = new AtomicLong();
+    private final List<StatsBroadcastService.StatsSnapshot> published = new CopyOnWriteArrayList<>();
+    private StatsBroadcastService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(counters, "maxLocations", 16);
+        counters.init();
+        when(sensorProcessingService.getStatsVersion()).thenAnswer(invocation -> version.get());
+        when(sensorProcessingService.getEventCounters()).thenAnswer(invocation -> counters.snapshot());
+        doAnswer(invocation -> published.add(invocation.getArgument(1)))
+                .when(messagingTemplate).convertAndSend(eq("/topic/stats"), any(Object.class));
+        SensorBulkheads bulkheads = mock(SensorBulkheads.class);
+        ThreadPoolTaskExecutor sensorExecutor = new ThreadPoolTaskExecutor();
+        service = new StatsBroadcastService(sensorProcessingService, messagingTemplate, sensorExecutor, bulkheads,
+                meterRegistry);
+        ReflectionTestUtils.setField(service, "publishIntervalMs", PUBLISH_INTERVAL_MS);
+    }
+
+    @Test
+    void sinEventosNuevosNoSePublicaNiSeReconstruye() {
+        event(SensorType.TEMPERATURE, false);
+        service.publishIfChanged();
+        service.publishIfChanged();
+        service.publishIfChanged();
+
+        assertThat(published).hasSize(1);
+        // La petición del cliente reutiliza el snapshot ya construido dentro del intervalo
+        StatsBroadcastService.StatsSnapshot requested = service.currentSnapshot();
+        assertThat(requested).isSameAs(published.get(0));
+        verify(sensorProcessingService, times(1)).getEventCounters();
+    }
+
+    @Test
+    void milEventosEntreDosPublicacionesSeAgrupanEnUnMensaje() {
+        for (int i = 0; i < 1_000; i++) {
+            event(i % 2 == 0 ? SensorType.MOTION : SensorType.ACCESS, i % 10 == 0);
+        }
+        service.publishIfChanged();
+
+        assertThat(published).singleElement().satisfies(snapshot -> {
+            assertThat(snapshot.version()).isEqualTo(1_000);
+            assertThat(snapshot.totalEvents()).containsEntry("MOTION", 500L).containsEntry("ACCESS", 500L)
+                    .containsEntry("TEMPERATURE", 0L);
+            assertThat(snapshot.criticalEvents()).containsEntry("MOTION", 100L);
+        });
+        // El latido se envía aunque no haya cambios, para los clientes recién conectados
+        service.broadcastStats();
+        assertThat(published).hasSize(2);
+        assertThat(meterRegistry.counter("stats.broadcast.messages", "reason", "change").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("stats.broadcast.messages", "reason", "heartbeat").count()).isEqualTo(1);
+    }
+
+    @Test
+    void unaRafagaDeDosSegundosPublicaComoMuchoUnMensajePorIntervalo() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long events = 0;
+        try {
+            scheduler.scheduleAtFixedRate(service::publishIfChanged, PUBLISH_INTERVAL_MS, PUBLISH_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (System.nanoTime() < end) {
+                event(SensorType.values()[(int) (events % SensorType.values().length)], events % 7 == 0);
+                events++;
+            }
+        } finally {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        service.publishIfChanged();
+
+        // Antes era un mensaje por evento; ahora, como mucho uno por intervalo (más el final)
+        long maxMessages = TimeUnit.SECONDS.toMillis(2) / PUBLISH_INTERVAL_MS + 1;
+        assertThat(published).hasSizeBetween(2, (int) maxMessages);
+        assertThat(events).isGreaterThan(100 * maxMessages);
+        // Las versiones publicadas crecen y la última refleja todos los eventos
+        assertThat(published).extracting(StatsBroadcastService.StatsSnapshot::version).isSorted();
+        StatsBroadcastService.StatsSnapshot last = published.get(published.size() - 1);
+        assertThat(last.version()).isEqualTo(events);
+        assertThat(last.totalEvents().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(events);
+    }
+
+    // Lo que hace el procesamiento por cada evento: contar y marcar las estadísticas como sucias
+    private void event(SensorType type, boolean critical) {
+        counters.increment(type, "Laboratorio", critical);
+        version.incrementAndGet();
+    }
+}